@@ -0,0 +1,63 @@
+package edu.udel.cis.vsl.gmc.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.udel.cis.vsl.gmc.FalsePredicate;
+import edu.udel.cis.vsl.gmc.GMCConfiguration;
+import edu.udel.cis.vsl.gmc.seq.BfsSearcher;
+
+/**
+ * Measures the time of a complete search of each model by the breadth-first
+ * searcher. It keeps its own table of visited states, so the storage modes do
+ * not apply.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class BfsBenchmark {
+
+	@Param({GraphModel.RANDOM, GraphModel.GRID, GraphModel.DIAMONDS,
+			GraphModel.AMPLE})
+	public String model;
+
+	@Param({"10000", "100000"})
+	public int size;
+
+	private GraphModel graph;
+
+	private GMCConfiguration config;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		graph = GraphModel.generate(model, size);
+		config = Configurations.configuration(Configurations.DEFAULT);
+	}
+
+	@Benchmark
+	public boolean bfs(SearchCounters counters) {
+		BfsSearcher<Integer, Integer> searcher = new BfsSearcher<>(
+				new GraphEnabler(graph), new GraphStateManager(graph),
+				new FalsePredicate<>(), config);
+		boolean result = searcher.search(0);
+
+		counters.states += searcher.numStatesSeen();
+		counters.transitions += searcher.numTransitions();
+		return result;
+	}
+}
@@ -0,0 +1,77 @@
+package edu.udel.cis.vsl.gmc.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.udel.cis.vsl.gmc.FalsePredicate;
+import edu.udel.cis.vsl.gmc.SearchMetrics;
+import edu.udel.cis.vsl.gmc.concurrent.ConcurrentDfsSearcher;
+import edu.udel.cis.vsl.gmc.concurrent.ParallelBfsSearcher;
+
+/**
+ * Measures the time of a complete search of each model by the concurrent
+ * searchers, for several numbers of threads. The scaling is read by comparing
+ * the times for 1 thread and more.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ConcurrentSearchBenchmark {
+
+	@Param({GraphModel.RANDOM, GraphModel.GRID, GraphModel.DIAMONDS,
+			GraphModel.AMPLE})
+	public String model;
+
+	@Param({"100000"})
+	public int size;
+
+	@Param({"1", "2", "4", "8"})
+	public int threads;
+
+	private GraphModel graph;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		graph = GraphModel.generate(model, size);
+	}
+
+	@Benchmark
+	public boolean concurrentDfs(SearchCounters counters) {
+		ConcurrentDfsSearcher<Integer, Integer> searcher = new ConcurrentDfsSearcher<>(
+				new GraphEnabler(graph), new GraphStateManager(graph),
+				new FalsePredicate<>(), threads);
+		boolean result = searcher.search(0);
+		SearchMetrics metrics = searcher.metrics();
+
+		counters.states += metrics.numStatesSeen();
+		counters.transitions += metrics.numTransitions();
+		return result;
+	}
+
+	@Benchmark
+	public boolean parallelBfs(SearchCounters counters) {
+		ParallelBfsSearcher<Integer, Integer> searcher = new ParallelBfsSearcher<>(
+				new GraphEnabler(graph), new GraphStateManager(graph),
+				new FalsePredicate<>(), threads);
+		boolean result = searcher.search(0);
+
+		counters.states += searcher.totalNumStatesSeen();
+		counters.transitions += searcher.totalNumTransitions();
+		return result;
+	}
+}
@@ -0,0 +1,55 @@
+package edu.udel.cis.vsl.gmc.bench;
+
+import java.util.Arrays;
+
+import edu.udel.cis.vsl.gmc.GMCConfiguration;
+import edu.udel.cis.vsl.gmc.smc.SMCConstants;
+
+/**
+ * Builds the configurations of the searches for the storage modes of the
+ * visited states compared by the benchmarks.
+ */
+class Configurations {
+
+	/**
+	 * The names of the storage modes, as used by the benchmark parameters.
+	 */
+	static final String DEFAULT = "default", HASH_COMPACTION = "hashCompaction",
+			BITSTATE = "bitstate", OFF_HEAP = "offHeap";
+
+	/**
+	 * The number of bits of the bitstate table: 64 Mbit, i.e., 8 MB.
+	 */
+	static final long BITSTATE_SIZE = 1L << 26;
+
+	/**
+	 * @param storage
+	 *            one of {@link #DEFAULT}, {@link #HASH_COMPACTION},
+	 *            {@link #BITSTATE} and {@link #OFF_HEAP}
+	 * @return a quiet configuration using that storage mode
+	 */
+	static GMCConfiguration configuration(String storage) {
+		GMCConfiguration config = new GMCConfiguration(
+				Arrays.asList(SMCConstants.getAllOptions()));
+
+		config.setQuiet(true);
+		config.setPrintTransition(false);
+		switch (storage) {
+			case DEFAULT :
+				break;
+			case HASH_COMPACTION :
+				config.setHashCompaction(true);
+				break;
+			case BITSTATE :
+				config.setBitstateSize(BITSTATE_SIZE);
+				break;
+			case OFF_HEAP :
+				config.setOffHeapStates(true);
+				break;
+			default :
+				throw new IllegalArgumentException(
+						"Unknown storage mode: " + storage);
+		}
+		return config;
+	}
+}
@@ -0,0 +1,88 @@
+package edu.udel.cis.vsl.gmc.bench;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import edu.udel.cis.vsl.gmc.seq.EnablerIF;
+
+/**
+ * The enabler of a {@link GraphModel}: the transitions enabled at a state are
+ * the indexes of its edges.
+ */
+public class GraphEnabler implements EnablerIF<Integer, Integer> {
+
+	private GraphModel graph;
+
+	private boolean debug = false;
+
+	private PrintStream debugStream = System.out;
+
+	public GraphEnabler(GraphModel graph) {
+		this.graph = graph;
+	}
+
+	/**
+	 * Collects the edges of a state which are or are not ample.
+	 */
+	private List<Integer> edges(int state, boolean ample) {
+		int end = graph.endEdge(state);
+		List<Integer> result = new ArrayList<>(end - graph.firstEdge(state));
+
+		for (int e = graph.firstEdge(state); e < end; e++)
+			if (graph.isAmple(e) == ample)
+				result.add(e);
+		return result;
+	}
+
+	@Override
+	public Collection<Integer> ampleSet(Integer source) {
+		List<Integer> ample = edges(source, true);
+
+		return ample.isEmpty() ? fullSet(source) : ample;
+	}
+
+	@Override
+	public Collection<Integer> fullSet(Integer state) {
+		int first = graph.firstEdge(state), end = graph.endEdge(state);
+		List<Integer> result = new ArrayList<>(end - first);
+
+		for (int e = first; e < end; e++)
+			result.add(e);
+		return result;
+	}
+
+	@Override
+	public Collection<Integer> ampleSetComplement(Integer state,
+			Collection<Integer> ampleSet) {
+		List<Integer> complement = edges(state, false);
+
+		// without ample edges, the ample set was the full set
+		if (complement.size() == graph.endEdge(state)
+				- graph.firstEdge(state))
+			return Collections.emptyList();
+		return complement;
+	}
+
+	@Override
+	public void setDebugging(boolean value) {
+		this.debug = value;
+	}
+
+	@Override
+	public boolean debugging() {
+		return debug;
+	}
+
+	@Override
+	public void setDebugOut(PrintStream out) {
+		this.debugStream = out;
+	}
+
+	@Override
+	public PrintStream getDebugOut() {
+		return debugStream;
+	}
+}
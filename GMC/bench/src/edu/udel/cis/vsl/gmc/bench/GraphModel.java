@@ -0,0 +1,249 @@
+package edu.udel.cis.vsl.gmc.bench;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * <p>
+ * A synthetic state-transition graph used by the benchmarks. The states are
+ * the ints 0 to n-1, 0 being the initial state, and the transitions are the
+ * edge indexes. The edges are stored in compressed sparse rows, so graphs of
+ * millions of states can be built, unlike with the square matrix of
+ * {@link edu.udel.cis.vsl.gmc.smc.MatrixDirectedGraph}.
+ * </p>
+ *
+ * <p>
+ * Each edge may be marked as ample: the ample set of a state is its ample
+ * edges, if it has any, and all its edges otherwise, as for the "@"
+ * transitions of SMC.
+ * </p>
+ */
+public class GraphModel {
+
+	/**
+	 * The name of each generator, as used by the benchmark parameters.
+	 */
+	public static final String RANDOM = "random", GRID = "grid",
+			DIAMONDS = "diamonds", AMPLE = "ample";
+
+	/**
+	 * The index of the first edge of each state; the edges of state s are
+	 * firstEdge[s] to firstEdge[s+1]-1.
+	 */
+	private final int[] firstEdge;
+
+	/**
+	 * The destination of each edge.
+	 */
+	private final int[] targets;
+
+	/**
+	 * The edges which are in the ample set of their source state.
+	 */
+	private final boolean[] ample;
+
+	/**
+	 * Builds the graph of the given edges. The arrays are indexed by edge, in
+	 * any order.
+	 */
+	private GraphModel(int numStates, int numEdges, int[] sources,
+			int[] destinations, boolean[] isAmple) {
+		int[] next;
+
+		firstEdge = new int[numStates + 1];
+		targets = new int[numEdges];
+		ample = new boolean[numEdges];
+		for (int e = 0; e < numEdges; e++)
+			firstEdge[sources[e] + 1]++;
+		for (int s = 0; s < numStates; s++)
+			firstEdge[s + 1] += firstEdge[s];
+		next = Arrays.copyOf(firstEdge, numStates);
+		for (int e = 0; e < numEdges; e++) {
+			int i = next[sources[e]]++;
+
+			targets[i] = destinations[e];
+			ample[i] = isAmple[e];
+		}
+	}
+
+	public int numStates() {
+		return firstEdge.length - 1;
+	}
+
+	public int numEdges() {
+		return targets.length;
+	}
+
+	public int firstEdge(int state) {
+		return firstEdge[state];
+	}
+
+	/**
+	 * @return the index after the last edge of the state
+	 */
+	public int endEdge(int state) {
+		return firstEdge[state + 1];
+	}
+
+	public int target(int edge) {
+		return targets[edge];
+	}
+
+	public boolean isAmple(int edge) {
+		return ample[edge];
+	}
+
+	/**
+	 * Accumulates the edges of a graph.
+	 */
+	private static class Builder {
+		private int numStates;
+
+		private int numEdges = 0;
+
+		private int[] sources = new int[16];
+
+		private int[] destinations = new int[16];
+
+		private boolean[] isAmple = new boolean[16];
+
+		Builder(int numStates) {
+			this.numStates = numStates;
+		}
+
+		void edge(int source, int destination, boolean ample) {
+			if (numEdges == sources.length) {
+				sources = Arrays.copyOf(sources, numEdges << 1);
+				destinations = Arrays.copyOf(destinations, numEdges << 1);
+				isAmple = Arrays.copyOf(isAmple, numEdges << 1);
+			}
+			sources[numEdges] = source;
+			destinations[numEdges] = destination;
+			isAmple[numEdges] = ample;
+			numEdges++;
+		}
+
+		GraphModel build() {
+			return new GraphModel(numStates, numEdges, sources, destinations,
+					isAmple);
+		}
+	}
+
+	/**
+	 * A random graph: each state has an edge to the next one, so all the
+	 * states are reachable, and degree-1 edges to random states.
+	 *
+	 * @param numStates
+	 *            the number of states
+	 * @param degree
+	 *            the number of edges of each state
+	 * @param seed
+	 *            the seed of the random targets
+	 */
+	public static GraphModel random(int numStates, int degree, long seed) {
+		Builder builder = new Builder(numStates);
+		Random random = new Random(seed);
+
+		for (int s = 0; s < numStates; s++) {
+			builder.edge(s, (s + 1) % numStates, false);
+			for (int i = 1; i < degree; i++)
+				builder.edge(s, random.nextInt(numStates), false);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * A square grid with edges to the right and down: the paths join at
+	 * every state, so most transitions lead to states already seen.
+	 *
+	 * @param numStates
+	 *            the approximate number of states, rounded to a square
+	 */
+	public static GraphModel grid(int numStates) {
+		int side = Math.max(1, (int) Math.sqrt(numStates));
+		Builder builder = new Builder(side * side);
+
+		for (int x = 0; x < side; x++)
+			for (int y = 0; y < side; y++) {
+				int s = x * side + y;
+
+				if (x + 1 < side)
+					builder.edge(s, s + side, false);
+				if (y + 1 < side)
+					builder.edge(s, s + 1, false);
+			}
+		return builder.build();
+	}
+
+	/**
+	 * A ring of diamonds: the top of each diamond branches to a left and a
+	 * right state which both lead to the top of the next diamond, and the
+	 * last diamond leads back to the first, so the search is deep and every
+	 * state is on a cycle.
+	 *
+	 * @param numStates
+	 *            the approximate number of states, rounded to a multiple of
+	 *            3
+	 */
+	public static GraphModel diamonds(int numStates) {
+		int numDiamonds = Math.max(1, numStates / 3);
+		Builder builder = new Builder(3 * numDiamonds);
+
+		for (int d = 0; d < numDiamonds; d++) {
+			int top = 3 * d, next = 3 * ((d + 1) % numDiamonds);
+
+			builder.edge(top, top + 1, false);
+			builder.edge(top, top + 2, false);
+			builder.edge(top + 1, next, false);
+			builder.edge(top + 2, next, false);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * A torus where the moves along the rows are ample and the moves along
+	 * the columns are not. The rows are cycles, so the stack proviso fails on
+	 * every row and many states are fully expanded.
+	 *
+	 * @param numStates
+	 *            the approximate number of states, rounded to a square
+	 */
+	public static GraphModel ample(int numStates) {
+		int side = Math.max(2, (int) Math.sqrt(numStates));
+		Builder builder = new Builder(side * side);
+
+		for (int x = 0; x < side; x++)
+			for (int y = 0; y < side; y++) {
+				int s = x * side + y;
+
+				builder.edge(s, x * side + (y + 1) % side, true);
+				builder.edge(s, ((x + 1) % side) * side + y, false);
+			}
+		return builder.build();
+	}
+
+	/**
+	 * Builds a graph by the name of its generator.
+	 *
+	 * @param name
+	 *            one of {@link #RANDOM}, {@link #GRID}, {@link #DIAMONDS} and
+	 *            {@link #AMPLE}
+	 * @param numStates
+	 *            the approximate number of states
+	 */
+	public static GraphModel generate(String name, int numStates) {
+		switch (name) {
+			case RANDOM :
+				return random(numStates, 3, 42);
+			case GRID :
+				return grid(numStates);
+			case DIAMONDS :
+				return diamonds(numStates);
+			case AMPLE :
+				return ample(numStates);
+			default :
+				throw new IllegalArgumentException(
+						"Unknown graph generator: " + name);
+		}
+	}
+}
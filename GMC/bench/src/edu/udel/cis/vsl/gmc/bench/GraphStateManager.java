@@ -0,0 +1,120 @@
+package edu.udel.cis.vsl.gmc.bench;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import edu.udel.cis.vsl.gmc.TraceStepIF;
+import edu.udel.cis.vsl.gmc.concurrent.ConcurrentStateManagerIF;
+import edu.udel.cis.vsl.gmc.seq.StateSerializer;
+
+/**
+ * The state manager of a {@link GraphModel}. It prints nothing, except when
+ * asked to print a state or transition to a stream, so that the benchmarks
+ * measure the search and not the output.
+ */
+public class GraphStateManager
+		extends
+			ConcurrentStateManagerIF<Integer, Integer> {
+
+	private static final StateSerializer<Integer> SERIALIZER = new StateSerializer<Integer>() {
+		@Override
+		public void write(Integer state, DataOutput out) throws IOException {
+			out.writeInt(state);
+		}
+
+		@Override
+		public Integer read(DataInput in) throws IOException {
+			return in.readInt();
+		}
+	};
+
+	/**
+	 * The step taken along an edge of the graph.
+	 */
+	private static class GraphTraceStep implements TraceStepIF<Integer> {
+		private final int edge;
+
+		private final Integer finalState;
+
+		GraphTraceStep(int edge, Integer finalState) {
+			this.edge = edge;
+			this.finalState = finalState;
+		}
+
+		@Override
+		public Integer getFinalState() {
+			return finalState;
+		}
+
+		@Override
+		public String toString() {
+			return "[" + edge + "=>" + finalState + "]";
+		}
+	}
+
+	private GraphModel graph;
+
+	public GraphStateManager(GraphModel graph) {
+		this.graph = graph;
+	}
+
+	@Override
+	public StateSerializer<Integer> getStateSerializer() {
+		return SERIALIZER;
+	}
+
+	@Override
+	public TraceStepIF<Integer> nextState(Integer state, Integer transition) {
+		return new GraphTraceStep(transition, graph.target(transition));
+	}
+
+	@Override
+	public void normalize(TraceStepIF<Integer> traceStep) {
+		// states are already normal
+	}
+
+	@Override
+	public Integer normalize(Integer state) {
+		return state;
+	}
+
+	@Override
+	public void printTraceStep(Integer sourceState,
+			TraceStepIF<Integer> traceStep) {
+	}
+
+	@Override
+	public void printTraceStepFinalState(Integer finalState,
+			int normalizedID) {
+	}
+
+	@Override
+	public void printStateShort(PrintStream out, Integer state) {
+		out.print(state);
+	}
+
+	@Override
+	public void printStateLong(PrintStream out, Integer state) {
+		out.print("State " + state);
+	}
+
+	@Override
+	public void printTransitionShort(PrintStream out, Integer transition) {
+		out.print(transition);
+	}
+
+	@Override
+	public void printTransitionLong(PrintStream out, Integer transition) {
+		out.print("Edge " + transition);
+	}
+
+	@Override
+	public void printAllStatesShort(PrintStream out) {
+	}
+
+	@Override
+	public void printAllStatesLong(PrintStream out) {
+	}
+}
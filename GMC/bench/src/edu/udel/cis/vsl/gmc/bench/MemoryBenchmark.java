@@ -0,0 +1,105 @@
+package edu.udel.cis.vsl.gmc.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.udel.cis.vsl.gmc.FalsePredicate;
+import edu.udel.cis.vsl.gmc.GMCConfiguration;
+import edu.udel.cis.vsl.gmc.seq.DfsSearcher;
+
+/**
+ * <p>
+ * Measures the memory used per visited state by the depth-first searcher, for
+ * each storage mode of the visited states. Each iteration runs one complete
+ * search; while the searcher is still reachable, the heap is collected and
+ * its used size compared to the size measured before the search.
+ * </p>
+ *
+ * <p>
+ * The result is reported in the counters {@code heapBytesPerState}, which
+ * includes everything the search retains on the heap, and
+ * {@code visitedBytesPerState}, the estimate of the searcher itself. The time
+ * of the benchmark includes the collections and is not meaningful.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+public class MemoryBenchmark {
+
+	/**
+	 * The memory counters of the last search.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class MemoryCounters {
+		public long heapBytesPerState;
+
+		public long visitedBytesPerState;
+	}
+
+	@Param({GraphModel.RANDOM, GraphModel.GRID})
+	public String model;
+
+	@Param({"1000000"})
+	public int size;
+
+	@Param({Configurations.DEFAULT, Configurations.HASH_COMPACTION,
+			Configurations.BITSTATE, Configurations.OFF_HEAP})
+	public String storage;
+
+	private GraphModel graph;
+
+	private GMCConfiguration config;
+
+	private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		graph = GraphModel.generate(model, size);
+		config = Configurations.configuration(storage);
+	}
+
+	/**
+	 * @return the number of bytes of the heap used after a full collection
+	 */
+	private long usedHeap() {
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+
+	@Benchmark
+	public DfsSearcher<Integer, Integer> dfs(MemoryCounters counters) {
+		long before = usedHeap();
+		DfsSearcher<Integer, Integer> searcher = new DfsSearcher<>(
+				new GraphEnabler(graph), new GraphStateManager(graph),
+				new FalsePredicate<>(), config);
+		long numStates;
+
+		searcher.search(0);
+		numStates = Math.max(1, searcher.numStatesSeen());
+		counters.heapBytesPerState = (usedHeap() - before) / numStates;
+		counters.visitedBytesPerState = searcher.metrics().visitedBytes()
+				/ numStates;
+		return searcher;
+	}
+}
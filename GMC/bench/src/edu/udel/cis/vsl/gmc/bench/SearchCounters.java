@@ -0,0 +1,26 @@
+package edu.udel.cis.vsl.gmc.bench;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The counts of a search reported by JMH next to the time of the benchmark,
+ * as rates: the number of states and transitions explored per second.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class SearchCounters {
+
+	public long states;
+
+	public long transitions;
+
+	@Setup(Level.Iteration)
+	public void reset() {
+		states = 0;
+		transitions = 0;
+	}
+}
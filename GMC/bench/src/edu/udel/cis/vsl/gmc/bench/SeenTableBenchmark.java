@@ -0,0 +1,71 @@
+package edu.udel.cis.vsl.gmc.bench;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.udel.cis.vsl.gmc.concurrent.ConcurrentNode;
+import edu.udel.cis.vsl.gmc.concurrent.ConcurrentNodeFactory;
+
+/**
+ * Measures the contention on the table of seen states shared by the threads
+ * of the concurrent searchers: the {@link ConcurrentNodeFactory} is compared
+ * with a synchronized hash map, the threads looking up or inserting random
+ * states of a fixed range, as they do when they explore a graph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(4)
+public class SeenTableBenchmark {
+
+	/**
+	 * The number of distinct states looked up.
+	 */
+	@Param({"100000", "1000000"})
+	public int numStates;
+
+	private ConcurrentNodeFactory<Integer, Integer> factory;
+
+	private Map<Integer, ConcurrentNode<Integer>> synchronizedMap;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		factory = new ConcurrentNodeFactory<>(
+				new GraphStateManager(GraphModel.grid(1)), numStates);
+		synchronizedMap = Collections
+				.synchronizedMap(new HashMap<>(numStates * 4 / 3 + 1));
+	}
+
+	@Benchmark
+	public ConcurrentNode<Integer> concurrentNodeFactory() {
+		return factory
+				.getNode(ThreadLocalRandom.current().nextInt(numStates));
+	}
+
+	@Benchmark
+	public ConcurrentNode<Integer> synchronizedMap() {
+		return synchronizedMap.computeIfAbsent(
+				ThreadLocalRandom.current().nextInt(numStates),
+				ConcurrentNode::new);
+	}
+}
@@ -0,0 +1,70 @@
+package edu.udel.cis.vsl.gmc.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.udel.cis.vsl.gmc.MisguidedExecutionException;
+import edu.udel.cis.vsl.gmc.RandomTransitionChooser;
+import edu.udel.cis.vsl.gmc.Simulator;
+import edu.udel.cis.vsl.gmc.Trace;
+
+/**
+ * Measures the time of a random execution of a fixed number of steps on each
+ * model by the quiet {@link Simulator}. The seed of the random choices is
+ * fixed, so every invocation plays the same execution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SimulatorBenchmark {
+
+	@Param({GraphModel.RANDOM, GraphModel.DIAMONDS, GraphModel.AMPLE})
+	public String model;
+
+	@Param({"100000"})
+	public int size;
+
+	@Param({"10000", "100000"})
+	public int length;
+
+	private GraphModel graph;
+
+	private GraphEnabler enabler;
+
+	private Simulator<Integer, Integer> simulator;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		graph = GraphModel.generate(model, size);
+		enabler = new GraphEnabler(graph);
+		simulator = new Simulator<>(new GraphStateManager(graph), System.out);
+		simulator.setQuiet(true);
+		simulator.setLength(length);
+	}
+
+	@Benchmark
+	public Trace<Integer, Integer>[] simulate(SearchCounters counters)
+			throws MisguidedExecutionException {
+		Trace<Integer, Integer>[] traces = simulator.play(0,
+				new RandomTransitionChooser<>(enabler, 42), false);
+
+		counters.states += length;
+		counters.transitions += length;
+		return traces;
+	}
+}
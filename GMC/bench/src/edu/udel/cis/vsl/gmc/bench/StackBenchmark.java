@@ -0,0 +1,96 @@
+package edu.udel.cis.vsl.gmc.bench;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.udel.cis.vsl.gmc.seq.DfsStack;
+import edu.udel.cis.vsl.gmc.seq.SequentialNode;
+import edu.udel.cis.vsl.gmc.seq.StackEntry;
+
+/**
+ * Compares the {@link DfsStack} of the depth-first searcher, which reuses its
+ * entries, with a stack allocating a new {@link StackEntry} for each push. Each
+ * operation pushes {@code depth} entries and pops them, exploring all the
+ * transitions of each entry before popping it, as the searcher does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class StackBenchmark {
+
+	@Param({"100", "10000"})
+	public int depth;
+
+	@Param({"4"})
+	public int numTransitions;
+
+	private SequentialNode<Integer>[] nodes;
+
+	private Collection<Integer> transitions;
+
+	private DfsStack<Integer, Integer> dfsStack;
+
+	private ArrayDeque<StackEntry<Integer, Integer>> deque;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Integer[] edges = new Integer[numTransitions];
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		SequentialNode<Integer>[] nodes = new SequentialNode[depth];
+
+		this.nodes = nodes;
+		for (int i = 0; i < depth; i++)
+			nodes[i] = new SequentialNode<>(i, i);
+		for (int i = 0; i < numTransitions; i++)
+			edges[i] = i;
+		transitions = Arrays.asList(edges);
+		dfsStack = new DfsStack<>();
+		deque = new ArrayDeque<>();
+	}
+
+	/**
+	 * Consumes the remaining transitions of an entry.
+	 */
+	private static void explore(StackEntry<Integer, Integer> entry,
+			Blackhole blackhole) {
+		while (entry.hasNext())
+			blackhole.consume(entry.next());
+	}
+
+	@Benchmark
+	public void dfsStack(Blackhole blackhole) {
+		for (int i = 0; i < depth; i++)
+			dfsStack.push(nodes[i], transitions, 0);
+		while (!dfsStack.isEmpty()) {
+			explore(dfsStack.peek(), blackhole);
+			dfsStack.pop();
+		}
+	}
+
+	@Benchmark
+	public void allocatingStack(Blackhole blackhole) {
+		for (int i = 0; i < depth; i++)
+			deque.push(new StackEntry<>(nodes[i], transitions, 0));
+		while (!deque.isEmpty())
+			explore(deque.pop(), blackhole);
+	}
+}
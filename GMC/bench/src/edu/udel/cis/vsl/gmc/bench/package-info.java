@@ -0,0 +1,13 @@
+/**
+ * <p>
+ * JMH benchmarks of the searchers of GMC. The searchers explore synthetic
+ * models, {@link edu.udel.cis.vsl.gmc.bench.GraphModel}s, generated from a
+ * size parameter: random graphs, grids, rings of diamonds and graphs with
+ * ample sets.
+ * </p>
+ * <p>
+ * The benchmarks are compiled and run by the {@code bench} target of the Ant
+ * build, which needs the JMH jars listed in {@code build_default.properties}.
+ * </p>
+ */
+package edu.udel.cis.vsl.gmc.bench;
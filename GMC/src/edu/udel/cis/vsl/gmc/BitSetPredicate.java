@@ -0,0 +1,155 @@
+package edu.udel.cis.vsl.gmc;
+
+import java.util.BitSet;
+
+/**
+ * <p>
+ * A predicate on int states which holds at the states of a set, or at the
+ * states outside of a set, stored as a {@link BitSet}. The states must be
+ * non-negative. Testing a state is a single bit lookup, and the predicate is
+ * immutable, so it may be shared by concurrent searchers.
+ * </p>
+ *
+ * <p>
+ * The predicates built by {@link #and(BitSetPredicate)},
+ * {@link #or(BitSetPredicate)} and {@link #not()} are compiled into a single
+ * bit set, so a combination of set predicates costs no more than one.
+ * </p>
+ */
+public class BitSetPredicate
+		implements
+			StatePredicateIF<Integer>,
+			IntStatePredicateIF {
+
+	/**
+	 * The estimated cost of a bit lookup, relative to a simple test.
+	 */
+	private static final double COST = 0.25;
+
+	/**
+	 * The set of states; never modified.
+	 */
+	private final BitSet states;
+
+	/**
+	 * If true, the predicate holds at the states which are not in
+	 * {@link #states}.
+	 */
+	private final boolean complemented;
+
+	/**
+	 * @param states
+	 *            the states at which the predicate holds; the set is copied
+	 */
+	public BitSetPredicate(BitSet states) {
+		this((BitSet) states.clone(), false);
+	}
+
+	/**
+	 * @param states
+	 *            the states at which the predicate holds; must be
+	 *            non-negative
+	 */
+	public BitSetPredicate(int... states) {
+		this(toBitSet(states), false);
+	}
+
+	private BitSetPredicate(BitSet states, boolean complemented) {
+		this.states = states;
+		this.complemented = complemented;
+	}
+
+	private static BitSet toBitSet(int[] states) {
+		BitSet result = new BitSet();
+
+		for (int state : states) {
+			if (state < 0)
+				throw new IllegalArgumentException(
+						"Negative state: " + state);
+			result.set(state);
+		}
+		return result;
+	}
+
+	@Override
+	public boolean holdsAt(int state) {
+		return state >= 0 && states.get(state) != complemented;
+	}
+
+	@Override
+	public boolean holdsAt(Integer state) {
+		return holdsAt(state.intValue());
+	}
+
+	/**
+	 * @return the set of states, or of the states at which the predicate does
+	 *         not hold if it is complemented; a copy
+	 */
+	public BitSet states() {
+		return (BitSet) states.clone();
+	}
+
+	/**
+	 * @return true iff the predicate holds at the states outside of
+	 *         {@link #states()}
+	 */
+	public boolean isComplemented() {
+		return complemented;
+	}
+
+	/**
+	 * @return the predicate which holds where this one does not
+	 */
+	public BitSetPredicate not() {
+		return new BitSetPredicate(states, !complemented);
+	}
+
+	/**
+	 * @return the predicate which holds where both this one and the other
+	 *         hold
+	 */
+	public BitSetPredicate and(BitSetPredicate other) {
+		BitSet result;
+
+		if (complemented && other.complemented) {
+			// not A and not B = not (A or B)
+			result = (BitSet) states.clone();
+			result.or(other.states);
+			return new BitSetPredicate(result, true);
+		}
+		if (complemented) {
+			result = (BitSet) other.states.clone();
+			result.andNot(states);
+		} else {
+			result = (BitSet) states.clone();
+			if (other.complemented)
+				result.andNot(other.states);
+			else
+				result.and(other.states);
+		}
+		return new BitSetPredicate(result, false);
+	}
+
+	/**
+	 * @return the predicate which holds where this one or the other holds
+	 */
+	public BitSetPredicate or(BitSetPredicate other) {
+		return not().and(other.not()).not();
+	}
+
+	@Override
+	public double cost() {
+		return COST;
+	}
+
+	@Override
+	public String explanation() {
+		return "The state is " + (complemented ? "not " : "") + "in the set "
+				+ states + ".";
+	}
+
+	@Override
+	public String toString() {
+		return (complemented ? "!" : "") + states;
+	}
+}
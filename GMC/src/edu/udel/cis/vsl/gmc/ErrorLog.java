@@ -42,6 +42,11 @@ import edu.udel.cis.vsl.gmc.seq.DfsSearcher;
  * save these in a file, so the user can later replay the trace associate to
  * each error discovered.
  * </p>
+ * <p>
+ * The methods reporting errors are synchronized, so several searches running
+ * on different threads can report to the same log, each one passing the
+ * {@link TraceWriterIF} which writes its own trace.
+ * </p>
  * 
  * @author Stephen F. Siegel, University of Delaware
  * 
@@ -217,7 +222,7 @@ public class ErrorLog {
 		return logFile;
 	}
 
-	public void save() throws FileNotFoundException {
+	public synchronized void save() throws FileNotFoundException {
 		PrintStream stream = new PrintStream(new FileOutputStream(logFile));
 
 		print(stream);
@@ -240,15 +245,15 @@ public class ErrorLog {
 		this.errorBound = value;
 	}
 
-	public int numErrors() {
+	public synchronized int numErrors() {
 		return numErrors;
 	}
 
-	public int numEntries() {
+	public synchronized int numEntries() {
 		return entryMap.size();
 	}
 
-	public void print(PrintStream out) {
+	public synchronized void print(PrintStream out) {
 		out.println("Session name....... " + sessionName);
 		out.println("Directory.......... " + directory);
 		out.println("Date............... " + date);
@@ -262,7 +267,8 @@ public class ErrorLog {
 		}
 	}
 
-	private void writeTraceFile(LogEntry entry) throws FileNotFoundException {
+	private void writeTraceFile(LogEntry entry, TraceWriterIF trace)
+			throws FileNotFoundException {
 		File file = entry.getTraceFile();
 		PrintStream out = new PrintStream(file);
 
@@ -281,7 +287,7 @@ public class ErrorLog {
 		out.println("== End Configuration ==");
 		out.println();
 		out.println("== Begin Trace ==");
-		searcher.writeStack(out);
+		trace.writeStack(out);
 		out.println("== End Trace ==");
 		out.flush();
 		out.close();
@@ -290,15 +296,17 @@ public class ErrorLog {
 	/**
 	 * 
 	 * @param entry
+	 * @param trace
+	 *            the trace leading to the error
 	 * @throws FileNotFoundException
 	 * @throws ExcessiveErrorException
 	 *             if the number of errors reported has exceeded the specified
 	 *             bound
 	 */
-	private void reportWithSearcher(LogEntry entry)
+	private void reportWithTrace(LogEntry entry, TraceWriterIF trace)
 			throws FileNotFoundException {
 		boolean isQuiet = entry.getConfiguration().isQuiet();
-		int length = searcher.stack().size();
+		int length = trace.traceLength();
 		LogEntry oldEntry = entryMap.get(entry);
 
 		if (minimalCounterexampleSize < 0
@@ -331,7 +339,7 @@ public class ErrorLog {
 				entryMap.remove(entry);
 				entryMap.put(entry, entry);
 				file.delete();
-				writeTraceFile(entry);
+				writeTraceFile(entry, trace);
 			} else {
 				if (!isQuiet) {
 					out.println("Length of new trace (" + length
@@ -350,10 +358,10 @@ public class ErrorLog {
 			entry.setId(id);
 			entry.setSize(length);
 			entryMap.put(entry, entry);
-			writeTraceFile(entry);
+			writeTraceFile(entry, trace);
 		}
 		numErrors++;
-		if (minimize) {
+		if (minimize && trace == searcher) {
 			searcher.restrictDepth();
 			if (!isQuiet) {
 				out.println("Restricting search depth to " + (length - 1));
@@ -370,7 +378,8 @@ public class ErrorLog {
 	 *             if the number of errors reported has exceeded the specified
 	 *             bound
 	 */
-	public void report(LogEntry entry) throws FileNotFoundException {
+	public synchronized void report(LogEntry entry)
+			throws FileNotFoundException {
 		if (searcher == null) {
 			if (!entry.getConfiguration().isQuiet()) {
 				out.println("Error " + numErrors + ":");
@@ -378,7 +387,29 @@ public class ErrorLog {
 			}
 			numErrors++;
 		} else
-			reportWithSearcher(entry);
+			reportWithTrace(entry, searcher);
+	}
+
+	/**
+	 * Reports an error found by a search other than the one of
+	 * {@link #searcher()}, e.g., by one of several searches running in
+	 * parallel. The trace of the error is written by the given
+	 * {@link TraceWriterIF}. If the minimize flag is set, the depth of the
+	 * search of {@link #searcher()} is not restricted.
+	 * 
+	 * @param entry
+	 *            the error
+	 * @param trace
+	 *            the trace leading to the error
+	 * @throws FileNotFoundException
+	 *             if the trace file cannot be created
+	 * @throws ExcessiveErrorException
+	 *             if the number of errors reported has exceeded the specified
+	 *             bound
+	 */
+	public synchronized void report(LogEntry entry, TraceWriterIF trace)
+			throws FileNotFoundException {
+		reportWithTrace(entry, trace);
 	}
 
 	/**
@@ -388,7 +419,7 @@ public class ErrorLog {
 	 * 
 	 * @return the minimal counterexample size
 	 */
-	public int getMinimalCounterexampleSize() {
+	public synchronized int getMinimalCounterexampleSize() {
 		return minimalCounterexampleSize;
 	}
 
@@ -96,6 +96,46 @@ public class GMCConfiguration implements Serializable {
 
 	private boolean saveStates = true;
 
+	/**
+	 * The number of bits of the bit array used to record the visited states in
+	 * bitstate (supertrace) mode, or 0 if bitstate mode is not used.
+	 */
+	private long bitstateSize = 0;
+
+	/**
+	 * The number of bits set for each visited state in bitstate mode.
+	 */
+	private int bitstateHashes = 3;
+
+	/**
+	 * Should the visited states be stored by their fingerprints only (hash
+	 * compaction)?
+	 */
+	private boolean hashCompaction = false;
+
+	/**
+	 * Should the visited states be serialized and stored outside of the Java
+	 * heap?
+	 */
+	private boolean offHeapStates = false;
+
+	/**
+	 * The name of the file from which the off-heap state storage is mapped, or
+	 * null to use direct buffers.
+	 */
+	private String offHeapFile = null;
+
+	/**
+	 * The name of the file to which the DFS periodically writes a checkpoint,
+	 * or null if checkpoints are not written.
+	 */
+	private String checkpointFile = null;
+
+	/**
+	 * The number of seconds between two checkpoints.
+	 */
+	private int checkpointPeriod = 600;
+
 	// Constructors...
 
 	/**
@@ -355,4 +395,114 @@ public class GMCConfiguration implements Serializable {
 	public boolean getSaveStates() {
 		return saveStates;
 	}
+
+	/**
+	 * Sets the number of bits of the bit array used in bitstate (supertrace)
+	 * mode. A positive value turns bitstate mode on: each visited state is
+	 * then recorded as {@link #getBitstateHashes()} bits in the bit array
+	 * instead of being saved. 0 turns it off.
+	 * 
+	 * @param bitstateSize
+	 *            the number of bits, or 0
+	 */
+	public void setBitstateSize(long bitstateSize) {
+		this.bitstateSize = bitstateSize;
+	}
+
+	public long getBitstateSize() {
+		return bitstateSize;
+	}
+
+	/**
+	 * Sets the number of bits set for each visited state in bitstate mode.
+	 * 
+	 * @param bitstateHashes
+	 *            a positive integer
+	 */
+	public void setBitstateHashes(int bitstateHashes) {
+		this.bitstateHashes = bitstateHashes;
+	}
+
+	public int getBitstateHashes() {
+		return bitstateHashes;
+	}
+
+	/**
+	 * Turns hash compaction on or off. When on, the full states are kept only
+	 * while they are on the DFS stack, and the visited states are recorded by
+	 * their 64-bit fingerprints. Ignored in bitstate mode.
+	 * 
+	 * @param hashCompaction
+	 *            true to turn hash compaction on
+	 */
+	public void setHashCompaction(boolean hashCompaction) {
+		this.hashCompaction = hashCompaction;
+	}
+
+	public boolean getHashCompaction() {
+		return hashCompaction;
+	}
+
+	/**
+	 * Turns the off-heap state storage on or off. When on, the visited states
+	 * are serialized by the serializer of the state manager and stored in
+	 * direct buffers, or in a memory-mapped file if
+	 * {@link #setOffHeapFile(String)} is used. Ignored in bitstate and hash
+	 * compaction modes.
+	 * 
+	 * @param offHeapStates
+	 *            true to turn the off-heap state storage on
+	 */
+	public void setOffHeapStates(boolean offHeapStates) {
+		this.offHeapStates = offHeapStates;
+	}
+
+	public boolean getOffHeapStates() {
+		return offHeapStates;
+	}
+
+	/**
+	 * Sets the file from which the off-heap state storage is mapped.
+	 * 
+	 * @param offHeapFile
+	 *            the name of the file, or null to use direct buffers
+	 */
+	public void setOffHeapFile(String offHeapFile) {
+		this.offHeapFile = offHeapFile;
+	}
+
+	public String getOffHeapFile() {
+		return offHeapFile;
+	}
+
+	/**
+	 * Sets the file to which the depth-first search periodically writes a
+	 * checkpoint of its stack, visited states and counters, from which it can
+	 * be resumed. Checkpoints require the state manager to provide a state
+	 * serializer.
+	 * 
+	 * @param checkpointFile
+	 *            the name of the file, or null to write no checkpoint
+	 */
+	public void setCheckpointFile(String checkpointFile) {
+		this.checkpointFile = checkpointFile;
+	}
+
+	public String getCheckpointFile() {
+		return checkpointFile;
+	}
+
+	/**
+	 * Sets the number of seconds between two checkpoints.
+	 * 
+	 * @param checkpointPeriod
+	 *            a positive number of seconds
+	 */
+	public void setCheckpointPeriod(int checkpointPeriod) {
+		this.checkpointPeriod = checkpointPeriod;
+	}
+
+	public int getCheckpointPeriod() {
+		return checkpointPeriod;
+	}
 }
@@ -11,7 +11,6 @@ import java.util.NoSuchElementException;
 
 import edu.udel.cis.vsl.gmc.seq.EnablerIF;
 import edu.udel.cis.vsl.gmc.util.Pair;
-import edu.udel.cis.vsl.gmc.util.Utils;
 
 /**
  * Transition Chooser which makes its choice using an explicit "guide". The
@@ -193,10 +192,8 @@ public class GuidedTransitionChooser<STATE, TRANSITION>
 		if (count == 0)
 			choices.pop();
 		if (index >= ampleSetSize) {
-			Collection<TRANSITION> fullSet = enabler.fullSet(state);
-			@SuppressWarnings("unchecked")
-			Collection<TRANSITION> ampleSetComplement = (Collection<TRANSITION>) Utils
-					.subtract(fullSet, ampleset);
+			Collection<TRANSITION> ampleSetComplement = enabler
+					.ampleSetComplement(state, ampleset);
 
 			index -= ampleSetSize;
 			try {
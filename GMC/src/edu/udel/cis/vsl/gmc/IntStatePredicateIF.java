@@ -0,0 +1,35 @@
+package edu.udel.cis.vsl.gmc;
+
+/**
+ * A state predicate on a transition system whose states are encoded as ints,
+ * the counterpart of {@link StatePredicateIF} for the int-specialized
+ * searchers, which does not box the states.
+ */
+public interface IntStatePredicateIF {
+
+	/**
+	 * Does this predicate hold at the given state?
+	 * 
+	 * @param state
+	 *            any state in the state-transition system
+	 * @return true iff this predicate holds at the state
+	 */
+	boolean holdsAt(int state);
+
+	/**
+	 * Returns a human-readable explanation of why the predicate does or does
+	 * not hold, after method {@link #holdsAt(int)} has been called.
+	 */
+	String explanation();
+
+	/**
+	 * Estimates the relative cost of {@link #holdsAt(int)} for this
+	 * predicate; a simple test costs about 1. The composite predicates of
+	 * {@link Predicates} evaluate the cheapest operands first.
+	 * 
+	 * @return a positive number
+	 */
+	default double cost() {
+		return 1.0;
+	}
+}
@@ -0,0 +1,394 @@
+package edu.udel.cis.vsl.gmc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * <p>
+ * Combinators of state predicates. The conjunction and disjunction of
+ * predicates evaluate their operands in increasing order of
+ * {@link StatePredicateIF#cost()}, and stop at the first operand which decides
+ * the result. The combinations of {@link BitSetPredicate}s are compiled into a
+ * single {@link BitSetPredicate}.
+ * </p>
+ *
+ * <p>
+ * The combined predicates have no side effects of their own, so they are safe
+ * to use in a concurrent search if their operands are.
+ * </p>
+ */
+public class Predicates {
+
+	/**
+	 * Orders predicates by increasing cost; the sort is stable, so predicates
+	 * of equal cost are evaluated in the order given.
+	 */
+	private static final Comparator<StatePredicateIF<?>> BY_COST = Comparator
+			.comparingDouble(StatePredicateIF::cost);
+
+	private static final Comparator<IntStatePredicateIF> INT_BY_COST = Comparator
+			.comparingDouble(IntStatePredicateIF::cost);
+
+	private static String join(List<?> operands, String operator) {
+		StringBuilder result = new StringBuilder("(");
+
+		for (int i = 0; i < operands.size(); i++) {
+			if (i > 0)
+				result.append(operator);
+			result.append(operands.get(i));
+		}
+		return result.append(")").toString();
+	}
+
+	/**
+	 * @return the conjunction of the bit set predicates, or null if one of the
+	 *         operands is not a {@link BitSetPredicate}
+	 */
+	private static BitSetPredicate compileAnd(List<?> operands) {
+		BitSetPredicate result = null;
+
+		for (Object operand : operands) {
+			if (!(operand instanceof BitSetPredicate))
+				return null;
+			result = result == null
+					? (BitSetPredicate) operand
+					: result.and((BitSetPredicate) operand);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the disjunction of the bit set predicates, or null if one of the
+	 *         operands is not a {@link BitSetPredicate}
+	 */
+	private static BitSetPredicate compileOr(List<?> operands) {
+		BitSetPredicate result = null;
+
+		for (Object operand : operands) {
+			if (!(operand instanceof BitSetPredicate))
+				return null;
+			result = result == null
+					? (BitSetPredicate) operand
+					: result.or((BitSetPredicate) operand);
+		}
+		return result;
+	}
+
+	private static void checkOperands(List<?> operands) {
+		if (operands.isEmpty())
+			throw new IllegalArgumentException("No operand");
+		for (Object operand : operands)
+			if (operand == null)
+				throw new NullPointerException("null operand");
+	}
+
+	/**
+	 * @param operands
+	 *            at least one predicate
+	 * @return the predicate which holds at a state iff all the operands do
+	 */
+	@SafeVarargs
+	@SuppressWarnings("unchecked")
+	public static <S> StatePredicateIF<S> and(
+			StatePredicateIF<S>... operands) {
+		// the array is not passed on, which makes the varargs safe:
+		List<StatePredicateIF<S>> list = new ArrayList<>(operands.length);
+		BitSetPredicate compiled;
+
+		for (StatePredicateIF<S> operand : operands)
+			list.add(operand);
+		checkOperands(list);
+		if (list.size() == 1)
+			return list.get(0);
+		compiled = compileAnd(list);
+		if (compiled != null)
+			return (StatePredicateIF<S>) compiled;
+		return new And<S>(list);
+	}
+
+	/**
+	 * @param operands
+	 *            at least one predicate
+	 * @return the predicate which holds at a state iff one of the operands
+	 *         does
+	 */
+	@SafeVarargs
+	@SuppressWarnings("unchecked")
+	public static <S> StatePredicateIF<S> or(
+			StatePredicateIF<S>... operands) {
+		// the array is not passed on, which makes the varargs safe:
+		List<StatePredicateIF<S>> list = new ArrayList<>(operands.length);
+		BitSetPredicate compiled;
+
+		for (StatePredicateIF<S> operand : operands)
+			list.add(operand);
+		checkOperands(list);
+		if (list.size() == 1)
+			return list.get(0);
+		compiled = compileOr(list);
+		if (compiled != null)
+			return (StatePredicateIF<S>) compiled;
+		return new Or<S>(list);
+	}
+
+	/**
+	 * @return the predicate which holds at a state iff the operand does not
+	 */
+	@SuppressWarnings("unchecked")
+	public static <S> StatePredicateIF<S> not(StatePredicateIF<S> operand) {
+		if (operand == null)
+			throw new NullPointerException("null operand");
+		if (operand instanceof BitSetPredicate)
+			return (StatePredicateIF<S>) ((BitSetPredicate) operand).not();
+		if (operand instanceof Not)
+			return ((Not<S>) operand).operand;
+		return new Not<S>(operand);
+	}
+
+	/**
+	 * @param operands
+	 *            at least one predicate
+	 * @return the predicate which holds at a state iff all the operands do
+	 */
+	public static IntStatePredicateIF andInt(
+			IntStatePredicateIF... operands) {
+		List<IntStatePredicateIF> list = Arrays.asList(operands);
+		BitSetPredicate compiled;
+
+		checkOperands(list);
+		if (list.size() == 1)
+			return list.get(0);
+		compiled = compileAnd(list);
+		if (compiled != null)
+			return compiled;
+		return new IntAnd(list);
+	}
+
+	/**
+	 * @param operands
+	 *            at least one predicate
+	 * @return the predicate which holds at a state iff one of the operands
+	 *         does
+	 */
+	public static IntStatePredicateIF orInt(IntStatePredicateIF... operands) {
+		List<IntStatePredicateIF> list = Arrays.asList(operands);
+		BitSetPredicate compiled;
+
+		checkOperands(list);
+		if (list.size() == 1)
+			return list.get(0);
+		compiled = compileOr(list);
+		if (compiled != null)
+			return compiled;
+		return new IntOr(list);
+	}
+
+	/**
+	 * @return the predicate which holds at a state iff the operand does not
+	 */
+	public static IntStatePredicateIF notInt(IntStatePredicateIF operand) {
+		if (operand == null)
+			throw new NullPointerException("null operand");
+		if (operand instanceof BitSetPredicate)
+			return ((BitSetPredicate) operand).not();
+		if (operand instanceof IntNot)
+			return ((IntNot) operand).operand;
+		return new IntNot(operand);
+	}
+
+	private static class And<S> implements StatePredicateIF<S> {
+
+		/**
+		 * The operands, by increasing cost.
+		 */
+		final List<StatePredicateIF<S>> operands;
+
+		final double cost;
+
+		And(List<StatePredicateIF<S>> operands) {
+			double cost = 0;
+
+			this.operands = new ArrayList<>(operands);
+			this.operands.sort(BY_COST);
+			for (StatePredicateIF<S> operand : this.operands)
+				cost += operand.cost();
+			this.cost = cost;
+		}
+
+		@Override
+		public boolean holdsAt(S state) {
+			for (StatePredicateIF<S> operand : operands)
+				if (!operand.holdsAt(state))
+					return false;
+			return true;
+		}
+
+		@Override
+		public double cost() {
+			return cost;
+		}
+
+		@Override
+		public String explanation() {
+			return "All of " + this + " hold.";
+		}
+
+		@Override
+		public String toString() {
+			return join(operands, " && ");
+		}
+	}
+
+	private static class Or<S> extends And<S> {
+
+		Or(List<StatePredicateIF<S>> operands) {
+			super(operands);
+		}
+
+		@Override
+		public boolean holdsAt(S state) {
+			for (StatePredicateIF<S> operand : operands)
+				if (operand.holdsAt(state))
+					return true;
+			return false;
+		}
+
+		@Override
+		public String explanation() {
+			return "One of " + this + " holds.";
+		}
+
+		@Override
+		public String toString() {
+			return join(operands, " || ");
+		}
+	}
+
+	private static class Not<S> implements StatePredicateIF<S> {
+
+		final StatePredicateIF<S> operand;
+
+		Not(StatePredicateIF<S> operand) {
+			this.operand = operand;
+		}
+
+		@Override
+		public boolean holdsAt(S state) {
+			return !operand.holdsAt(state);
+		}
+
+		@Override
+		public double cost() {
+			return operand.cost();
+		}
+
+		@Override
+		public String explanation() {
+			return operand + " does not hold.";
+		}
+
+		@Override
+		public String toString() {
+			return "!" + operand;
+		}
+	}
+
+	private static class IntAnd implements IntStatePredicateIF {
+
+		/**
+		 * The operands, by increasing cost.
+		 */
+		final List<IntStatePredicateIF> operands;
+
+		final double cost;
+
+		IntAnd(List<IntStatePredicateIF> operands) {
+			double cost = 0;
+
+			this.operands = new ArrayList<>(operands);
+			this.operands.sort(INT_BY_COST);
+			for (IntStatePredicateIF operand : this.operands)
+				cost += operand.cost();
+			this.cost = cost;
+		}
+
+		@Override
+		public boolean holdsAt(int state) {
+			for (IntStatePredicateIF operand : operands)
+				if (!operand.holdsAt(state))
+					return false;
+			return true;
+		}
+
+		@Override
+		public double cost() {
+			return cost;
+		}
+
+		@Override
+		public String explanation() {
+			return "All of " + this + " hold.";
+		}
+
+		@Override
+		public String toString() {
+			return join(operands, " && ");
+		}
+	}
+
+	private static class IntOr extends IntAnd {
+
+		IntOr(List<IntStatePredicateIF> operands) {
+			super(operands);
+		}
+
+		@Override
+		public boolean holdsAt(int state) {
+			for (IntStatePredicateIF operand : operands)
+				if (operand.holdsAt(state))
+					return true;
+			return false;
+		}
+
+		@Override
+		public String explanation() {
+			return "One of " + this + " holds.";
+		}
+
+		@Override
+		public String toString() {
+			return join(operands, " || ");
+		}
+	}
+
+	private static class IntNot implements IntStatePredicateIF {
+
+		final IntStatePredicateIF operand;
+
+		IntNot(IntStatePredicateIF operand) {
+			this.operand = operand;
+		}
+
+		@Override
+		public boolean holdsAt(int state) {
+			return !operand.holdsAt(state);
+		}
+
+		@Override
+		public double cost() {
+			return operand.cost();
+		}
+
+		@Override
+		public String explanation() {
+			return operand + " does not hold.";
+		}
+
+		@Override
+		public String toString() {
+			return "!" + operand;
+		}
+	}
+}
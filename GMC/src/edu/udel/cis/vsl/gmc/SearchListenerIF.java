@@ -0,0 +1,28 @@
+package edu.udel.cis.vsl.gmc;
+
+/**
+ * A SearchListenerIF is notified of the progress of a search by a
+ * {@link SearchMonitor}. The methods are called on a thread of the search, one
+ * call at a time, so they should return quickly, e.g., by handing the metrics
+ * over to another thread.
+ */
+public interface SearchListenerIF {
+
+	/**
+	 * Called at each sampling interval while the search is running.
+	 *
+	 * @param metrics
+	 *            the metrics of the search at this time
+	 */
+	void sampled(SearchMetrics metrics);
+
+	/**
+	 * Called when the search returns, either because it is complete, or
+	 * because it found a violation or was stopped. Does nothing by default.
+	 *
+	 * @param metrics
+	 *            the final metrics of the search
+	 */
+	default void finished(SearchMetrics metrics) {
+	}
+}
@@ -0,0 +1,204 @@
+package edu.udel.cis.vsl.gmc;
+
+/**
+ * <p>
+ * A sample of the progress of a search, taken by the searcher and passed to
+ * the {@link SearchListenerIF}s of its {@link SearchMonitor}. All the counts
+ * are since the beginning of the search. The throughputs are given as
+ * averages over the whole search, or over the time since an earlier sample.
+ * </p>
+ *
+ * <p>
+ * The visited-set size is the number of states recorded as seen by the
+ * searcher, and its memory estimate counts the tables of the searcher, but not
+ * the states themselves, whose size only the model knows. A count which the
+ * searcher does not keep is -1.
+ * </p>
+ */
+public class SearchMetrics {
+
+	/**
+	 * The number of nanoseconds since the beginning of the search.
+	 */
+	private final long elapsedNanos;
+
+	private final long numStatesSeen;
+
+	private final long numTransitions;
+
+	private final long numStatesMatched;
+
+	/**
+	 * The current depth of the search, i.e., the size of the stack, or the
+	 * number of steps for a simulation.
+	 */
+	private final long stackDepth;
+
+	private final long maxStackDepth;
+
+	/**
+	 * The number of states recorded in the visited set.
+	 */
+	private final long numVisitedStates;
+
+	/**
+	 * The estimated number of bytes of the visited set.
+	 */
+	private final long visitedBytes;
+
+	/**
+	 * The number of states whose ample set was not enough, so that all their
+	 * enabled transitions were explored.
+	 */
+	private final long numFullExpansions;
+
+	/**
+	 * Creates a sample; see the getters of this class for the meaning of the
+	 * parameters.
+	 */
+	public SearchMetrics(long elapsedNanos, long numStatesSeen,
+			long numTransitions, long numStatesMatched, long stackDepth,
+			long maxStackDepth, long numVisitedStates, long visitedBytes,
+			long numFullExpansions) {
+		this.elapsedNanos = elapsedNanos;
+		this.numStatesSeen = numStatesSeen;
+		this.numTransitions = numTransitions;
+		this.numStatesMatched = numStatesMatched;
+		this.stackDepth = stackDepth;
+		this.maxStackDepth = maxStackDepth;
+		this.numVisitedStates = numVisitedStates;
+		this.visitedBytes = visitedBytes;
+		this.numFullExpansions = numFullExpansions;
+	}
+
+	/**
+	 * @return the number of nanoseconds since the beginning of the search
+	 */
+	public long elapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * @return the number of new states found
+	 */
+	public long numStatesSeen() {
+		return numStatesSeen;
+	}
+
+	/**
+	 * @return the number of transitions executed
+	 */
+	public long numTransitions() {
+		return numTransitions;
+	}
+
+	/**
+	 * @return the number of transitions which led to a state seen before
+	 */
+	public long numStatesMatched() {
+		return numStatesMatched;
+	}
+
+	/**
+	 * @return the current depth of the search: the size of the stack, or the
+	 *         number of steps of a simulation
+	 */
+	public long stackDepth() {
+		return stackDepth;
+	}
+
+	/**
+	 * @return the greatest depth reached so far
+	 */
+	public long maxStackDepth() {
+		return maxStackDepth;
+	}
+
+	/**
+	 * @return the number of states recorded in the visited set, or -1
+	 */
+	public long numVisitedStates() {
+		return numVisitedStates;
+	}
+
+	/**
+	 * @return the estimated number of bytes of the visited set, not counting
+	 *         the states themselves, or -1
+	 */
+	public long visitedBytes() {
+		return visitedBytes;
+	}
+
+	/**
+	 * @return the number of states which were fully expanded because their
+	 *         ample set did not satisfy the stack proviso, or -1
+	 */
+	public long numFullExpansions() {
+		return numFullExpansions;
+	}
+
+	/**
+	 * Computes the number of events per second between two times.
+	 */
+	private static double rate(long count, long nanos) {
+		return nanos <= 0 ? 0.0 : count * 1e9 / nanos;
+	}
+
+	/**
+	 * @return the average number of new states per second since the
+	 *         beginning of the search
+	 */
+	public double statesPerSecond() {
+		return rate(numStatesSeen, elapsedNanos);
+	}
+
+	/**
+	 * @return the average number of transitions per second since the
+	 *         beginning of the search
+	 */
+	public double transitionsPerSecond() {
+		return rate(numTransitions, elapsedNanos);
+	}
+
+	/**
+	 * @param previous
+	 *            an earlier sample of the same search
+	 * @return the number of new states per second since the earlier sample
+	 */
+	public double statesPerSecond(SearchMetrics previous) {
+		return rate(numStatesSeen - previous.numStatesSeen,
+				elapsedNanos - previous.elapsedNanos);
+	}
+
+	/**
+	 * @param previous
+	 *            an earlier sample of the same search
+	 * @return the number of transitions per second since the earlier sample
+	 */
+	public double transitionsPerSecond(SearchMetrics previous) {
+		return rate(numTransitions - previous.numTransitions,
+				elapsedNanos - previous.elapsedNanos);
+	}
+
+	/**
+	 * @return the fraction of the transitions executed which led to a state
+	 *         seen before
+	 */
+	public double matchRatio() {
+		return numTransitions == 0
+				? 0.0
+				: (double) numStatesMatched / numTransitions;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"time=%.1fs states=%d (%.0f/s) transitions=%d (%.0f/s) "
+						+ "matched=%.3f depth=%d max=%d visited=%d bytes=%d "
+						+ "fullExpansions=%d",
+				elapsedNanos / 1e9, numStatesSeen, statesPerSecond(),
+				numTransitions, transitionsPerSecond(), matchRatio(),
+				stackDepth, maxStackDepth, numVisitedStates, visitedBytes,
+				numFullExpansions);
+	}
+}
@@ -0,0 +1,155 @@
+package edu.udel.cis.vsl.gmc;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * A SearchMonitor samples the {@link SearchMetrics} of a search at a fixed
+ * interval and passes them to its {@link SearchListenerIF}s.
+ * </p>
+ *
+ * <p>
+ * The monitor does not read the counters of the search itself, since they are
+ * updated without synchronization. Instead, a timer thread increments the
+ * {@link #epoch()} of the monitor at each interval, and the searcher, which
+ * reads the epoch once per state, builds the metrics from its own counters
+ * when the epoch has changed and gives them to {@link #sample(SearchMetrics)}.
+ * Reading the epoch is the only cost of the monitor in the search loop.
+ * </p>
+ */
+public class SearchMonitor {
+
+	/**
+	 * The number of milliseconds between two samples.
+	 */
+	private final long interval;
+
+	private final List<SearchListenerIF> listeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Incremented by the timer at each interval.
+	 */
+	private volatile int epoch = 0;
+
+	/**
+	 * The value of {@link System#nanoTime()} when the monitor was first
+	 * started, or -1.
+	 */
+	private volatile long startNanos = -1;
+
+	/**
+	 * The timer incrementing {@link #epoch}, or null if the monitor is not
+	 * running.
+	 */
+	private ScheduledExecutorService timer = null;
+
+	/**
+	 * The last metrics sampled, or null.
+	 */
+	private volatile SearchMetrics lastSample = null;
+
+	/**
+	 * @param interval
+	 *            the number of milliseconds between two samples; must be
+	 *            positive
+	 */
+	public SearchMonitor(long interval) {
+		if (interval <= 0)
+			throw new IllegalArgumentException(
+					"Sampling interval is not positive: " + interval);
+		this.interval = interval;
+	}
+
+	public long getInterval() {
+		return interval;
+	}
+
+	public void addListener(SearchListenerIF listener) {
+		if (listener == null)
+			throw new NullPointerException("null listener");
+		listeners.add(listener);
+	}
+
+	public void removeListener(SearchListenerIF listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Starts the timer, if it is not running. Called by the searcher when the
+	 * search starts or resumes. The elapsed time is counted from the first
+	 * start.
+	 */
+	public synchronized void start() {
+		if (startNanos < 0)
+			startNanos = System.nanoTime();
+		if (timer == null) {
+			timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "search monitor");
+
+				thread.setDaemon(true);
+				return thread;
+			});
+			timer.scheduleAtFixedRate(() -> epoch++, interval, interval,
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * @return the number of intervals elapsed since the monitor was started;
+	 *         the searcher samples its metrics when this changes
+	 */
+	public int epoch() {
+		return epoch;
+	}
+
+	/**
+	 * @return the number of nanoseconds since the monitor was first started,
+	 *         or 0 if it has not been started
+	 */
+	public long elapsedNanos() {
+		long start = startNanos;
+
+		return start < 0 ? 0 : System.nanoTime() - start;
+	}
+
+	/**
+	 * Passes the metrics of the search to the listeners. Called by the
+	 * searcher when the epoch has changed.
+	 *
+	 * @param metrics
+	 *            the current metrics of the search
+	 */
+	public synchronized void sample(SearchMetrics metrics) {
+		lastSample = metrics;
+		for (SearchListenerIF listener : listeners)
+			listener.sampled(metrics);
+	}
+
+	/**
+	 * Stops the timer and passes the final metrics of the search to the
+	 * listeners. Called by the searcher when the search returns.
+	 *
+	 * @param metrics
+	 *            the final metrics of the search
+	 */
+	public synchronized void finish(SearchMetrics metrics) {
+		if (timer != null) {
+			timer.shutdownNow();
+			timer = null;
+		}
+		lastSample = metrics;
+		for (SearchListenerIF listener : listeners)
+			listener.finished(metrics);
+	}
+
+	/**
+	 * @return the last metrics passed to the listeners, or null
+	 */
+	public SearchMetrics lastSample() {
+		return lastSample;
+	}
+}
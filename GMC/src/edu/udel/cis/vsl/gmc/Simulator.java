@@ -65,6 +65,11 @@ public class Simulator<STATE, TRANSITION> {
 	 */
 	private int length = -1;
 
+	/**
+	 * The monitor sampling the metrics of the executions, or null.
+	 */
+	private SearchMonitor monitor = null;
+
 	// Constructors...
 
 	/**
@@ -155,6 +160,32 @@ public class Simulator<STATE, TRANSITION> {
 		return log;
 	}
 
+	/**
+	 * Sets the monitor sampling the metrics of the executions while they are
+	 * played. The depth is the number of steps, and the states seen and
+	 * transitions are counted over all the executions; there is no visited
+	 * set.
+	 * 
+	 * @param monitor
+	 *            the monitor, or null
+	 */
+	public void setMonitor(SearchMonitor monitor) {
+		this.monitor = monitor;
+	}
+
+	public SearchMonitor getMonitor() {
+		return monitor;
+	}
+
+	/**
+	 * Builds the metrics of the executions being played.
+	 */
+	private SearchMetrics metrics(int step, long numStates,
+			long numTransitions) {
+		return new SearchMetrics(monitor.elapsedNanos(), numStates,
+				numTransitions, 0, step, step, -1, -1, -1);
+	}
+
 	public boolean isQuiet() {
 		return quiet;
 	}
@@ -211,6 +242,8 @@ public class Simulator<STATE, TRANSITION> {
 		TRANSITION transition;
 		TraceStepIF<STATE> traceStep;
 		Trace<TRANSITION, STATE>[] traces = new Trace[numExecutions];
+		long numStates = numExecutions, numTransitions = 0;
+		int monitorEpoch = 0;
 
 		for (int i = 0; i < numExecutions; i++) {
 			String name = names[i];
@@ -226,10 +259,19 @@ public class Simulator<STATE, TRANSITION> {
 			out.println("\nInitial state:");
 			printStates(step, 1, executionNames, print, states);
 		}
+		if (monitor != null) {
+			monitor.start();
+			monitorEpoch = monitor.epoch();
+		}
 		while (true) {
 			boolean hasNewTransition = false;
 			STATE[] newStates = (STATE[]) new Object[numExecutions];
 
+			if (monitor != null && monitor.epoch() != monitorEpoch) {
+				monitorEpoch = monitor.epoch();
+				monitor.sample(metrics(step, numStates, numTransitions));
+			}
+
 			if (predicate != null) {
 				for (int i = 0; i < numExecutions; i++) {
 					STATE state = traces[i].lastState();
@@ -267,9 +309,13 @@ public class Simulator<STATE, TRANSITION> {
 				traceStep = manager.nextState(current, transition);
 				manager.normalize(traceStep);
 				traces[i].addTraceStep(traceStep);
-				manager.printTraceStep(current, traceStep);
 				newStates[i] = traceStep.getFinalState();
-				manager.printTraceStepFinalState(newStates[i], -1);
+				if (!quiet) {
+					manager.printTraceStep(current, traceStep);
+					manager.printTraceStepFinalState(newStates[i], -1);
+				}
+				numStates++;
+				numTransitions++;
 			}
 			if (!hasNewTransition)
 				break;
@@ -282,6 +328,8 @@ public class Simulator<STATE, TRANSITION> {
 		if (!quiet) {
 			out.println("Trace ends after " + step + " trace steps.");
 		}
+		if (monitor != null)
+			monitor.finish(metrics(step, numStates, numTransitions));
 		return traces;
 	}
 
@@ -5,6 +5,11 @@ package edu.udel.cis.vsl.gmc;
  * at any state in the transition system. It is typically used to encode a "bad"
  * property, such as deadlock.
  * 
+ * <p>
+ * A predicate given to a concurrent searcher is evaluated by several threads
+ * at once, so its {@link #holdsAt(Object)} must not have side effects.
+ * </p>
+ * 
  * @author Stephen F. Siegel
  * 
  * @param <S>
@@ -28,4 +33,15 @@ public interface StatePredicateIF<S> {
 	 */
 	String explanation();
 
+	/**
+	 * Estimates the relative cost of {@link #holdsAt(Object)} for this
+	 * predicate; a simple test costs about 1. The composite predicates of
+	 * {@link Predicates} evaluate the cheapest operands first.
+	 * 
+	 * @return a positive number
+	 */
+	default double cost() {
+		return 1.0;
+	}
+
 }
@@ -0,0 +1,30 @@
+package edu.udel.cis.vsl.gmc;
+
+import java.io.PrintStream;
+
+/**
+ * A TraceWriterIF is something which holds a trace from an initial state, like
+ * the stack of a depth-first search, and can write it in the condensed form
+ * read by {@link GuidedTransitionChooser}: a line <code>LENGTH = n</code>
+ * followed by lines <code>count:index</code>, where <code>index</code> is the
+ * index of the transition taken at a state, among the transitions of its ample
+ * set followed by those of its ample set complement.
+ * 
+ * @see ErrorLog#report(LogEntry, TraceWriterIF)
+ */
+public interface TraceWriterIF {
+
+	/**
+	 * @return the number of states on the trace
+	 */
+	int traceLength();
+
+	/**
+	 * Writes the trace in a condensed form that can be used to replay the
+	 * trace later.
+	 * 
+	 * @param stream
+	 *            stream to which to write the trace
+	 */
+	void writeStack(PrintStream stream);
+}
@@ -1,15 +1,28 @@
 package edu.udel.cis.vsl.gmc.concurrent;
 
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Enumeration;
-import java.util.LinkedList;
-import java.util.Stack;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
+import edu.udel.cis.vsl.gmc.ErrorLog;
+import edu.udel.cis.vsl.gmc.LogEntry;
+import edu.udel.cis.vsl.gmc.SearchMonitor;
 import edu.udel.cis.vsl.gmc.StatePredicateIF;
+import edu.udel.cis.vsl.gmc.TraceWriterIF;
 import edu.udel.cis.vsl.gmc.seq.EnablerIF;
 import edu.udel.cis.vsl.gmc.util.Utils;
 
@@ -27,24 +40,53 @@ import edu.udel.cis.vsl.gmc.util.Utils;
  * each of them starts a depth-first search with its own stack. And try to make
  * them search different parts of the state space.
  * </p>
+ * <p>
+ * The work is balanced by stack splitting: each depth-first search is a
+ * {@link CountedCompleter} task of a {@link ForkJoinPool} with one worker per
+ * thread. When a task notices that workers are idle, it moves the unexplored
+ * transitions of the bottom-most entry of its stack which has some into a new
+ * task, which is stolen by an idle worker. The new task starts from the path
+ * leading to that entry, so it checks the stack proviso and finds cycles
+ * along the whole path. No task ever waits for another: a state whose
+ * transitions have been split is marked fully explored by the last task to
+ * finish its part, and the search is over when all the tasks have completed.
+ * </p>
+ * <p>
+ * Only the parts of the ample set of a state which can no longer be fully
+ * expanded are split off, i.e., the ample sets of the states having a
+ * successor not on the stack, and the ample set complements, so the stack
+ * proviso is decided by a single task.
+ * </p>
+ * <p>
+ * The search runs in the background with {@link #searchAsync(Object)}, whose
+ * future is completed when the last task completes. As soon as a task finds a
+ * violation, exceeds a budget (see {@link #setTimeLimit(long)} and
+ * {@link #setStateLimit(long)}) or is stopped (see {@link #stop()}), the
+ * reason is recorded, and every task returns at its next transition.
+ * </p>
+ * <p>
+ * Each task knows the indexes of the transitions of the path leading to the
+ * bottom of its stack, so the task finding a violation records the whole
+ * counterexample from the initial state. It is written in the format of
+ * {@link edu.udel.cis.vsl.gmc.seq.DfsSearcher#writeStack(PrintStream)}, and
+ * reported to the log set by {@link #setLog(ErrorLog, Function)} when the
+ * search is over.
+ * </p>
  * 
  * @author Yihao Yan (yihaoyan)
  *
  * @param <STATE>
  * @param <TRANSITION>
  */
-public class ConcurrentDfsSearcher<STATE, TRANSITION> {
-
-	static ConcurrentLinkedQueue<Integer> threadIds = new ConcurrentLinkedQueue<Integer>();
+public class ConcurrentDfsSearcher<STATE, TRANSITION>
+		implements
+			TraceWriterIF {
 
-	static {
-		int bound = 2 * Runtime.getRuntime().availableProcessors();
-		for (int i = 0; i < bound; i++) {
-			threadIds.add(i);
-		}
-	}
-
-	// private AtomicInteger counter = new AtomicInteger(0);
+	/**
+	 * The number of transitions a task executes between two checks for idle
+	 * workers.
+	 */
+	private static final int SPLIT_INTERVAL = 64;
 
 	/**
 	 * The # of threads which can be used in the concurrent searcher.
@@ -52,18 +94,71 @@ public class ConcurrentDfsSearcher<STATE, TRANSITION> {
 	private int N;
 
 	/**
-	 * True iff a state in which the predicate holds is found.
+	 * The numbers of the workers which are not running a task. A task takes a
+	 * number while it runs, with which it marks the states of its stack.
+	 */
+	private ConcurrentLinkedQueue<Integer> workerIds = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Why the search is stopping, or null while it runs until all the
+	 * reachable states are explored. It is set once, by the first task which
+	 * stops the search, and read by all the tasks at each transition.
+	 */
+	private AtomicReference<SearchResult> stopReason = new AtomicReference<>();
+
+	/**
+	 * The first exception thrown by a task, or null.
+	 */
+	private AtomicReference<RuntimeException> exception = new AtomicReference<>();
+
+	/**
+	 * The maximum number of milliseconds of the search, or 0 if it is not
+	 * bounded.
+	 */
+	private long timeLimit = 0;
+
+	/**
+	 * The value of {@link System#nanoTime()} after which the search is
+	 * truncated, if it has a time limit.
+	 */
+	private long deadline;
+
+	/**
+	 * The maximum number of states seen by the search, or 0 if it is not
+	 * bounded.
+	 */
+	private long stateLimit = 0;
+
+	/**
+	 * The indexes of the transitions of the counterexample found by the last
+	 * search, the last one being -1, or null if no violation has been found.
+	 */
+	private volatile int[] counterexample = null;
+
+	/**
+	 * The last state of {@link #counterexample}, or null.
 	 */
-	private boolean predicateHold;
+	private volatile STATE violatingState = null;
 
-	private boolean violationFound = false;
+	/**
+	 * The log to which the violation is reported, or null.
+	 */
+	private ErrorLog log = null;
 
-	private RuntimeException exception = null;
+	/**
+	 * Makes the log entry of a violating state.
+	 */
+	private Function<? super STATE, ? extends LogEntry> entries = null;
 
 	/**
-	 * Thread pool to manage the threads.
+	 * The future of the running search, or null.
 	 */
-	private MyThreadPool pool;
+	private CompletableFuture<SearchResult> future = null;
+
+	/**
+	 * The pool running the tasks of the search, with N workers.
+	 */
+	private volatile ForkJoinPool pool;
 
 	/**
 	 * A ConcurrentEnablerIF used to compute ampleSet, ampleSetComplement and
@@ -90,30 +185,42 @@ public class ConcurrentDfsSearcher<STATE, TRANSITION> {
 	private boolean reportCycleAsViolation = false;
 
 	/**
-	 * If this searcher stopped because a cycle was found, this flag will be set
-	 * to true, else it is false.
+	 * The index of the counter of the transitions executed.
 	 */
-	private boolean cycleFound = false;
+	private static final int TRANSITIONS = 0;
 
 	/**
-	 * The number of transitions executed since the beginning of the search.
+	 * The index of the counter of the transitions which led to a state seen
+	 * before.
 	 */
-	private int totalNumTransitions = 0;
+	private static final int STATES_MATCHED = 1;
 
 	/**
-	 * The number of states encountered which are recognized as having already
-	 * been seen earlier in the search.
+	 * The index of the counter of the states which have been fully expanded
+	 * because their ample set did not satisfy the stack proviso.
 	 */
-	private int totalNumStatesMatched = 0;
+	private static final int FULL_EXPANSIONS = 2;
 
-	private Object totalNumStatesMatchedLock = new Object();
+	/**
+	 * The counts of the search, with a stripe per worker.
+	 */
+	private StripedCounters counters;
 
-	private Object totalNumTransitionsLock = new Object();
+	/**
+	 * Where to print debugging output, or null if it is not printed.
+	 */
+	private PrintStream debugOut = null;
 
 	/**
-	 * The number of states seen in this search.
+	 * The monitor sampling the metrics of this search, or null.
 	 */
-	private int totalNumStatesSeen = 1;
+	private SearchMonitor monitor = null;
+
+	/**
+	 * The epoch of {@link #monitor} when the metrics were last sampled. The
+	 * task which changes it samples the metrics.
+	 */
+	private AtomicInteger sampledEpoch = new AtomicInteger();
 
 	/**
 	 * A name to give this searcher, used only for printing out messages about
@@ -126,8 +233,11 @@ public class ConcurrentDfsSearcher<STATE, TRANSITION> {
 	 */
 	private boolean minimize = false;
 
-	private ConcurrentNodeFactory<STATE, TRANSITION> concurrentNodeFactory = new ConcurrentNodeFactory<>(
-			manager);
+	/**
+	 * The seen-state table shared by all the tasks of the current or last
+	 * search; each search starts with a new one.
+	 */
+	private volatile ConcurrentNodeFactory<STATE, TRANSITION> concurrentNodeFactory;
 
 	public ConcurrentDfsSearcher(EnablerIF<STATE, TRANSITION> enabler,
 			ConcurrentStateManagerIF<STATE, TRANSITION> manager,
@@ -142,9 +252,14 @@ public class ConcurrentDfsSearcher<STATE, TRANSITION> {
 		this.enabler = enabler;
 		this.manager = manager;
 		this.predicate = predicate;
+		if (N <= 0)
+			throw new IllegalArgumentException(
+					"Number of threads is not positive: " + N);
+		this.concurrentNodeFactory = new ConcurrentNodeFactory<>(manager);
 		this.N = N;
-		this.predicateHold = false;
-		this.pool = new MyThreadPool(N);
+		this.counters = new StripedCounters(N, 3);
+		for (int i = 0; i < N; i++)
+			workerIds.add(i);
 	}
 
 	public StatePredicateIF<STATE> predicate() {
@@ -181,7 +296,138 @@ public class ConcurrentDfsSearcher<STATE, TRANSITION> {
 	}
 
 	public boolean cycleFound() {
-		return cycleFound;
+		return stopReason.get() == SearchResult.CYCLE;
+	}
+
+	/**
+	 * Bounds the duration of the search; when it is exceeded, the search ends
+	 * as {@link SearchResult#TRUNCATED}.
+	 * 
+	 * @param millis
+	 *            the maximum number of milliseconds, or 0 for no limit
+	 */
+	public void setTimeLimit(long millis) {
+		if (millis < 0)
+			throw new IllegalArgumentException("Negative time limit: " + millis);
+		this.timeLimit = millis;
+	}
+
+	public long getTimeLimit() {
+		return timeLimit;
+	}
+
+	/**
+	 * Bounds the number of states seen by the search; when it is reached, the
+	 * search ends as {@link SearchResult#TRUNCATED}. The tasks check the
+	 * budgets periodically, so the search may see a few more states.
+	 * 
+	 * @param numStates
+	 *            the maximum number of states, or 0 for no limit
+	 */
+	public void setStateLimit(long numStates) {
+		if (numStates < 0)
+			throw new IllegalArgumentException(
+					"Negative state limit: " + numStates);
+		this.stateLimit = numStates;
+	}
+
+	public long getStateLimit() {
+		return stateLimit;
+	}
+
+	/**
+	 * Makes the running search end as {@link SearchResult#CANCELLED}, unless
+	 * it has already been stopped for another reason. May be called from any
+	 * thread.
+	 */
+	public void stop() {
+		stop(SearchResult.CANCELLED);
+	}
+
+	/**
+	 * Records why the search is stopping, unless a reason has already been
+	 * recorded.
+	 * 
+	 * @return true iff the reason has been recorded
+	 */
+	private boolean stop(SearchResult reason) {
+		return stopReason.compareAndSet(null, reason);
+	}
+
+	/**
+	 * Sets the log to which the violation found by a search is reported, with
+	 * its trace, when the search is over.
+	 *
+	 * @param log
+	 *            the log, or null
+	 * @param entries
+	 *            makes the log entry of a violating state
+	 */
+	public void setLog(ErrorLog log,
+			Function<? super STATE, ? extends LogEntry> entries) {
+		if (log != null && entries == null)
+			throw new NullPointerException("null entries");
+		this.log = log;
+		this.entries = entries;
+	}
+
+	public ErrorLog getLog() {
+		return log;
+	}
+
+	/**
+	 * @return the state satisfying the predicate, or closing the cycle, found
+	 *         by the last search, or null if it found no violation
+	 */
+	public STATE violatingState() {
+		return violatingState;
+	}
+
+	/**
+	 * @return the number of states of the counterexample found by the last
+	 *         search, or 0 if there is none
+	 */
+	@Override
+	public int traceLength() {
+		int[] trace = counterexample;
+
+		return trace == null ? 0 : trace.length;
+	}
+
+	/**
+	 * Writes the counterexample found by the last search in the condensed
+	 * form of
+	 * {@link edu.udel.cis.vsl.gmc.seq.DfsSearcher#writeStack(PrintStream)},
+	 * that can be used to replay the trace later. The last state of the trace
+	 * has no transition, which is written as index -1.
+	 *
+	 * @param stream
+	 *            stream to which to write the trace
+	 */
+	@Override
+	public void writeStack(PrintStream stream) {
+		int[] trace = counterexample;
+
+		Utils.writeTrace(stream, trace == null ? new int[0] : trace);
+	}
+
+	/**
+	 * Records the counterexample of a violation, if the violation is the
+	 * first reason to stop the search.
+	 */
+	private void recordViolation(SearchResult reason, STATE state,
+			int[] trace) {
+		if (stop(reason)) {
+			violatingState = state;
+			counterexample = trace;
+		}
+	}
+
+	/**
+	 * @return true iff a reason to stop the search has been recorded
+	 */
+	private boolean stopped() {
+		return stopReason.get() != null;
 	}
 
 	/**
@@ -190,7 +436,7 @@ public class ConcurrentDfsSearcher<STATE, TRANSITION> {
 	 * @return the number of states seen so far
 	 */
 	public int totalNumStatesSeen() {
-		return totalNumStatesSeen;
+		return concurrentNodeFactory.numOfSearchNodeSaved();
 	}
 
 	/**
@@ -199,7 +445,7 @@ public class ConcurrentDfsSearcher<STATE, TRANSITION> {
 	 * @return the number of transitions executed.
 	 */
 	public int totalNumTransitions() {
-		return totalNumTransitions;
+		return (int) counters.sum(TRANSITIONS);
 	}
 
 	/**
@@ -210,321 +456,457 @@ public class ConcurrentDfsSearcher<STATE, TRANSITION> {
 	 * @return the number of states matched
 	 */
 	public int totalNumStatesMatched() {
-		return totalNumStatesMatched;
+		return (int) counters.sum(STATES_MATCHED);
+	}
+
+	/**
+	 * Sets the stream to which the tasks print what they do: the tasks split
+	 * off, the violation found and the exceptions thrown.
+	 * 
+	 * @param debugOut
+	 *            the stream, or null to print nothing
+	 */
+	public void setDebugOut(PrintStream debugOut) {
+		this.debugOut = debugOut;
+	}
+
+	public PrintStream getDebugOut() {
+		return debugOut;
+	}
+
+	/**
+	 * Sets the monitor sampling the metrics of this search while
+	 * {@link #search(Object)} runs.
+	 * 
+	 * @param monitor
+	 *            the monitor, or null
+	 */
+	public void setMonitor(SearchMonitor monitor) {
+		this.monitor = monitor;
+	}
+
+	public SearchMonitor getMonitor() {
+		return monitor;
 	}
 
 	/**
-	 * Start a concurrent dfs task from a given state
+	 * Takes a snapshot of the metrics of this search, which may be called
+	 * while the search runs. The counts are summed over the workers when this
+	 * method is called, without stopping them, so they may lag behind by the
+	 * last few transitions of each worker.
+	 * 
+	 * @return the current metrics of this search
+	 */
+	public ConcurrentSearchMetrics metrics() {
+		ForkJoinPool pool = this.pool;
+		int numBusy = N - workerIds.size();
+		int numStealing = 0;
+		long numQueued = 0, numSteals = 0;
+
+		if (pool != null) {
+			numStealing = Math.max(0, pool.getActiveThreadCount() - numBusy);
+			numQueued = pool.getQueuedTaskCount();
+			numSteals = pool.getStealCount();
+		}
+		return new ConcurrentSearchMetrics(
+				monitor == null ? 0 : monitor.elapsedNanos(),
+				concurrentNodeFactory.numOfSearchNodeSaved(),
+				counters.sum(TRANSITIONS), counters.sum(STATES_MATCHED),
+				concurrentNodeFactory.numOfSearchNodeSaved(),
+				concurrentNodeFactory.estimatedBytes(),
+				counters.sum(FULL_EXPANSIONS), numBusy, numStealing,
+				numQueued, numSteals);
+	}
+
+	/**
+	 * Samples the metrics, unless another task has already sampled them in
+	 * this epoch.
+	 */
+	private void sample(int epoch) {
+		int last = sampledEpoch.get();
+
+		if (last != epoch && sampledEpoch.compareAndSet(last, epoch))
+			monitor.sample(metrics());
+	}
+
+	/**
+	 * Start a concurrent dfs task from a given state, and waits until the
+	 * search is over.
 	 * 
 	 * @param initialState
 	 *            The state the search starts from.
-	 * @throws Exception
+	 * @return true iff a state satisfying the predicate has been found
 	 */
 	public boolean search(STATE initialState) {
-		if (predicate.holdsAt(initialState)) {
-			predicateHold = true;
-			return true;
+		try {
+			return searchAsync(initialState).join() == SearchResult.VIOLATION;
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw e;
 		}
-		SequentialDfsSearchTask task = new SequentialDfsSearchTask(initialState,
-				generateThreadId(), null, null);
-		pool.submit(task);
-		while (!pool.isQuiescent());
-		pool.shutdown();
+	}
 
-		if (exception != null)
-			throw exception;
-		return predicateHold;
+	/**
+	 * Starts a concurrent search from a given state, and returns at once. The
+	 * future is completed with the result of the search when all its tasks
+	 * have completed, or exceptionally with the first exception thrown by a
+	 * task. Cancelling the future stops the search.
+	 * 
+	 * @param initialState
+	 *            The state the search starts from.
+	 * @return the future result of the search
+	 * @throws IllegalStateException
+	 *             if a search of this searcher is running
+	 */
+	public synchronized CompletableFuture<SearchResult> searchAsync(
+			STATE initialState) {
+		CompletableFuture<SearchResult> result = new CompletableFuture<>();
+
+		if (future != null && !future.isDone())
+			throw new IllegalStateException("A search is running");
+		future = result;
+		stopReason.set(null);
+		exception.set(null);
+		counterexample = null;
+		violatingState = null;
+		counters.reset();
+		concurrentNodeFactory = new ConcurrentNodeFactory<>(manager);
+		if (predicate.holdsAt(initialState)) {
+			recordViolation(SearchResult.VIOLATION, initialState,
+					new int[]{-1});
+			report();
+			if (exception.get() != null)
+				result.completeExceptionally(exception.get());
+			else
+				result.complete(SearchResult.VIOLATION);
+			return result;
+		}
+		if (monitor != null) {
+			monitor.start();
+			sampledEpoch.set(monitor.epoch());
+		}
+		if (timeLimit > 0)
+			deadline = System.nanoTime() + timeLimit * 1000000L;
+
+		ConcurrentNode<STATE> initialNode = concurrentNodeFactory
+				.getNode(initialState);
+		DfsTask root = new DfsTask(null, Collections.emptyList(), new int[0],
+				concurrentNodeFactory.newStackEntry(initialNode,
+						enabler.ampleSet(initialNode.getState()), false),
+				result);
+
+		pool = new ForkJoinPool(N);
+		result.whenComplete((value, error) -> {
+			if (error instanceof CancellationException)
+				stop();
+		});
+		pool.execute(root);
+		return result;
 	}
 
-	private class SequentialDfsSearchTask extends ForkJoinTask<Integer> {
+	/**
+	 * Completes the future of the search once its root task has completed.
+	 */
+	private void finish(CompletableFuture<SearchResult> result) {
+		SearchResult reason;
+
+		try {
+			// no task is running any more, so a later stop has no effect:
+			stop(SearchResult.COMPLETED);
+			reason = stopReason.get();
+			pool.shutdown();
+			if (monitor != null)
+				monitor.finish(metrics());
+			if (reason.isViolation())
+				report();
+			if (exception.get() != null)
+				result.completeExceptionally(exception.get());
+			else
+				result.complete(reason);
+		} catch (RuntimeException | Error e) {
+			// the future must be completed, or the caller waits forever:
+			result.completeExceptionally(e);
+		}
+	}
 
-		private static final long serialVersionUID = -2011438813013648270L;
+	/**
+	 * Reports the violation found by the search to the log, if any. An error
+	 * while reporting is recorded as the exception of the search.
+	 */
+	private void report() {
+		if (log == null)
+			return;
+		try {
+			log.report(entries.apply(violatingState), this);
+		} catch (FileNotFoundException e) {
+			exception.compareAndSet(null, new UncheckedIOException(e));
+		} catch (RuntimeException e) {
+			exception.compareAndSet(null, e);
+		}
+	}
 
-		private AtomicInteger parentCounter = null;
+	/**
+	 * A depth-first search of part of the state space, from the entry at the
+	 * bottom of its stack. It completes when it and all the tasks split off
+	 * from it have completed.
+	 */
+	private class DfsTask extends CountedCompleter<Void> {
 
-		private int id;
+		private static final long serialVersionUID = -2011438813013648270L;
 
 		/**
-		 * Each thread will have its own stack and elements in the stack are
-		 * {@link TransitionIterator}.
+		 * The nodes of the path from the initial state to the state of the
+		 * bottom entry of {@link #stack}, excluded. They are on the stack of
+		 * this task as far as the stack proviso and cycles are concerned.
 		 */
-		private Stack<StackEntry<STATE, TRANSITION>> stack;
+		private final List<ConcurrentNode<STATE>> prefix;
 
 		/**
-		 * The number of transitions executed since the beginning of the search.
+		 * The index of the transition taken at each node of {@link #prefix}.
 		 */
-		private int numTransitions = 0;
+		private final int[] prefixTids;
 
 		/**
-		 * The number of states encountered which are recognized as having
-		 * already been seen earlier in the search.
+		 * The stack of the depth-first search.
 		 */
-		private int numStatesMatched = 0;
+		private final ArrayList<StackEntry<STATE, TRANSITION>> stack = new ArrayList<>();
 
 		/**
-		 * The number of states seen in this search.
+		 * The future of the search, if this is the root task, or null.
 		 */
-		// private int numStatesSeen = 1;
+		private final CompletableFuture<SearchResult> result;
 
 		/**
-		 * Upper bound on stack depth.
+		 * The number of the worker running this task.
 		 */
-		// private int depthBound = Integer.MAX_VALUE;
+		private int id;
 
 		/**
-		 * Place an upper bound on stack size (depth).
+		 * The epoch of the monitor when this task last checked whether the
+		 * metrics should be sampled.
 		 */
-		// private boolean stackIsBounded = false;
+		private int epoch = monitor == null ? 0 : monitor.epoch();
 
 		/**
-		 * Are we searching for a minimal counterexample?
+		 * @param parent
+		 *            the task from which this task is split off, or null
+		 * @param prefix
+		 *            the nodes of the path leading to the state of
+		 *            {@code bottom}, excluded
+		 * @param prefixTids
+		 *            the index of the transition taken at each node of
+		 *            {@code prefix}
+		 * @param bottom
+		 *            the first entry of the stack
+		 * @param result
+		 *            the future of the search if this is the root task, or
+		 *            null
 		 */
-		// private boolean minimize = false;
-
-		private SequentialDfsSearchTask parent;
-
-		private LinkedList<STATE> parentStack = new LinkedList<>();;
-
-		public SequentialDfsSearchTask(STATE initState, int id,
-				SequentialDfsSearchTask parent, AtomicInteger counter) {
-			Collection<TRANSITION> ampleSet = enabler.ampleSet(initState);
-			ConcurrentNode<STATE> initNode = concurrentNodeFactory
-					.getNode(initState);
-			StackEntry<STATE, TRANSITION> initEntry = concurrentNodeFactory
-					.newStackEntry(initNode, ampleSet, false);
-
-			initState = initNode.getState();
-			this.id = id;
-			this.parentCounter = counter;
-			this.stack = new Stack<>();
-			this.stack.push(initEntry);
-			initNode.setOnStack(id, true);
-			this.parent = parent;
-			copyParentStack(parent);
+		DfsTask(DfsTask parent, List<ConcurrentNode<STATE>> prefix,
+				int[] prefixTids, StackEntry<STATE, TRANSITION> bottom,
+				CompletableFuture<SearchResult> result) {
+			super(parent);
+			this.prefix = prefix;
+			this.prefixTids = prefixTids;
+			this.stack.add(bottom);
+			this.result = result;
 		}
 
-		private void copyParentStack(SequentialDfsSearchTask parent) {
-			if (parent != null) {
-				Stack<StackEntry<STATE, TRANSITION>> parentStack = parent
-						.stack();
-				Enumeration<StackEntry<STATE, TRANSITION>> elements = parentStack
-						.elements();
-
-				while (elements.hasMoreElements()) {
-					ConcurrentNode<STATE> node = elements.nextElement()
-							.getNode();
+		@Override
+		public void compute() {
+			boolean polled = false;
 
-					this.parentStack.add(node.getState());
+			try {
+				id = workerIds.poll();
+				polled = true;
+				for (ConcurrentNode<STATE> node : prefix)
 					node.setOnStack(id, true);
+				stack.get(0).getNode().setOnStack(id, true);
+				explore();
+			} catch (RuntimeException e) {
+				exception.compareAndSet(null, e);
+				stop(SearchResult.CANCELLED);
+				if (debugOut != null)
+					e.printStackTrace(debugOut);
+			} finally {
+				if (polled) {
+					for (ConcurrentNode<STATE> node : prefix)
+						node.setOnStack(id, false);
+					for (StackEntry<STATE, TRANSITION> entry : stack)
+						entry.getNode().setOnStack(id, false);
+					workerIds.add(id);
 				}
+				stack.clear();
 			}
-		}
-
-		// TODO has problem, parent may have a different stack.
-		private void removeParentStack(SequentialDfsSearchTask parent) {
-			for (STATE s : parentStack) {
-				concurrentNodeFactory.getNode(s).setOnStack(id, false);
-			}
-		}
-
-		// public StatePredicateIF<STATE> predicate() {
-		// return predicate;
-		// }
-
-		// public boolean isDepthBounded() {
-		// return stackIsBounded;
-		// }
-
-		// public void unboundDepth() {
-		// this.stackIsBounded = false;
-		// depthBound = Integer.MAX_VALUE;
-		// }
-		//
-		// public void boundDepth(int value) {
-		// depthBound = value;
-		// stackIsBounded = true;
-		// }
-		//
-		// public void restrictDepth() {
-		// depthBound = stack.size() - 1;
-		// stackIsBounded = true;
-		// }
-
-		// public void setMinimize(boolean value) {
-		// this.minimize = value;
-		// }
-		//
-		// public boolean getMinimize() {
-		// return minimize;
-		// }
-
-		public Stack<StackEntry<STATE, TRANSITION>> stack() {
-			return stack;
+			tryComplete();
 		}
 
 		@Override
-		public Integer getRawResult() {
-			return null;
+		public void onCompletion(CountedCompleter<?> caller) {
+			if (result != null)
+				finish(result);
 		}
 
+		/**
+		 * Propagates an exception which escaped a task up to the root task,
+		 * which completes the future of the search with it.
+		 */
 		@Override
-		protected void setRawResult(Integer value) {
-		}
-
-		private void notifyParent() {
-			System.out.println("try to notify parent");
-			if (parentCounter != null) {
-				synchronized (parentCounter) {
-					parentCounter.decrementAndGet();
-					parentCounter.notify();
-					System.out.println(
-							this.id + " notify its parent" + this.parent.id);
-				}
+		public boolean onExceptionalCompletion(Throwable ex,
+				CountedCompleter<?> caller) {
+			if (result != null) {
+				stop(SearchResult.CANCELLED);
+				pool.shutdown();
+				result.completeExceptionally(ex);
 			}
+			return true;
 		}
 
-		private boolean checkTerminationCondition() {
-			if (cycleFound || predicateHold || violationFound
-					|| exception != null) {
-				notifyParent();
-				this.stack.clear();
-				threadIds.add(id);
+		/**
+		 * Stops the search if it has exceeded its time or state budget.
+		 */
+		private void checkBudgets() {
+			if (timeLimit > 0 && System.nanoTime() - deadline > 0)
+				stop(SearchResult.TRUNCATED);
+			else if (stateLimit > 0 && concurrentNodeFactory
+					.numOfSearchNodeSaved() >= stateLimit)
+				stop(SearchResult.TRUNCATED);
+		}
 
-				synchronized (totalNumStatesMatchedLock) {
-					totalNumStatesMatched += numStatesMatched;
-				}
-				synchronized (totalNumTransitionsLock) {
-					totalNumTransitions += numTransitions;
+		/**
+		 * Runs the depth-first search until the stack is empty or the search
+		 * is over.
+		 */
+		private void explore() {
+			int untilSplit = SPLIT_INTERVAL;
+
+			while (!stack.isEmpty()) {
+				if (stopped())
+					return;
+				if (monitor != null && monitor.epoch() != epoch) {
+					epoch = monitor.epoch();
+					sample(epoch);
 				}
-				return true;
-			} else {
-				return false;
-			}
-		}
 
-		private void gatherStatistics() {
-			synchronized (totalNumStatesMatchedLock) {
-				totalNumStatesMatched += numStatesMatched;
-			}
-			synchronized (totalNumTransitionsLock) {
-				totalNumTransitions += numTransitions;
-			}
-		}
+				StackEntry<STATE, TRANSITION> currentStackEntry = stack
+						.get(stack.size() - 1);
+				ConcurrentNode<STATE> currentNode = currentStackEntry
+						.getNode();
+				STATE currentState = currentNode.getState();
+				boolean continueDFS = false;
+
+				while (currentStackEntry.hasNext()) {
+					if (stopped())
+						return;
+					if (--untilSplit == 0) {
+						untilSplit = SPLIT_INTERVAL;
+						checkBudgets();
+						split();
+						if (!currentStackEntry.hasNext())
+							break;
+					}
 
-		@Override
-		protected boolean exec() {
-			try {
-				while (!stack.empty()) {
-					if (checkTerminationCondition())
-						return true;
-
-					StackEntry<STATE, TRANSITION> currentStackEntry = stack
-							.peek();
-					ConcurrentNode<STATE> currentNode = currentStackEntry
-							.getNode();
-					STATE currentState = currentNode.getState();
-					TRANSITION transition = null;
-					boolean continueDFS = false;
-
-					while (currentStackEntry.hasNext()) {
-						if (checkTerminationCondition())
-							return true;
-						transition = currentStackEntry.next();
-
-						STATE newState = null;
-						ConcurrentNode<STATE> newNode = concurrentNodeFactory
-								.getNode(newState);
-
-						newState = manager.nextState(currentState, transition)
-								.getFinalState();
-						numTransitions++;
-
-						if (checkPredicate(newState))
-							return true;
-
-						if (!newNode.onStack(id)) {
-							currentStackEntry.setExpand(false);
-							if (!newNode.fullyExplored()) {
-								// trying to spawn new thread
-								if (currentStackEntry.hasNext()) {
-									if (spawnChildrenThread(currentStackEntry,
-											newState))
-										continue;
-								}
-								Collection<TRANSITION> newTransitionSet = enabler
-										.ampleSet(newState);
-								StackEntry<STATE, TRANSITION> newStackEntry = concurrentNodeFactory
-										.newStackEntry(newNode,
-												randomizeCollection(
-														newTransitionSet),
-												false);
-
-								this.stack.push(newStackEntry);
-								newNode.setOnStack(id, true);
-								continueDFS = true;
-								break;
-							} else
-								numStatesMatched++;
-						} else {
-							numStatesMatched++;
-							if (reportCycleAsViolation) {
-								cycleFound = true;
-								cleanBeforeTermination();
-								return true;
-							}
+					TRANSITION transition = currentStackEntry.next();
+					STATE newState = manager.nextState(currentState, transition)
+							.getFinalState();
+					ConcurrentNode<STATE> newNode = concurrentNodeFactory
+							.getNode(newState);
+
+					newState = newNode.getState();
+					counters.add(id, TRANSITIONS, 1);
+					if (checkPredicate(newState))
+						return;
+					if (!newNode.onStack(id)) {
+						currentStackEntry.setExpand(false);
+						if (!newNode.fullyExplored()) {
+							Collection<TRANSITION> newTransitionSet = enabler
+									.ampleSet(newState);
+
+							stack.add(concurrentNodeFactory.newStackEntry(
+									newNode, newTransitionSet, false));
+							newNode.setOnStack(id, true);
+							continueDFS = true;
+							break;
+						} else
+							counters.add(id, STATES_MATCHED, 1);
+					} else {
+						counters.add(id, STATES_MATCHED, 1);
+						if (reportCycleAsViolation) {
+							recordViolation(SearchResult.CYCLE, newState,
+									trace(stack.size()));
+							return;
 						}
 					}
-					if (continueDFS) {
-						continue;
-					}
-					if (checkStackProviso(currentStackEntry, currentState,
-							currentStackEntry.getExpand())) {
-						continue;
-					}
-					waitforChildren(
-							currentStackEntry.getChildrenThreadsCounter());
-					currentNode.setFullyExplored(true);
-					this.stack.pop();
-					currentNode.setOnStack(id, false);
 				}
-				System.out.println(this.id + "ends");
-				cleanBeforeTermination();
-			} catch (RuntimeException e) {
-				exception = e;
-				e.printStackTrace();
-				violationFound = true;
-				cleanBeforeTermination();
-				return true;
-			} catch (Exception e) {
-				e.printStackTrace();
+				if (continueDFS)
+					continue;
+				if (checkStackProviso(currentStackEntry))
+					continue;
+				stack.remove(stack.size() - 1);
+				currentNode.setOnStack(id, false);
+				if (currentStackEntry.finish())
+					currentNode.setFullyExplored(true);
 			}
-
-			return true;
 		}
 
-		private boolean spawnChildrenThread(
-				StackEntry<STATE, TRANSITION> stackEntry, STATE newState) {
-			try {
-				synchronized (pool) {
-					if (pool.getActiveNum() < N && pool.getRunningNum() < pool
-							.getMaxNumOfThread()) {
-						System.out.println(
-								"total num threads:" + pool.getRunningNum());
-						int newId = generateThreadId();
-						SequentialDfsSearchTask newTask = new SequentialDfsSearchTask(
-								newState, newId, this,
-								stackEntry.getChildrenThreadsCounter());
-
-						System.out.println(this.id + " spawned " + newId);
-						stackEntry.incrementCounter();
-						pool.submit(newTask);
-						return true;
-					}
+		/**
+		 * If some workers may be idle, moves the unexplored transitions of the
+		 * bottom-most entry of the stack which has some, and which does not
+		 * decide the stack proviso, into a new task, which is forked.
+		 */
+		private void split() {
+			if (N == 1 || getSurplusQueuedTaskCount() > 0)
+				return;
+			for (int i = 0; i < stack.size(); i++) {
+				StackEntry<STATE, TRANSITION> entry = stack.get(i);
+
+				if (entry.hasNext() && (entry.isFull() || !entry.getExpand())) {
+					List<ConcurrentNode<STATE>> path = new ArrayList<>(
+							prefix.size() + i);
+
+					path.addAll(prefix);
+					for (int j = 0; j < i; j++)
+						path.add(stack.get(j).getNode());
+					addToPendingCount(1);
+					new DfsTask(this, path, trace(i), entry.split(), null)
+							.fork();
+					if (debugOut != null)
+						debugOut.println("worker " + id
+								+ " split off a task at depth " + path.size());
+					return;
 				}
-			} catch (Exception e) {
-				e.printStackTrace();
 			}
-			return false;
+		}
+
+		/**
+		 * Gives the indexes of the transitions of the path from the initial
+		 * state to the state of an entry of the stack, or to the successor of
+		 * the top entry.
+		 * 
+		 * @param size
+		 *            the number of entries of the stack on the path
+		 * @return the index of the transition taken at each state of the
+		 *         path, with -1 for the last state if the path goes through
+		 *         the whole stack
+		 */
+		private int[] trace(int size) {
+			int length = prefixTids.length + size;
+			int[] result;
+
+			if (size == stack.size())
+				length++;
+			result = Arrays.copyOf(prefixTids, length);
+			for (int i = 0; i < size; i++)
+				// the index of the transition which has just been taken:
+				result[prefixTids.length + i] = stack.get(i).getTid() - 1;
+			if (size == stack.size())
+				result[length - 1] = -1;
+			return result;
 		}
 
 		/**
@@ -535,87 +917,45 @@ public class ConcurrentDfsSearcher<STATE, TRANSITION> {
 			boolean result = predicate.holdsAt(state);
 
 			if (result) {
-				predicateHold = true;
-				cleanBeforeTermination();
-				System.out
-						.println("found a state that satisifies the predicate");
+				recordViolation(SearchResult.VIOLATION, state,
+						trace(stack.size()));
+				if (debugOut != null)
+					debugOut.println("worker " + id
+							+ " found a state that satisfies the predicate");
 			}
 			return result;
 		}
 
 		/**
-		 * before a thread terminate, notify its parent, put back the id, and
-		 * gather statistics, clean those states that are on the stack of this
-		 * thread because of its parent.
+		 * Decides the stack proviso of the state of an entry whose transitions
+		 * have all been explored, if no task has decided it yet. If the
+		 * proviso holds, i.e., all the successors through the ample set were
+		 * on the stack, the entry is replaced by an entry for the ample set
+		 * complement.
+		 * 
+		 * @return true iff the entry has been replaced
 		 */
-		private void cleanBeforeTermination() {
-			System.out.println("clean");
-			try {
-				removeParentStack(parent);
-			} catch (Exception e) {
-				e.printStackTrace();
-			}
-			notifyParent();
-			threadIds.add(id);
-			pool.decrementTotal();
-			gatherStatistics();
-		}
-
-		private void waitforChildren(AtomicInteger counter) {
-			if (counter != null) {
-				synchronized (counter) {
-					while (counter.intValue() > 0) {
-						try {
-							pool.incrementWaiting();
-							System.out.println(this.id + " is waiting..."
-									+ "counter: " + counter.intValue());
-							counter.wait();
-							System.out.println(this.id + " is done waiting...");
-							pool.decrementWaiting();
-						} catch (InterruptedException e) {
-							e.printStackTrace();
-						}
-					}
-				}
-			}
-		}
-
 		private boolean checkStackProviso(
-				StackEntry<STATE, TRANSITION> stackEntry, STATE currentState,
-				boolean allOnStack) {
+				StackEntry<STATE, TRANSITION> stackEntry) {
 			ConcurrentNode<STATE> node = stackEntry.getNode();
 			STATE state = node.getState();
 
-			if (node.setStackProvisoCAS(
-					(allOnStack ? ProvisoValue.TRUE : ProvisoValue.FALSE))) {
+			if (node.setStackProvisoCAS(stackEntry.getExpand()
+					? ProvisoValue.TRUE
+					: ProvisoValue.FALSE)) {
 				if (node.getProviso() == ProvisoValue.TRUE) {
-					Collection<TRANSITION> fullSet = enabler.fullSet(state);
-					@SuppressWarnings("unchecked")
-					Collection<TRANSITION> ac = (Collection<TRANSITION>) Utils
-							.subtract(fullSet, stackEntry.getTransitions());
-					StackEntry<STATE, TRANSITION> newStackEntry = concurrentNodeFactory
-							.newStackEntry(node, ac, true);
-
-					stack.pop();
-					stack.push(newStackEntry);
+					Collection<TRANSITION> ac = enabler.ampleSetComplement(
+							state, stackEntry.getTransitions());
+
+					// the complement follows the ample set in the traces:
+					stack.set(stack.size() - 1,
+							concurrentNodeFactory.newStackEntry(node, ac, true,
+									stackEntry.getTransitions().size()));
+					counters.add(id, FULL_EXPANSIONS, 1);
 					return true;
 				}
 			}
 			return false;
 		}
 	}
-
-	private int generateThreadId() {
-		return threadIds.poll();
-	}
-
-	private Collection<TRANSITION> randomizeCollection(
-			Collection<TRANSITION> collection) {
-		LinkedList<TRANSITION> transitions = new LinkedList<>();
-
-		for (TRANSITION t : collection)
-			transitions.add(t);
-		Collections.shuffle(transitions);
-		return transitions;
-	}
 }
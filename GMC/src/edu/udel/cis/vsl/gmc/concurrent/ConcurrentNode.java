@@ -1,13 +1,56 @@
 package edu.udel.cis.vsl.gmc.concurrent;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * <p>
+ * The node of a state in a {@link ConcurrentDfsSearcher}, which records the
+ * colors of the state shared by all the workers of the search.
+ * </p>
+ *
+ * <p>
+ * The workers which have the node on their stack are recorded in a single
+ * long: bit i is set iff worker i has the node on its stack. Workers numbered
+ * 64 or more are recorded in a concurrent set, created the first time such a
+ * worker pushes the node. So a node costs the same whatever the number of
+ * workers of the search, and no more than a few words more than a node of the
+ * sequential search.
+ * </p>
+ */
 public class ConcurrentNode<STATE> {
 
+	/**
+	 * The number of workers whose on-stack flags are bits of
+	 * {@link #onStackMask}.
+	 */
+	private static final int MASK_SIZE = Long.SIZE;
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicLongFieldUpdater<ConcurrentNode> ON_STACK_MASK = AtomicLongFieldUpdater
+			.newUpdater(ConcurrentNode.class, "onStackMask");
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<ConcurrentNode, Set> ON_STACK_OVERFLOW = AtomicReferenceFieldUpdater
+			.newUpdater(ConcurrentNode.class, Set.class, "onStackOverflow");
+
 	private STATE state;
 
-	private int[] onStack = new int[2
-			* Runtime.getRuntime().availableProcessors()];
+	/**
+	 * Bit i is set iff the node is on the stack of worker i, for i less than
+	 * {@link #MASK_SIZE}.
+	 */
+	private volatile long onStackMask = 0;
+
+	/**
+	 * The workers numbered {@link #MASK_SIZE} or more which have the node on
+	 * their stack, or null if no such worker ever had.
+	 */
+	private volatile Set<Integer> onStackOverflow = null;
 
-	private boolean fullyExplored = false;
+	private volatile boolean fullyExplored = false;
 
 	private ProvisoValue proviso = ProvisoValue.UNKNOWN;
 
@@ -26,7 +69,12 @@ public class ConcurrentNode<STATE> {
 	 * @return true if state is on the stack of the thread(id).
 	 */
 	public boolean onStack(int tid) {
-		return onStack[tid] > 0;
+		if (tid < MASK_SIZE)
+			return (onStackMask & (1L << tid)) != 0;
+
+		Set<Integer> overflow = onStackOverflow;
+
+		return overflow != null && overflow.contains(tid);
 	}
 
 	/**
@@ -69,8 +117,32 @@ public class ConcurrentNode<STATE> {
 	 *            state.
 	 * 
 	 */
+	@SuppressWarnings("unchecked")
 	void setOnStack(int tid, boolean value) {
-		onStack[tid] = value ? 1 : 0;
+		if (tid < MASK_SIZE) {
+			long bit = 1L << tid;
+			long mask;
+
+			// other workers may be updating their own bits at the same time:
+			do {
+				mask = onStackMask;
+			} while (!ON_STACK_MASK.compareAndSet(this, mask,
+					value ? mask | bit : mask & ~bit));
+		} else if (value) {
+			Set<Integer> overflow = onStackOverflow;
+
+			if (overflow == null) {
+				ON_STACK_OVERFLOW.compareAndSet(this, null,
+						ConcurrentHashMap.newKeySet());
+				overflow = onStackOverflow;
+			}
+			overflow.add(tid);
+		} else {
+			Set<Integer> overflow = onStackOverflow;
+
+			if (overflow != null)
+				overflow.remove(tid);
+		}
 	}
 
 	/**
@@ -85,7 +157,7 @@ public class ConcurrentNode<STATE> {
 	 */
 	boolean setStackProvisoCAS(ProvisoValue value) {
 		synchronized (this) {
-			if (value == ProvisoValue.UNKNOWN) {
+			if (proviso == ProvisoValue.UNKNOWN) {
 				this.proviso = value;
 				return true;
 			}
@@ -1,15 +1,39 @@
 package edu.udel.cis.vsl.gmc.concurrent;
 
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import edu.udel.cis.vsl.gmc.seq.StateManager;
 
+/**
+ * <p>
+ * The factory to get the unique {@link ConcurrentNode} of a STATE. The factory
+ * is shared by all the worker threads of a {@link ConcurrentDfsSearcher}, so
+ * the seen-state table is a {@link ConcurrentHashMap}: look-ups never block and
+ * insertions only contend on the bin of the state being inserted, which lets
+ * the table scale with the number of workers.
+ * </p>
+ *
+ * <p>
+ * Every insertion is done through a single atomic insert-if-absent operation.
+ * If two workers race to insert the same state, both of them get the same
+ * canonical {@link ConcurrentNode}.
+ * </p>
+ *
+ * @author Yihao Yan (yanyihao)
+ */
 public class ConcurrentNodeFactory<STATE, TRANSITION> {
+
+	/**
+	 * The default initial capacity of {@link #nodeMap}.
+	 */
+	private static final int DEFAULT_INITIAL_CAPACITY = 1 << 16;
+
 	/**
-	 * Maps each STATE to a unique {@link SequentialNode}.
+	 * Maps each STATE to a unique {@link ConcurrentNode}.
 	 */
-	private Map<STATE, ConcurrentNode<STATE>> nodeMap = new HashMap<>();
+	private ConcurrentMap<STATE, ConcurrentNode<STATE>> nodeMap;
 
 	/**
 	 * A {@link StateManager} can be used to compute the next state and
@@ -19,17 +43,39 @@ public class ConcurrentNodeFactory<STATE, TRANSITION> {
 
 	public ConcurrentNodeFactory(
 			ConcurrentStateManagerIF<STATE, TRANSITION> stateManager) {
+		this(stateManager, DEFAULT_INITIAL_CAPACITY);
+	}
+
+	/**
+	 * @param stateManager
+	 *            the state manager used to normalize states
+	 * @param initialCapacity
+	 *            the expected number of states; pre-sizing the table avoids
+	 *            resizing it while the workers are inserting states
+	 */
+	public ConcurrentNodeFactory(
+			ConcurrentStateManagerIF<STATE, TRANSITION> stateManager,
+			int initialCapacity) {
 		this.stateManager = stateManager;
+		this.nodeMap = new ConcurrentHashMap<>(initialCapacity, 0.75f,
+				Runtime.getRuntime().availableProcessors());
 	}
 
 	/**
-	 * Implements the fly-weight pattern.
-	 * 
+	 * <p>
+	 * Implements the fly-weight pattern. This method is thread-safe.
+	 * </p>
+	 * <p>
+	 * The state is normalized only if it has not been seen before. The
+	 * normalized state is inserted with an atomic insert-if-absent, so no
+	 * matter how many threads call this method on equal states at the same
+	 * time, exactly one {@link ConcurrentNode} is ever associated to them.
+	 * </p>
+	 *
 	 * @param state
-	 * @return the existing {@link SequentialNode} mapped to the state, or a new
-	 *         {@link SequentialNode} mapped to the state if there was no entry
-	 *         in the map for the key state. Note that the
-	 *         {@link SequentialNode} will always store the normalized or
+	 *            a state, not necessarily normalized
+	 * @return the canonical {@link ConcurrentNode} of the state. Note that the
+	 *         {@link ConcurrentNode} will always store the normalized or
 	 *         simplified version of {@code state}.
 	 */
 	public ConcurrentNode<STATE> getNode(STATE state) {
@@ -38,25 +84,37 @@ public class ConcurrentNodeFactory<STATE, TRANSITION> {
 		if (result == null) {
 			STATE normalizedState = stateManager.normalize(state);
 
-			if (normalizedState != state) {
-				result = nodeMap.get(normalizedState);
-				if (result == null) {
-					result = new ConcurrentNode<STATE>(normalizedState);
-					nodeMap.put(normalizedState, result);
-				}
-			} else {
-				result = new ConcurrentNode<STATE>(state);
-			}
-			nodeMap.put(state, result);
+			result = putIfAbsent(normalizedState,
+					new ConcurrentNode<STATE>(normalizedState));
+			if (normalizedState != state)
+				result = putIfAbsent(state, result);
 		}
 		return result;
 	}
 
+	/**
+	 * Atomically associates the node to the state if the state is not in the
+	 * table yet.
+	 *
+	 * @param state
+	 *            the key
+	 * @param node
+	 *            the candidate node
+	 * @return the node associated to the state after this call: either the
+	 *         candidate or the one inserted earlier by another thread
+	 */
+	private ConcurrentNode<STATE> putIfAbsent(STATE state,
+			ConcurrentNode<STATE> node) {
+		ConcurrentNode<STATE> old = nodeMap.putIfAbsent(state, node);
+
+		return old == null ? node : old;
+	}
+
 	/**
 	 * Construct a new stack entry which will be pushed onto the stack.
-	 * 
+	 *
 	 * @param node
-	 *            The {@link SequentialNode} that wraps the source state.
+	 *            The {@link ConcurrentNode} that wraps the source state.
 	 * @param transitions
 	 *            This could be the ample set or ample set complement of the
 	 *            source state.
@@ -70,10 +128,44 @@ public class ConcurrentNodeFactory<STATE, TRANSITION> {
 		return new StackEntry<>(node, transitions, full);
 	}
 
+	/**
+	 * Construct a new stack entry whose transitions are not the first ones of
+	 * the source state in the traces, like the ample set complement, whose
+	 * transitions follow those of the ample set.
+	 *
+	 * @param node
+	 *            The {@link ConcurrentNode} that wraps the source state.
+	 * @param transitions
+	 *            The transitions of the entry.
+	 * @param full
+	 *            Whether {@code transitions} is ample set complement or not.
+	 * @param offset
+	 *            The index of the first transition of {@code transitions} in
+	 *            the traces.
+	 * @return The newly constructed {@link StackEntry}.
+	 */
+	public StackEntry<STATE, TRANSITION> newStackEntry(
+			ConcurrentNode<STATE> node, Collection<TRANSITION> transitions,
+			boolean full, int offset) {
+		return new StackEntry<>(node, transitions, full, offset);
+	}
+
 	/**
 	 * @return the number of search nodes saved.
 	 */
 	public int numOfSearchNodeSaved() {
 		return nodeMap.size();
 	}
+
+	/**
+	 * Estimates the number of bytes of the seen-state table, not counting the
+	 * states themselves: a map entry and a {@link ConcurrentNode} per state,
+	 * whose on-stack flags fit in a long. The overflow sets of the nodes
+	 * pushed by workers numbered 64 or more are not counted.
+	 * 
+	 * @return the estimated number of bytes of the seen-state table
+	 */
+	public long estimatedBytes() {
+		return 72L * nodeMap.size();
+	}
 }
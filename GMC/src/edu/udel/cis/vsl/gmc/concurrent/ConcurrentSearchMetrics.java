@@ -0,0 +1,87 @@
+package edu.udel.cis.vsl.gmc.concurrent;
+
+import java.util.concurrent.ForkJoinPool;
+
+import edu.udel.cis.vsl.gmc.SearchMetrics;
+
+/**
+ * A sample of the progress of a {@link ConcurrentDfsSearcher}, with the state
+ * of its workers in addition to the counts of the search. The stack depths
+ * are those of no single task, so they are -1.
+ */
+public class ConcurrentSearchMetrics extends SearchMetrics {
+
+	/**
+	 * The number of workers running a task.
+	 */
+	private final int numBusyWorkers;
+
+	/**
+	 * The number of workers looking for a task to steal.
+	 */
+	private final int numStealingWorkers;
+
+	/**
+	 * The number of tasks waiting in the queues of the workers.
+	 */
+	private final long numQueuedTasks;
+
+	/**
+	 * The number of tasks stolen by a worker from the queue of another one.
+	 */
+	private final long numSteals;
+
+	/**
+	 * Creates a sample; see the getters of this class and of
+	 * {@link SearchMetrics} for the meaning of the parameters.
+	 */
+	public ConcurrentSearchMetrics(long elapsedNanos, long numStatesSeen,
+			long numTransitions, long numStatesMatched, long numVisitedStates,
+			long visitedBytes, long numFullExpansions, int numBusyWorkers,
+			int numStealingWorkers, long numQueuedTasks, long numSteals) {
+		super(elapsedNanos, numStatesSeen, numTransitions, numStatesMatched,
+				-1, -1, numVisitedStates, visitedBytes, numFullExpansions);
+		this.numBusyWorkers = numBusyWorkers;
+		this.numStealingWorkers = numStealingWorkers;
+		this.numQueuedTasks = numQueuedTasks;
+		this.numSteals = numSteals;
+	}
+
+	/**
+	 * @return the number of workers running a depth-first search task
+	 */
+	public int numBusyWorkers() {
+		return numBusyWorkers;
+	}
+
+	/**
+	 * @return the number of workers which are active but run no task, i.e.,
+	 *         which are looking for a task to steal
+	 */
+	public int numStealingWorkers() {
+		return numStealingWorkers;
+	}
+
+	/**
+	 * @return an estimate of the number of tasks split off and not yet taken
+	 *         by a worker, see {@link ForkJoinPool#getQueuedTaskCount()}
+	 */
+	public long numQueuedTasks() {
+		return numQueuedTasks;
+	}
+
+	/**
+	 * @return an estimate of the number of tasks stolen so far, see
+	 *         {@link ForkJoinPool#getStealCount()}
+	 */
+	public long numSteals() {
+		return numSteals;
+	}
+
+	@Override
+	public String toString() {
+		return super.toString() + String.format(
+				" busy=%d stealing=%d queued=%d steals=%d", numBusyWorkers,
+				numStealingWorkers, numQueuedTasks, numSteals);
+	}
+}
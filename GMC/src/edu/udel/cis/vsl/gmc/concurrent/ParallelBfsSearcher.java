@@ -0,0 +1,455 @@
+package edu.udel.cis.vsl.gmc.concurrent;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import edu.udel.cis.vsl.gmc.StatePredicateIF;
+import edu.udel.cis.vsl.gmc.TraceWriterIF;
+import edu.udel.cis.vsl.gmc.seq.EnablerIF;
+import edu.udel.cis.vsl.gmc.util.Utils;
+
+/**
+ * <p>
+ * A level-synchronous parallel breadth-first search. The states of the current
+ * level (the frontier) are expanded by N worker threads, which take chunks of
+ * the frontier from a shared cursor. Each new successor is inserted in a
+ * {@link ConcurrentHashMap} of visited states with an atomic insert-if-absent,
+ * so exactly one worker owns it, and the owner appends it to its own output
+ * buffer. When the level is done, the buffers are concatenated into the next
+ * frontier. No worker ever waits for another one except at the level
+ * boundaries.
+ * </p>
+ *
+ * <p>
+ * Since the levels are explored in order, the first state found satisfying
+ * the predicate is at a minimal distance from the initial state: the search
+ * gives a shortest counterexample, which can be written in the trace format of
+ * {@link edu.udel.cis.vsl.gmc.seq.DfsSearcher#writeStack(PrintStream)}.
+ * </p>
+ *
+ * <p>
+ * Partial order reduction uses the same cycle proviso as
+ * {@link edu.udel.cis.vsl.gmc.seq.BfsSearcher}: the ample set of a state is
+ * only used if all its successors through the ample set have been inserted by
+ * this expansion. A successor inserted concurrently by another worker counts
+ * as already seen, which only makes the reduction more conservative.
+ * </p>
+ *
+ * <p>
+ * The enabler, the state manager and the predicate are called by all the
+ * workers at the same time, so they must be thread-safe.
+ * </p>
+ *
+ * @param <STATE>
+ * @param <TRANSITION>
+ */
+public class ParallelBfsSearcher<STATE, TRANSITION>
+		implements
+			TraceWriterIF {
+
+	/**
+	 * The largest number of states of a chunk of the frontier.
+	 */
+	private static final int MAX_CHUNK_SIZE = 1024;
+
+	/**
+	 * The default initial capacity of the visited set.
+	 */
+	private static final int DEFAULT_INITIAL_CAPACITY = 1 << 16;
+
+	/**
+	 * A node of the breadth-first search tree.
+	 */
+	private static class BfsNode<STATE> {
+
+		/**
+		 * The normalized state.
+		 */
+		final STATE state;
+
+		/**
+		 * The node from which this node was discovered, or null for the
+		 * initial state.
+		 */
+		final BfsNode<STATE> parent;
+
+		/**
+		 * The index of the transition leading from the parent to this node.
+		 */
+		final int tid;
+
+		BfsNode(STATE state, BfsNode<STATE> parent, int tid) {
+			this.state = state;
+			this.parent = parent;
+			this.tid = tid;
+		}
+	}
+
+	/**
+	 * The # of threads which can be used in the concurrent searcher.
+	 */
+	private int N;
+
+	/**
+	 * The enabler used to compute the ample set and its complement.
+	 */
+	private EnablerIF<STATE, TRANSITION> enabler;
+
+	/**
+	 * The state manager, used to determine the next state, given a state and
+	 * transition. Also used to normalize the states.
+	 */
+	private ConcurrentStateManagerIF<STATE, TRANSITION> manager;
+
+	/**
+	 * The predicate on states. This searcher is searching for state that
+	 * satisfies this predicate. Typically, this predicate describes something
+	 * "bad", like deadlock.
+	 */
+	private StatePredicateIF<STATE> predicate;
+
+	/**
+	 * Maps each STATE, normalized or not, to the node of its normalized state.
+	 */
+	private ConcurrentMap<STATE, BfsNode<STATE>> visited;
+
+	/**
+	 * The first node found satisfying the predicate, if any.
+	 */
+	private AtomicReference<BfsNode<STATE>> violation = new AtomicReference<>();
+
+	/**
+	 * The number of states seen in this search.
+	 */
+	private int numStatesSeen = 0;
+
+	/**
+	 * The number of transitions executed since the beginning of the search.
+	 */
+	private int numTransitions = 0;
+
+	/**
+	 * The number of states encountered which are recognized as having already
+	 * been seen earlier in the search.
+	 */
+	private int numStatesMatched = 0;
+
+	/**
+	 * The number of levels fully expanded.
+	 */
+	private int numLevels = 0;
+
+	/**
+	 * A name to give this searcher, used only for printing out messages about
+	 * the search.
+	 */
+	private String name = null;
+
+	public ParallelBfsSearcher(EnablerIF<STATE, TRANSITION> enabler,
+			ConcurrentStateManagerIF<STATE, TRANSITION> manager,
+			StatePredicateIF<STATE> predicate, int N) {
+		if (enabler == null) {
+			throw new NullPointerException("null enabler");
+		}
+		if (manager == null) {
+			throw new NullPointerException("null manager");
+		}
+		if (N <= 0)
+			throw new IllegalArgumentException(
+					"Number of threads is not positive: " + N);
+		this.enabler = enabler;
+		this.manager = manager;
+		this.predicate = predicate;
+		this.N = N;
+		this.visited = new ConcurrentHashMap<>(DEFAULT_INITIAL_CAPACITY, 0.75f,
+				N);
+	}
+
+	public StatePredicateIF<STATE> predicate() {
+		return predicate;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String name() {
+		return name;
+	}
+
+	/**
+	 * Performs a breadth-first search starting from the given state.
+	 *
+	 * @param initialState
+	 *            The state the search starts from.
+	 * @return true if a state is found that satisfies the predicate, in which
+	 *         case method {@link #currentState} can be used to get the state.
+	 *         If false is returned, the search has completed without finding a
+	 *         state satisfying the predicate.
+	 */
+	public boolean search(STATE initialState) {
+		STATE normalizedState = manager.normalize(initialState);
+		BfsNode<STATE> initialNode = new BfsNode<>(normalizedState, null, -1);
+		List<BfsNode<STATE>> frontier = new ArrayList<>();
+
+		visited.put(normalizedState, initialNode);
+		numStatesSeen++;
+		if (predicate.holdsAt(normalizedState)) {
+			violation.set(initialNode);
+			return true;
+		}
+		frontier.add(initialNode);
+
+		ExecutorService pool = Executors.newFixedThreadPool(N);
+
+		try {
+			while (!frontier.isEmpty() && violation.get() == null) {
+				frontier = expandLevel(pool, frontier);
+				numLevels++;
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		return violation.get() != null;
+	}
+
+	/**
+	 * Expands all the states of a level with the worker threads.
+	 *
+	 * @param pool
+	 *            the pool running the workers
+	 * @param frontier
+	 *            the nodes of the current level
+	 * @return the nodes of the next level
+	 */
+	private List<BfsNode<STATE>> expandLevel(ExecutorService pool,
+			List<BfsNode<STATE>> frontier) {
+		int chunkSize = Math.max(1,
+				Math.min(MAX_CHUNK_SIZE, frontier.size() / (4 * N)));
+		AtomicInteger cursor = new AtomicInteger(0);
+		List<Worker> workers = new ArrayList<>(N);
+		List<BfsNode<STATE>> next;
+		int size = 0;
+
+		for (int i = 0; i < N; i++)
+			workers.add(new Worker(frontier, cursor, chunkSize));
+		try {
+			for (Future<Void> future : pool.invokeAll(workers))
+				future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(
+					"Interrupted while expanding level " + numLevels, e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IllegalStateException(cause);
+		}
+		for (Worker worker : workers)
+			size += worker.output.size();
+		next = new ArrayList<>(size);
+		for (Worker worker : workers) {
+			next.addAll(worker.output);
+			numStatesSeen += worker.output.size();
+			numTransitions += worker.numTransitions;
+			numStatesMatched += worker.numStatesMatched;
+		}
+		return next;
+	}
+
+	/**
+	 * A worker thread expanding chunks of a level.
+	 */
+	private class Worker implements Callable<Void> {
+
+		private final List<BfsNode<STATE>> frontier;
+
+		private final AtomicInteger cursor;
+
+		private final int chunkSize;
+
+		/**
+		 * The new nodes inserted by this worker, i.e., its part of the next
+		 * level.
+		 */
+		final List<BfsNode<STATE>> output = new ArrayList<>();
+
+		int numTransitions = 0;
+
+		int numStatesMatched = 0;
+
+		Worker(List<BfsNode<STATE>> frontier, AtomicInteger cursor,
+				int chunkSize) {
+			this.frontier = frontier;
+			this.cursor = cursor;
+			this.chunkSize = chunkSize;
+		}
+
+		@Override
+		public Void call() {
+			int size = frontier.size();
+
+			while (violation.get() == null) {
+				int start = cursor.getAndAdd(chunkSize);
+
+				if (start >= size)
+					break;
+				for (int i = start, end = Math.min(size,
+						start + chunkSize); i < end; i++)
+					expand(frontier.get(i));
+			}
+			return null;
+		}
+
+		/**
+		 * Computes the successors of a node. The ample set is explored first;
+		 * if one of its successors is not new, the ample set complement is
+		 * explored as well.
+		 */
+		private void expand(BfsNode<STATE> node) {
+			STATE state = node.state;
+			Collection<TRANSITION> ampleSet = enabler.ampleSet(state);
+			boolean allNew = true;
+			int tid = 0;
+
+			for (TRANSITION transition : ampleSet)
+				allNew &= successor(node, transition, tid++);
+			if (!allNew) {
+				for (TRANSITION transition : enabler
+						.ampleSetComplement(state, ampleSet))
+					successor(node, transition, tid++);
+			}
+		}
+
+		/**
+		 * Computes a successor of a node and inserts it in the visited set.
+		 *
+		 * @return true iff the successor has been inserted by this call
+		 */
+		private boolean successor(BfsNode<STATE> node, TRANSITION transition,
+				int tid) {
+			STATE newState = manager.nextState(node.state, transition)
+					.getFinalState();
+
+			numTransitions++;
+			if (visited.containsKey(newState)) {
+				numStatesMatched++;
+				return false;
+			}
+
+			STATE normalizedState = manager.normalize(newState);
+			BfsNode<STATE> newNode = new BfsNode<>(normalizedState, node, tid);
+			BfsNode<STATE> old = visited.putIfAbsent(normalizedState, newNode);
+
+			if (normalizedState != newState)
+				visited.putIfAbsent(newState, old == null ? newNode : old);
+			if (old != null) {
+				numStatesMatched++;
+				return false;
+			}
+			output.add(newNode);
+			if (predicate.holdsAt(normalizedState))
+				violation.compareAndSet(null, newNode);
+			return true;
+		}
+	}
+
+	/**
+	 * Returns the state satisfying the predicate if the search returned true,
+	 * otherwise null.
+	 */
+	public STATE currentState() {
+		BfsNode<STATE> node = violation.get();
+
+		return node == null ? null : node.state;
+	}
+
+	/**
+	 * @return the number of states on the trace from the initial state to the
+	 *         state satisfying the predicate, or 0 if there is none
+	 */
+	@Override
+	public int traceLength() {
+		int length = 0;
+
+		for (BfsNode<STATE> node = violation.get(); node != null; node = node.parent)
+			length++;
+		return length;
+	}
+
+	/**
+	 * Write the trace from the initial state to the state satisfying the
+	 * predicate in the condensed form of
+	 * {@link edu.udel.cis.vsl.gmc.seq.DfsSearcher#writeStack(PrintStream)},
+	 * that can be used to replay the trace later. The last state of the trace
+	 * has no transition, which is written as index -1.
+	 *
+	 * @param stream
+	 *            stream to which to write the trace
+	 */
+	@Override
+	public void writeStack(PrintStream stream) {
+		int size = traceLength();
+		int[] trace = new int[size];
+		BfsNode<STATE> node = violation.get();
+
+		if (size > 0) {
+			trace[size - 1] = -1;
+			for (int i = size - 2; i >= 0; i--) {
+				trace[i] = node.tid;
+				node = node.parent;
+			}
+		}
+		Utils.writeTrace(stream, trace);
+	}
+
+	/**
+	 * The number of states seen in this search.
+	 *
+	 * @return the number of states seen so far
+	 */
+	public int totalNumStatesSeen() {
+		return numStatesSeen;
+	}
+
+	/**
+	 * The number of transitions executed in the course of this search so far.
+	 *
+	 * @return the number of transitions executed.
+	 */
+	public int totalNumTransitions() {
+		return numTransitions;
+	}
+
+	/**
+	 * The number of states matched so far. A state is "matched" when the search
+	 * determines the state has been seen before, earlier in the search.
+	 *
+	 * @return the number of states matched
+	 */
+	public int totalNumStatesMatched() {
+		return numStatesMatched;
+	}
+
+	/**
+	 * @return the number of levels which have been expanded
+	 */
+	public int numLevels() {
+		return numLevels;
+	}
+}
@@ -0,0 +1,29 @@
+package edu.udel.cis.vsl.gmc.concurrent;
+
+/**
+ * This enumeration tells how a search of a {@link ConcurrentDfsSearcher}
+ * ended.
+ * <ul>
+ * <li>COMPLETED means that all the reachable states have been explored
+ * without finding a violation.</li>
+ * <li>VIOLATION means that a state satisfying the predicate has been
+ * found.</li>
+ * <li>CYCLE means that a cycle has been found, and cycles are reported as
+ * violations.</li>
+ * <li>TRUNCATED means that the search has exceeded its time or state
+ * budget.</li>
+ * <li>CANCELLED means that the search has been stopped by
+ * {@link ConcurrentDfsSearcher#stop()}.</li>
+ * </ul>
+ */
+public enum SearchResult {
+	COMPLETED, VIOLATION, CYCLE, TRUNCATED, CANCELLED;
+
+	/**
+	 * @return true iff the search has found a violation, i.e., a state
+	 *         satisfying the predicate or a cycle
+	 */
+	public boolean isViolation() {
+		return this == VIOLATION || this == CYCLE;
+	}
+}
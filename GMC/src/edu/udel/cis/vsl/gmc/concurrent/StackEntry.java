@@ -1,7 +1,9 @@
 package edu.udel.cis.vsl.gmc.concurrent;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -10,6 +12,13 @@ import java.util.concurrent.atomic.AtomicInteger;
  * The stack entry also serves as the iterator of the ample set or ample set
  * complement of the source {@code state}.
  * 
+ * <p>
+ * The transitions of an entry which remain to be explored may be split off
+ * into a new entry, explored by another task (see {@link #split()}). The
+ * entries sharing the transitions of a state are its parts, and the state is
+ * fully explored when all its parts are done (see {@link #finish()}).
+ * </p>
+ * 
  * @author Yihao Yan (yanyihao)
  *
  */
@@ -60,7 +69,12 @@ public class StackEntry<STATE, TRANSITION> implements Iterator<TRANSITION> {
 	 */
 	private boolean expand = true;
 
-	private AtomicInteger childrenThreadsCounter = new AtomicInteger(0);
+	/**
+	 * The number of parts of the transitions of this entry which have not
+	 * been finished, shared by the parts, or null if the entry has never been
+	 * split.
+	 */
+	private AtomicInteger parts = null;
 
 	/**
 	 * @param node
@@ -72,6 +86,22 @@ public class StackEntry<STATE, TRANSITION> implements Iterator<TRANSITION> {
 	 */
 	public StackEntry(ConcurrentNode<STATE> node,
 			Collection<TRANSITION> transitions, boolean full) {
+		this(node, transitions, full, 0);
+	}
+
+	/**
+	 * @param node
+	 *            The node that wraps the source state.
+	 * @param transitions
+	 *            The ample set or ample set complement of the source state, or
+	 *            a part of them.
+	 * @param full
+	 *            Whether the collection is ample set complement or not.
+	 * @param tid
+	 *            the index of the first transition of {@code transitions}
+	 */
+	StackEntry(ConcurrentNode<STATE> node, Collection<TRANSITION> transitions,
+			boolean full, int tid) {
 		this.node = node;
 		this.transitions = transitions;
 		this.transitionIterator = transitions.iterator();
@@ -79,7 +109,7 @@ public class StackEntry<STATE, TRANSITION> implements Iterator<TRANSITION> {
 		this.current = transitionIterator.hasNext()
 				? transitionIterator.next()
 				: null;
-		tid = 0;
+		this.tid = tid;
 	}
 
 	/**
@@ -110,6 +140,10 @@ public class StackEntry<STATE, TRANSITION> implements Iterator<TRANSITION> {
 		return result;
 	}
 
+	/**
+	 * @return the index of the current transition, i.e., one more than the
+	 *         index of the last transition returned by {@link #next()}
+	 */
 	public int getTid() {
 		return tid;
 	}
@@ -163,11 +197,42 @@ public class StackEntry<STATE, TRANSITION> implements Iterator<TRANSITION> {
 		this.expand = expand;
 	}
 
-	public AtomicInteger getChildrenThreadsCounter() {
-		return childrenThreadsCounter;
+	/**
+	 * Moves the transitions of this entry which remain to be explored into a
+	 * new entry for the same state, which never asks for the state to be
+	 * fully expanded. This entry is left without transitions to explore.
+	 * 
+	 * @return the new part of this entry
+	 */
+	StackEntry<STATE, TRANSITION> split() {
+		int first = tid;
+		List<TRANSITION> rest = new ArrayList<>();
+		StackEntry<STATE, TRANSITION> result;
+
+		// the index of the current transition stays the one of the last
+		// transition taken by this entry, which is on the traces:
+		if (current != null) {
+			rest.add(current);
+			transitionIterator.forEachRemaining(rest::add);
+			current = null;
+		}
+		if (parts == null)
+			parts = new AtomicInteger(1);
+		parts.incrementAndGet();
+		result = new StackEntry<>(node, rest, full, first);
+		result.parts = parts;
+		result.expand = false;
+		return result;
 	}
 
-	public void incrementCounter() {
-		childrenThreadsCounter.incrementAndGet();
+	/**
+	 * Records that the transitions of this entry have all been explored.
+	 * 
+	 * @return true iff all the parts of the transitions of the state are
+	 *         done, i.e., this entry has never been split or it is the last
+	 *         of its parts to finish
+	 */
+	boolean finish() {
+		return parts == null || parts.decrementAndGet() == 0;
 	}
 }
@@ -0,0 +1,101 @@
+package edu.udel.cis.vsl.gmc.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * A fixed number of counters, with one stripe of them per worker of a
+ * concurrent search. A worker only adds to its own stripe, and the stripes are
+ * padded so that no two of them share a cache line: counting never makes the
+ * workers contend, and never invalidates the cache of another worker. A total
+ * is the sum of the stripes, computed when it is read.
+ * </p>
+ *
+ * <p>
+ * Each stripe must have a single writer at a time: the counts are added
+ * without atomic read-modify-write, and only published with an ordered write.
+ * A reader may thus see a total which lags behind the workers by a few counts,
+ * but never a count which was not added.
+ * </p>
+ */
+final class StripedCounters {
+
+	/**
+	 * The number of longs before and after the counters of a stripe: 128
+	 * bytes, i.e., two cache lines of most processors, since some of them
+	 * prefetch lines by pairs.
+	 */
+	private static final int PADDING = 16;
+
+	/**
+	 * The number of counters of each stripe.
+	 */
+	private final int numCounters;
+
+	/**
+	 * The distance between the first counters of two consecutive stripes.
+	 */
+	private final int stride;
+
+	private final AtomicLongArray counts;
+
+	/**
+	 * @param numStripes
+	 *            the number of stripes, i.e., of workers, which are numbered
+	 *            from 0
+	 * @param numCounters
+	 *            the number of counters of each stripe
+	 */
+	StripedCounters(int numStripes, int numCounters) {
+		if (numStripes <= 0)
+			throw new IllegalArgumentException(
+					"Number of stripes is not positive: " + numStripes);
+		if (numCounters <= 0)
+			throw new IllegalArgumentException(
+					"Number of counters is not positive: " + numCounters);
+		this.numCounters = numCounters;
+		this.stride = numCounters + PADDING;
+		this.counts = new AtomicLongArray(PADDING + numStripes * stride);
+	}
+
+	/**
+	 * Adds to a counter of a stripe. Must only be called by the worker owning
+	 * the stripe.
+	 *
+	 * @param stripe
+	 *            the number of the worker
+	 * @param counter
+	 *            the index of the counter
+	 * @param delta
+	 *            the value to add
+	 */
+	void add(int stripe, int counter, long delta) {
+		int index = PADDING + stripe * stride + counter;
+
+		counts.lazySet(index, counts.get(index) + delta);
+	}
+
+	/**
+	 * @param counter
+	 *            the index of the counter
+	 * @return the sum of the counter over all the stripes
+	 */
+	long sum(int counter) {
+		long result = 0;
+
+		if (counter < 0 || counter >= numCounters)
+			throw new IndexOutOfBoundsException("No counter " + counter);
+		for (int i = PADDING + counter; i < counts.length(); i += stride)
+			result += counts.get(i);
+		return result;
+	}
+
+	/**
+	 * Resets all the counters; must not be called while a worker adds to
+	 * them.
+	 */
+	void reset() {
+		for (int i = 0; i < counts.length(); i++)
+			counts.set(i, 0);
+	}
+}
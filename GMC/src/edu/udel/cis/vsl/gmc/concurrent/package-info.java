@@ -9,7 +9,11 @@
  * </p>
  * <ul>
  * <li><strong>Concurrent depth first searcher</strong> of an arbitrary
- * state-transition system</li>
+ * state-transition system, whose workers balance the load by splitting their
+ * stacks, and whose metrics can be read while it runs without making the
+ * workers contend</li>
+ * <li><strong>Level-synchronous parallel breadth first searcher</strong>,
+ * which finds shortest counterexamples</li>
  * </ul>
  * 
  * @author yanyihao
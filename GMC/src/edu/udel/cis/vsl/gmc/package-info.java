@@ -14,6 +14,8 @@
  * simulation run.</li>
  * <li><strong>Trace</strong></li> represents a trace of an execution of a given
  * model.
+ * <li><strong>SearchMonitor</strong> to sample the metrics of a running search
+ * and pass them to listeners.</li>
  * </ul>
  * 
  * @author yanyihao
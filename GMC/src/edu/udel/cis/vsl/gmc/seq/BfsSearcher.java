@@ -0,0 +1,489 @@
+package edu.udel.cis.vsl.gmc.seq;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collection;
+
+import edu.udel.cis.vsl.gmc.GMCConfiguration;
+import edu.udel.cis.vsl.gmc.StatePredicateIF;
+import edu.udel.cis.vsl.gmc.TraceStepIF;
+import edu.udel.cis.vsl.gmc.TraceWriterIF;
+import edu.udel.cis.vsl.gmc.util.ObjectIntMap;
+import edu.udel.cis.vsl.gmc.util.Utils;
+
+/**
+ * <p>
+ * A BfsSearcher performs a breadth-first search of the state space of a
+ * transition system, stopping immediately if it finds a state satisfying the
+ * given predicate. It takes the same enabler, state manager and predicate as a
+ * {@link DfsSearcher}. Since the states are explored level by level, the first
+ * state found satisfying the predicate is at a minimal distance from the
+ * initial state, so a shortest counterexample is found in a single pass,
+ * without the repeated searches of {@link DfsSearcher#setMinimize(boolean)}.
+ * </p>
+ *
+ * <p>
+ * Each state is given an id in the order in which it is discovered, which is
+ * the breadth-first order. Hence the frontier queue is just the range of ids
+ * which have not been expanded yet, and the search tree is kept as two int
+ * arrays indexed by id: the id of the parent of each state and the index of
+ * the transition leading to it from its parent. The trace to a state is
+ * written in the format of {@link DfsSearcher#writeStack(PrintStream)}, so it
+ * can be replayed by a {@link edu.udel.cis.vsl.gmc.GuidedTransitionChooser}.
+ * </p>
+ *
+ * <p>
+ * Partial order reduction uses the ample sets of the enabler with the
+ * breadth-first version of the cycle proviso: the ample set of a state is only
+ * used if all its successors through the ample set are new states. Otherwise
+ * the state is fully expanded. A counterexample is shortest in the reduced
+ * state space.
+ * </p>
+ *
+ * <p>
+ * Note that the STATE that this searcher use MUST override
+ * {@link Object#hashCode()} and {@link Object#equals(Object)} methods, see
+ * {@link DfsSearcher}.
+ * </p>
+ */
+public class BfsSearcher<STATE, TRANSITION> implements TraceWriterIF {
+
+	/**
+	 * The initial capacity of the arrays indexed by id.
+	 */
+	private static final int INITIAL_CAPACITY = 1 << 10;
+
+	/**
+	 * The id of the parent of the initial state.
+	 */
+	private static final int NO_PARENT = -1;
+
+	/**
+	 * The enabler, used to determine the set of enabled transitions at any
+	 * state, among other things.
+	 */
+	private EnablerIF<STATE, TRANSITION> enabler;
+
+	/**
+	 * The state manager, used to determine the next state, given a state and
+	 * transition. Also used for other state management issues.
+	 */
+	private StateManager<STATE, TRANSITION> manager;
+
+	/**
+	 * The predicate on states. This searching is searching for state that
+	 * satisfies this predicate. Typically, this predicate describes something
+	 * "bad", like deadlock.
+	 */
+	private StatePredicateIF<STATE> predicate;
+
+	/**
+	 * Maps each STATE, normalized or not, to the id of its normalized state.
+	 */
+	private ObjectIntMap<STATE> idMap = new ObjectIntMap<>(INITIAL_CAPACITY);
+
+	/**
+	 * The normalized state of each id.
+	 */
+	private Object[] states = new Object[INITIAL_CAPACITY];
+
+	/**
+	 * The id of the parent of each id in the breadth-first search tree.
+	 */
+	private int[] parents = new int[INITIAL_CAPACITY];
+
+	/**
+	 * The index of the transition leading from the parent of each id to it.
+	 * The transitions of the ample set come first, followed by the transitions
+	 * of the ample set complement.
+	 */
+	private int[] tids = new int[INITIAL_CAPACITY];
+
+	/**
+	 * The number of ids given so far.
+	 */
+	private int numStates = 0;
+
+	/**
+	 * The id of the next state to be expanded; the ids from this one to
+	 * {@link #numStates} form the frontier queue.
+	 */
+	private int next = 0;
+
+	/**
+	 * The id of the current state, i.e., the last state taken from the queue,
+	 * or -1 if there is none.
+	 */
+	private int current = -1;
+
+	/**
+	 * Whether the current state satisfies the predicate and has not been
+	 * expanded yet. It is expanded when the search is resumed.
+	 */
+	private boolean expandCurrent = false;
+
+	/**
+	 * The number of transitions executed since the beginning of the search.
+	 */
+	private int numTransitions = 0;
+
+	/**
+	 * The number of states encountered which are recognized as having already
+	 * been seen earlier in the search.
+	 */
+	private int numStatesMatched = 0;
+
+	/**
+	 * Where to print debugging output, if debugging is turned on.
+	 */
+	private PrintStream debugOut;
+
+	/**
+	 * Should we print debugging output?
+	 */
+	private boolean debugging = false;
+
+	/**
+	 * Should the trace steps be printed by the state manager? True iff the
+	 * configuration asks for the transitions to be printed and is not quiet.
+	 */
+	private boolean printTransitions = false;
+
+	/**
+	 * A name to give this searcher, used only for printing out messages about
+	 * the search, such as in debugging.
+	 */
+	private String name = null;
+
+	/**
+	 * Constructs a new breadth first searcher.
+	 *
+	 * @param enabler
+	 *            the enabler used to determine the set of enabled transitions
+	 *            at each state in the course of this search
+	 * @param manager
+	 *            the object used to manage states, compute the next state from
+	 *            a current state and transition, and so, during this search
+	 * @param predicate
+	 *            the state predicate -- this will be checked at each state
+	 *            encountered in the search, and if it is found to hold, the
+	 *            search method will return; hence it is usually a predicate
+	 *            about something "bad", like a deadlock
+	 * @param gmcConfig
+	 *            the configuration of the search; the storage modes of the
+	 *            visited states do not apply to this searcher
+	 * @param debugOut
+	 *            if null, deubgging output is not printed, otherwise debugging
+	 *            output will be printing to this stream
+	 */
+	public BfsSearcher(EnablerIF<STATE, TRANSITION> enabler,
+			StateManager<STATE, TRANSITION> manager,
+			StatePredicateIF<STATE> predicate, GMCConfiguration gmcConfig,
+			PrintStream debugOut) {
+		if (enabler == null) {
+			throw new NullPointerException("null enabler");
+		}
+		if (manager == null) {
+			throw new NullPointerException("null manager");
+		}
+		this.enabler = enabler;
+		this.manager = manager;
+		this.predicate = predicate;
+		this.debugOut = debugOut;
+		if (debugOut != null) {
+			this.debugging = true;
+		}
+		this.printTransitions = gmcConfig.printTransitions()
+				&& !gmcConfig.isQuiet();
+	}
+
+	public BfsSearcher(EnablerIF<STATE, TRANSITION> enabler,
+			StateManager<STATE, TRANSITION> manager,
+			StatePredicateIF<STATE> predicate, GMCConfiguration gmcConfig) {
+		this(enabler, manager, predicate, gmcConfig, null);
+	}
+
+	public StatePredicateIF<STATE> predicate() {
+		return predicate;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String name() {
+		return name;
+	}
+
+	/**
+	 * Returns the current state, i.e., the state satisfying the predicate if
+	 * the last search returned true.
+	 */
+	public STATE currentState() {
+		return current < 0 ? null : state(current);
+	}
+
+	/**
+	 * Performs a breadth-first search starting from the given state.
+	 *
+	 * @return true if a state is found that satisfies the predicate, in which
+	 *         case method {@link #currentState} can be used to get the state.
+	 *         If false is returned, the search has completed without finding a
+	 *         state satisfying the predicate.
+	 */
+	public boolean search(STATE initialState) {
+		int id = idMap.get(initialState);
+
+		if (id == ObjectIntMap.ABSENT)
+			newId(initialState, NO_PARENT, -1);
+		if (debugging) {
+			debugOut.println("Enqueued initial state of " + name + ":\n");
+			manager.printStateLong(debugOut, initialState);
+			debugOut.println();
+			debugOut.flush();
+		}
+		return search();
+	}
+
+	/**
+	 * Resumes the breadth-first search. The states are taken from the queue
+	 * and checked against the predicate in breadth-first order. If the
+	 * predicate holds at a state, this returns true and the state becomes the
+	 * current state; calling this method again expands that state and goes on
+	 * with the search.
+	 *
+	 * @return true if state is found which satisfies predicate. false if search
+	 *         completes without finding such a state.
+	 */
+	public boolean search() {
+		if (expandCurrent) {
+			expandCurrent = false;
+			expand(current);
+		}
+		while (next < numStates) {
+			current = next++;
+			if (predicate.holdsAt(state(current))) {
+				debug("Predicate " + predicate + " holds at current state of "
+						+ name + ": terminating search.\n");
+				expandCurrent = true;
+				return true;
+			}
+			expand(current);
+		}
+		debug("Search complete: predicate " + predicate
+				+ " does not hold at " + "any reachable state of " + name
+				+ ".\n");
+		return false;
+	}
+
+	/**
+	 * Computes the successors of a state and adds the new ones to the queue.
+	 * The ample set is explored first; if one of its successors was already
+	 * seen, the ample set complement is explored as well.
+	 *
+	 * @param id
+	 *            the id of the state to expand
+	 */
+	private void expand(int id) {
+		STATE state = state(id);
+		Collection<TRANSITION> ampleSet = enabler.ampleSet(state);
+		int firstNew = numStates;
+		boolean allNew = true;
+		int tid = 0;
+
+		for (TRANSITION transition : ampleSet)
+			allNew &= successor(id, state, transition, tid++) >= firstNew;
+		if (!allNew) {
+			for (TRANSITION transition : enabler.ampleSetComplement(state,
+					ampleSet))
+				successor(id, state, transition, tid++);
+		}
+	}
+
+	/**
+	 * Computes a successor of a state and adds it to the queue if it is new.
+	 *
+	 * @param id
+	 *            the id of the source state
+	 * @param state
+	 *            the source state
+	 * @param transition
+	 *            a transition enabled at the source state
+	 * @param tid
+	 *            the index of the transition
+	 * @return the id of the successor
+	 */
+	private int successor(int id, STATE state, TRANSITION transition,
+			int tid) {
+		TraceStepIF<STATE> traceStep = manager.nextState(state, transition);
+		STATE newState = traceStep.getFinalState();
+		int newId = idMap.get(newState);
+
+		// Let manager print the trace step (exclude final state):
+		if (printTransitions)
+			manager.printTraceStep(state, traceStep);
+		numTransitions++;
+		if (newId == ObjectIntMap.ABSENT) {
+			manager.normalize(traceStep);
+
+			STATE normalizedState = traceStep.getFinalState();
+
+			if (normalizedState != newState) {
+				newId = idMap.get(normalizedState);
+				if (newId == ObjectIntMap.ABSENT)
+					newId = newId(normalizedState, id, tid);
+				else
+					numStatesMatched++;
+				idMap.put(newState, newId);
+			} else
+				newId = newId(newState, id, tid);
+		} else
+			numStatesMatched++;
+		// Let manager print the final state of the trace step:
+		if (printTransitions)
+			manager.printTraceStepFinalState(state(newId), newId);
+		return newId;
+	}
+
+	@SuppressWarnings("unchecked")
+	private STATE state(int id) {
+		return (STATE) states[id];
+	}
+
+	/**
+	 * Gives the next id to a new normalized state, which puts it at the end of
+	 * the queue.
+	 */
+	private int newId(STATE normalizedState, int parent, int tid) {
+		int id = numStates++;
+
+		if (id == states.length) {
+			states = Arrays.copyOf(states, id << 1);
+			parents = Arrays.copyOf(parents, id << 1);
+			tids = Arrays.copyOf(tids, id << 1);
+		}
+		states[id] = normalizedState;
+		parents[id] = parent;
+		tids[id] = tid;
+		idMap.put(normalizedState, id);
+		if (debugging) {
+			debugOut.println("New state of " + name + " is " + normalizedState
+					+ ":");
+			debugOut.println();
+			manager.printStateLong(debugOut, normalizedState);
+			debugOut.println();
+			debugOut.flush();
+		}
+		return id;
+	}
+
+	/**
+	 * @return the number of states on the trace from the initial state to the
+	 *         current state, or 0 if there is no current state
+	 */
+	@Override
+	public int traceLength() {
+		int length = 0;
+
+		for (int id = current; id >= 0; id = parents[id])
+			length++;
+		return length;
+	}
+
+	/**
+	 * Write the trace from the initial state to the current state in the
+	 * condensed form of {@link DfsSearcher#writeStack(PrintStream)}, that can
+	 * be used to replay the trace later. The last state of the trace has no
+	 * transition, which is written as index -1.
+	 *
+	 * @param stream
+	 *            stream to which to write the trace
+	 */
+	@Override
+	public void writeStack(PrintStream stream) {
+		int size = traceLength();
+		int[] trace = new int[size];
+
+		if (size > 0) {
+			int id = current;
+
+			trace[size - 1] = -1;
+			for (int i = size - 2; i >= 0; i--) {
+				trace[i] = tids[id];
+				id = parents[id];
+			}
+		}
+		Utils.writeTrace(stream, trace);
+	}
+
+	/**
+	 * Prints a debugging message, if debugging is turned on.
+	 */
+	protected void debug(String s) {
+		if (debugging) {
+			debugOut.println(s);
+			debugOut.flush();
+		}
+	}
+
+	/**
+	 * Set the debugging flag to the given value. If true, debugging output will
+	 * be printed to the debug stream.
+	 */
+	public void setDebugging(boolean value) {
+		debugging = value && debugOut != null;
+	}
+
+	public boolean debugging() {
+		return debugging;
+	}
+
+	/**
+	 * The number of states seen in this search.
+	 *
+	 * @return the number of states seen so far
+	 */
+	public int numStatesSeen() {
+		return numStates;
+	}
+
+	/**
+	 * The number of transitions executed in the course of this search so far.
+	 *
+	 * @return the number of transitions executed.
+	 */
+	public int numTransitions() {
+		return numTransitions;
+	}
+
+	/**
+	 * The number of states matched so far. A state is "matched" when the search
+	 * determines the state has been seen before, earlier in the search.
+	 *
+	 * @return the number of states matched
+	 */
+	public int numStatesMatched() {
+		return numStatesMatched;
+	}
+
+	/**
+	 * @return the number of states in the queue, waiting to be expanded
+	 */
+	public int frontierSize() {
+		return numStates - next;
+	}
+
+	/**
+	 * Summarizes the current state of the search in a human-readable form
+	 * printed to the given stream.
+	 *
+	 * @param out
+	 *            the stream to which to print the information
+	 */
+	public void printSummary(PrintStream out) {
+		out.println("Number of states seen:    " + numStates);
+		out.println("Number of transitions:   " + numTransitions);
+		out.println("Number of states matched: " + numStatesMatched + "\n");
+		out.flush();
+	}
+}
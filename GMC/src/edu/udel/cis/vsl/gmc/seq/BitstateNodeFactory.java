@@ -0,0 +1,261 @@
+package edu.udel.cis.vsl.gmc.seq;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import edu.udel.cis.vsl.gmc.util.Utils;
+
+/**
+ * <p>
+ * A {@link CompactNodeFactory} implementing bitstate (supertrace) hashing. Each
+ * visited state is recorded as k bits in a preallocated bit array, so the
+ * memory used for the visited states is fixed no matter how many states are
+ * explored. Only the states on the DFS stack are kept in full.
+ * </p>
+ *
+ * <p>
+ * The search is partial: two different states may set the same k bits, in
+ * which case the second one is wrongly considered as seen and is not explored.
+ * The probability of this happening is estimated as the search goes on, see
+ * {@link #omissionProbability()} and {@link #expectedOmissions()}.
+ * </p>
+ */
+public class BitstateNodeFactory<STATE, TRANSITION>
+		extends
+			CompactNodeFactory<STATE, TRANSITION> {
+
+	/**
+	 * The minimum number of bits of the bit array.
+	 */
+	private static final long MIN_SIZE = 64;
+
+	/**
+	 * The maximum number of bits of the bit array, i.e., 8GB.
+	 */
+	private static final long MAX_SIZE = 1L << 36;
+
+	/**
+	 * The bit array.
+	 */
+	private long[] bits;
+
+	/**
+	 * The number of bits of {@link #bits}, minus one. The number of bits is a
+	 * power of 2, so this is used as a mask.
+	 */
+	private long mask;
+
+	/**
+	 * The number of bits set for each state.
+	 */
+	private int numHashes;
+
+	/**
+	 * The seed of the hash functions; 0 means the fingerprint of the state is
+	 * used as it is.
+	 */
+	private long seed;
+
+	/**
+	 * The number of bits of {@link #bits} which are set.
+	 */
+	private long numBitsSet = 0;
+
+	/**
+	 * The number of states recorded in {@link #bits}.
+	 */
+	private int numStates = 0;
+
+	/**
+	 * The sum, over all the states recorded, of the probability that the state
+	 * would have been wrongly matched at the time it was recorded.
+	 */
+	private double expectedOmissions = 0.0;
+
+	/**
+	 * @param stateManager
+	 *            the state manager used to normalize states
+	 * @param size
+	 *            the number of bits of the bit array; rounded up to a power of
+	 *            2 between 64 and 2<sup>36</sup>
+	 * @param numHashes
+	 *            the number of bits set for each state; must be positive
+	 */
+	public BitstateNodeFactory(StateManager<STATE, TRANSITION> stateManager,
+			long size, int numHashes) {
+		this(stateManager, size, numHashes, 0);
+	}
+
+	/**
+	 * @param stateManager
+	 *            the state manager used to normalize states
+	 * @param size
+	 *            the number of bits of the bit array; rounded up to a power of
+	 *            2 between 64 and 2<sup>36</sup>
+	 * @param numHashes
+	 *            the number of bits set for each state; must be positive
+	 * @param seed
+	 *            the seed of the hash functions; factories with different
+	 *            seeds wrongly match different states, which diversifies
+	 *            independent searches
+	 */
+	public BitstateNodeFactory(StateManager<STATE, TRANSITION> stateManager,
+			long size, int numHashes, long seed) {
+		super(stateManager);
+		if (size > MAX_SIZE)
+			throw new IllegalArgumentException(
+					"Bitstate size is greater than " + MAX_SIZE + ": " + size);
+		if (numHashes <= 0)
+			throw new IllegalArgumentException(
+					"Number of bitstate hashes is not positive: " + numHashes);
+
+		long numBits = MIN_SIZE;
+
+		while (numBits < size)
+			numBits <<= 1;
+		this.bits = new long[(int) (numBits >>> 6)];
+		this.mask = numBits - 1;
+		this.numHashes = numHashes;
+		this.seed = seed;
+	}
+
+	/**
+	 * The first hash of the state, which is its fingerprint; the k bit indexes
+	 * are derived from it and {@link #hash2(long)} by double hashing.
+	 */
+	private long hash1(STATE state) {
+		long fingerprint = stateManager().fingerprint(state);
+
+		return seed == 0 ? fingerprint : Utils.mix64(fingerprint ^ seed);
+	}
+
+	/**
+	 * The second hash of the state, always odd.
+	 */
+	private long hash2(long hash1) {
+		return Utils.mix64(hash1) | 1;
+	}
+
+	@Override
+	protected void visit(STATE state) {
+		long h1 = hash1(state), h2 = hash2(h1);
+
+		expectedOmissions += omissionProbability();
+		for (int i = 0; i < numHashes; i++) {
+			long index = (h1 + i * h2) & mask;
+			int word = (int) (index >>> 6);
+			long bit = 1L << index;
+
+			if ((bits[word] & bit) == 0) {
+				bits[word] |= bit;
+				numBitsSet++;
+			}
+		}
+		numStates++;
+	}
+
+	@Override
+	protected boolean visited(STATE state) {
+		long h1 = hash1(state), h2 = hash2(h1);
+
+		for (int i = 0; i < numHashes; i++) {
+			long index = (h1 + i * h2) & mask;
+
+			if ((bits[(int) (index >>> 6)] & (1L << index)) == 0)
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	protected int numVisited() {
+		return numStates;
+	}
+
+	@Override
+	public long estimatedBytes() {
+		return 8L * bits.length;
+	}
+
+	@Override
+	protected Snapshot snapshotVisited() {
+		long[] bitsCopy = bits.clone();
+		long size = size(), bitsSet = numBitsSet;
+		int hashes = numHashes, states = numStates;
+		double omissions = expectedOmissions;
+
+		return out -> {
+			out.writeLong(size);
+			out.writeInt(hashes);
+			out.writeLong(seed);
+			out.writeLong(bitsSet);
+			out.writeInt(states);
+			out.writeDouble(omissions);
+			for (long word : bitsCopy)
+				out.writeLong(word);
+		};
+	}
+
+	/**
+	 * The bit array must have the same size and hash functions as the one
+	 * which was written.
+	 */
+	@Override
+	protected void restoreVisited(DataInput in) throws IOException {
+		long size = in.readLong();
+		int hashes = in.readInt();
+		long checkpointSeed = in.readLong();
+
+		if (size != size() || hashes != numHashes || checkpointSeed != seed)
+			throw new IOException("Checkpoint of a bit array of " + size
+					+ " bits with " + hashes + " hash functions and seed "
+					+ checkpointSeed + " cannot be restored to a bit array of "
+					+ size() + " bits with " + numHashes
+					+ " hash functions and seed " + seed);
+		numBitsSet = in.readLong();
+		numStates = in.readInt();
+		expectedOmissions = in.readDouble();
+		for (int i = 0; i < bits.length; i++)
+			bits[i] = in.readLong();
+	}
+
+	/**
+	 * @return the number of bits of the bit array
+	 */
+	public long size() {
+		return mask + 1;
+	}
+
+	/**
+	 * The probability that a new state is wrongly considered as seen, given
+	 * the current fill ratio of the bit array: (bits set / size)<sup>k</sup>.
+	 *
+	 * @return the current probability of omitting a new state
+	 */
+	public double omissionProbability() {
+		return Math.pow((double) numBitsSet / (mask + 1), numHashes);
+	}
+
+	/**
+	 * An estimate of the number of new states that were wrongly considered as
+	 * seen during the search. This does not account for the states which are
+	 * only reachable from the omitted states, so it is a lower bound on the
+	 * number of states missed.
+	 *
+	 * @return the expected number of states omitted so far
+	 */
+	public double expectedOmissions() {
+		return expectedOmissions;
+	}
+
+	@Override
+	public void printSummary(PrintStream out) {
+		out.println("Bitstate size (bits):     " + size());
+		out.println("Bitstate hash functions:  " + numHashes);
+		out.println("Bitstate bits set:        " + numBitsSet);
+		out.println("Omission probability:     " + omissionProbability());
+		out.println("Expected states omitted:  " + expectedOmissions);
+		out.flush();
+	}
+}
@@ -0,0 +1,128 @@
+package edu.udel.cis.vsl.gmc.seq;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+import edu.udel.cis.vsl.gmc.TraceStepIF;
+
+/**
+ * <p>
+ * A {@link SequentialNodeFactory} which keeps a {@link SequentialNode} (and
+ * hence the full state) only for the states that are currently on the DFS
+ * stack. The set of visited states is kept by the subclass in some compact
+ * form, through {@link #visit(Object)} and {@link #visited(Object)}.
+ * </p>
+ *
+ * <p>
+ * A state which is matched in the compact visited set, but which is not on the
+ * stack, is represented by a fresh {@link SequentialNode} which has the seen
+ * flag set, is not on the stack and has id {@link #NOT_SAVED}. Since the depth
+ * of such a state is unknown, searching for a minimal counterexample is not
+ * supported by these factories: {@link DfsSearcher#setMinimize(boolean)}
+ * rejects it.
+ * </p>
+ */
+public abstract class CompactNodeFactory<STATE, TRANSITION>
+		extends
+			SequentialNodeFactory<STATE, TRANSITION> {
+
+	public CompactNodeFactory(StateManager<STATE, TRANSITION> stateManager) {
+		super(stateManager, true);
+	}
+
+	/**
+	 * Records the normalized state as visited.
+	 *
+	 * @param state
+	 *            a normalized state which has just been pushed onto the stack
+	 */
+	protected abstract void visit(STATE state);
+
+	/**
+	 * Is the normalized state recorded as visited?
+	 *
+	 * @param state
+	 *            a normalized state which is not on the stack
+	 * @return true iff the state is (or, for a lossy storage, is believed to
+	 *         be) visited
+	 */
+	protected abstract boolean visited(STATE state);
+
+	/**
+	 * @return the number of states recorded by {@link #visit(Object)}
+	 */
+	protected abstract int numVisited();
+
+	/**
+	 * Copies the compact set of visited states.
+	 */
+	@Override
+	protected abstract Snapshot snapshotVisited();
+
+	@Override
+	protected abstract void restoreVisited(DataInput in) throws IOException;
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>
+	 * The state is normalized each time it is encountered off the stack, since
+	 * the non-normalized states are not remembered.
+	 * </p>
+	 */
+	@Override
+	public SequentialNode<STATE> getNode(TraceStepIF<STATE> traceStep) {
+		STATE state = traceStep.getFinalState();
+		SequentialNode<STATE> result = stackNode(state);
+
+		if (result != null)
+			return result;
+		stateManager().normalize(traceStep);
+		state = traceStep.getFinalState();
+		result = stackNode(state);
+		if (result != null)
+			return result;
+		if (visited(state)) {
+			result = new SequentialNode<STATE>(state, NOT_SAVED);
+			result.setSeen(true);
+		} else
+			result = new SequentialNode<STATE>(state, nextId());
+		return result;
+	}
+
+	/**
+	 * Only the nodes of states on the stack can be looked up.
+	 */
+	@Override
+	public SequentialNode<STATE> getNode(STATE state) {
+		return stackNode(state);
+	}
+
+	@Override
+	public SequentialNode<STATE> getInitialNode(STATE initState) {
+		return new SequentialNode<STATE>(initState, nextId());
+	}
+
+	@Override
+	public void pushed(SequentialNode<STATE> node) {
+		STATE state = node.getState();
+
+		visit(state);
+		addStackNode(node);
+	}
+
+	@Override
+	public void popped(SequentialNode<STATE> node) {
+		removeStackNode(node);
+	}
+
+	@Override
+	protected void restoreStackNode(SequentialNode<STATE> node) {
+		addStackNode(node);
+	}
+
+	@Override
+	public int numOfSearchNodeSaved() {
+		return numVisited();
+	}
+}
@@ -1,12 +1,33 @@
 package edu.udel.cis.vsl.gmc.seq;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Stack;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import edu.udel.cis.vsl.gmc.GMCConfiguration;
+import edu.udel.cis.vsl.gmc.SearchMetrics;
+import edu.udel.cis.vsl.gmc.SearchMonitor;
 import edu.udel.cis.vsl.gmc.StatePredicateIF;
 import edu.udel.cis.vsl.gmc.TraceStepIF;
+import edu.udel.cis.vsl.gmc.TraceWriterIF;
 import edu.udel.cis.vsl.gmc.util.Utils;
 
 /**
@@ -23,11 +44,21 @@ import edu.udel.cis.vsl.gmc.util.Utils;
  * they should be equal. Also the transition that is used by this searcher also
  * needs to implement {@link Object#equals(Object)}.
  * 
+ * <p>
+ * The search can periodically write a checkpoint of its stack, visited states
+ * and counters to a file (see {@link #setCheckpointing(File, long)}), from
+ * which a new searcher can continue it with {@link #resume(File)}. The
+ * checkpoint is copied in memory between two steps of the search, and written
+ * to the file by another thread while the search goes on. It records the
+ * position of each stack entry in the transitions of its state, so the enabler
+ * must give the same transitions in the same order when the search is resumed,
+ * and the state manager must provide a {@link StateSerializer}.
+ * </p>
  * 
  * @author Stephen F. Siegel, University of Delaware
  * @author Yihao Yan (yanyihao)
  */
-public class DfsSearcher<STATE, TRANSITION> {
+public class DfsSearcher<STATE, TRANSITION> implements TraceWriterIF {
 
 	/**
 	 * The enabler, used to determine the set of enabled transitions at any
@@ -35,6 +66,12 @@ public class DfsSearcher<STATE, TRANSITION> {
 	 */
 	private EnablerIF<STATE, TRANSITION> enabler;
 
+	/**
+	 * The enabler if it is a {@link LazyEnablerIF}, or null. The transitions
+	 * of a lazy enabler are generated one at a time, as they are explored.
+	 */
+	private LazyEnablerIF<STATE, TRANSITION> lazyEnabler;
+
 	/**
 	 * The state manager, used to determine the next state, given a state and
 	 * transition. Also used for other state management issues.
@@ -53,12 +90,12 @@ public class DfsSearcher<STATE, TRANSITION> {
 	 * sequence, which encapsulates a state together with the transitions
 	 * enabled at that state which have not yet been completely explored.
 	 */
-	private Stack<StackEntry<STATE, TRANSITION>> stack;
+	private DfsStack<STATE, TRANSITION> stack;
 
 	/**
 	 * This factory is used to get or construct some objects used in the search.
 	 * For example, it is used to get the associated {@link SequentialNode} of a
-	 * {@code state} and construct new instances of {@link StackEntry}.
+	 * {@code state}.
 	 */
 	private SequentialNodeFactory<STATE, TRANSITION> sequentialNodeFactory;
 
@@ -76,18 +113,34 @@ public class DfsSearcher<STATE, TRANSITION> {
 	/**
 	 * The number of transitions executed since the beginning of the search.
 	 */
-	private int numTransitions = 0;
+	private long numTransitions = 0;
 
 	/**
 	 * The number of states encountered which are recognized as having already
 	 * been seen earlier in the search.
 	 */
-	private int numStatesMatched = 0;
+	private long numStatesMatched = 0;
 
 	/**
 	 * The number of states seen in this search.
 	 */
-	private int numStatesSeen = 1;
+	private long numStatesSeen = 1;
+
+	/**
+	 * The number of states which have been fully expanded because their ample
+	 * set did not satisfy the stack proviso.
+	 */
+	private long numFullExpansions = 0;
+
+	/**
+	 * The monitor sampling the metrics of this search, or null.
+	 */
+	private SearchMonitor monitor = null;
+
+	/**
+	 * The epoch of {@link #monitor} when the metrics were last sampled.
+	 */
+	private int monitorEpoch;
 
 	/**
 	 * Where to print debugging output, if debugging is turned on.
@@ -127,8 +180,55 @@ public class DfsSearcher<STATE, TRANSITION> {
 	 */
 	private boolean minimize = false;
 
+	/**
+	 * Should the trace steps be printed by the state manager? True iff the
+	 * configuration asks for the transitions to be printed and is not quiet.
+	 */
 	boolean printTransitions = false;
 
+	/**
+	 * Set by {@link #stop()}, possibly from another thread, to make the search
+	 * return as soon as possible.
+	 */
+	private volatile boolean stopped = false;
+
+	/**
+	 * The first int of a checkpoint file.
+	 */
+	private static final int CHECKPOINT_MAGIC = 0x474d4343;
+
+	/**
+	 * The version of the format of the checkpoint files.
+	 */
+	private static final int CHECKPOINT_VERSION = 2;
+
+	/**
+	 * The file to which the checkpoints are written, or null.
+	 */
+	private File checkpointFile = null;
+
+	/**
+	 * The number of milliseconds between two checkpoints.
+	 */
+	private long checkpointPeriod;
+
+	/**
+	 * The time, as given by {@link System#currentTimeMillis()}, after which
+	 * the next checkpoint is taken.
+	 */
+	private long nextCheckpointTime;
+
+	/**
+	 * The thread writing the checkpoints, created by the first one, and shut
+	 * down by {@link #close()} or when checkpointing is turned off.
+	 */
+	private ExecutorService checkpointWriter = null;
+
+	/**
+	 * The checkpoint being written, or null.
+	 */
+	private Future<?> pendingCheckpoint = null;
+
 	/**
 	 * Constructs a new depth first search searcher.
 	 * 
@@ -151,7 +251,24 @@ public class DfsSearcher<STATE, TRANSITION> {
 			StateManager<STATE, TRANSITION> manager,
 			StatePredicateIF<STATE> predicate, GMCConfiguration gmcConfig,
 			PrintStream debugOut) {
+		this(enabler, manager, predicate, gmcConfig, debugOut, null);
+	}
 
+	/**
+	 * Constructs a new depth first search searcher which stores the visited
+	 * states with the given factory, instead of the one selected by the
+	 * configuration.
+	 * 
+	 * @param nodeFactory
+	 *            the factory storing the visited states, built on
+	 *            {@code manager}; if null, the factory is selected by the
+	 *            storage mode of {@code gmcConfig}
+	 */
+	DfsSearcher(EnablerIF<STATE, TRANSITION> enabler,
+			StateManager<STATE, TRANSITION> manager,
+			StatePredicateIF<STATE> predicate, GMCConfiguration gmcConfig,
+			PrintStream debugOut,
+			SequentialNodeFactory<STATE, TRANSITION> nodeFactory) {
 		if (enabler == null) {
 			throw new NullPointerException("null enabler");
 		}
@@ -159,17 +276,51 @@ public class DfsSearcher<STATE, TRANSITION> {
 			throw new NullPointerException("null manager");
 		}
 		this.enabler = enabler;
+		this.lazyEnabler = enabler instanceof LazyEnablerIF
+				? (LazyEnablerIF<STATE, TRANSITION>) enabler
+				: null;
 		this.manager = manager;
 		this.predicate = predicate;
 		this.debugOut = debugOut;
-		this.sequentialNodeFactory = new SequentialNodeFactory<>(manager,
-				gmcConfig.getSaveStates());
+		this.sequentialNodeFactory = nodeFactory != null
+				? nodeFactory
+				: newNodeFactory(gmcConfig);
 		this.manager.setSequentialNodeFactory(sequentialNodeFactory);
 		if (debugOut != null) {
 			this.debugging = true;
 		}
-		stack = new Stack<>();
-		this.printTransitions = gmcConfig.printTransitions();
+		stack = new DfsStack<>();
+		this.printTransitions = gmcConfig.printTransitions()
+				&& !gmcConfig.isQuiet();
+		if (gmcConfig.getCheckpointFile() != null)
+			setCheckpointing(new File(gmcConfig.getCheckpointFile()),
+					gmcConfig.getCheckpointPeriod() * 1000L);
+	}
+
+	/**
+	 * Creates the factory used to store the visited states, according to the
+	 * storage mode selected in the configuration.
+	 */
+	private SequentialNodeFactory<STATE, TRANSITION> newNodeFactory(
+			GMCConfiguration gmcConfig) {
+		if (gmcConfig.getBitstateSize() > 0)
+			return new BitstateNodeFactory<>(manager,
+					gmcConfig.getBitstateSize(),
+					gmcConfig.getBitstateHashes());
+		if (gmcConfig.getHashCompaction())
+			return new HashCompactionNodeFactory<>(manager);
+		if (gmcConfig.getOffHeapStates()) {
+			StateSerializer<STATE> serializer = manager.getStateSerializer();
+			String fileName = gmcConfig.getOffHeapFile();
+
+			if (serializer == null)
+				throw new IllegalArgumentException(
+						"Off-heap state storage requires a state serializer");
+			return new SerializedNodeFactory<>(manager, serializer,
+					fileName == null ? null : new File(fileName),
+					SerializedNodeFactory.DEFAULT_ARENA_SIZE);
+		}
+		return new SequentialNodeFactory<>(manager, gmcConfig.getSaveStates());
 	}
 
 	public StatePredicateIF<STATE> predicate() {
@@ -213,7 +364,22 @@ public class DfsSearcher<STATE, TRANSITION> {
 		stackIsBounded = true;
 	}
 
+	/**
+	 * Makes the search look for a minimal counterexample, by exploring again
+	 * the states reached by a shorter path.
+	 * 
+	 * @param value
+	 *            true iff counterexamples should be minimized
+	 * @throws IllegalStateException
+	 *             if {@code value} is true and the visited states are stored
+	 *             by a {@link CompactNodeFactory} (bitstate, hash compaction
+	 *             or off-heap storage), which does not record their depth
+	 */
 	public void setMinimize(boolean value) {
+		if (value && sequentialNodeFactory instanceof CompactNodeFactory)
+			throw new IllegalStateException(
+					"Counterexample minimization is not supported with "
+							+ sequentialNodeFactory.getClass().getSimpleName());
 		this.minimize = value;
 	}
 
@@ -244,6 +410,53 @@ public class DfsSearcher<STATE, TRANSITION> {
 		return cycleFound;
 	}
 
+	/**
+	 * Asks the search to stop. This may be called from another thread: the
+	 * search then returns false, without finishing, before exploring another
+	 * state. The stack is left as it was.
+	 */
+	public void stop() {
+		stopped = true;
+	}
+
+	/**
+	 * @return true iff {@link #stop()} has been called
+	 */
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * Waits for the checkpoint being written, if any, stops the thread writing
+	 * the checkpoints, and releases the resources held by the storage of the
+	 * visited states, such as the file of the off-heap storage. Called when
+	 * the search completes; should be called when a search which has been
+	 * stopped, or which has found a violation, will not be resumed. The
+	 * search must not be resumed afterwards.
+	 * 
+	 * @throws UncheckedIOException
+	 *             if the last checkpoint could not be written
+	 */
+	public void close() {
+		try {
+			awaitCheckpoint();
+		} finally {
+			shutDownCheckpointWriter();
+			sequentialNodeFactory.close();
+		}
+	}
+
+	/**
+	 * Lets the thread writing the checkpoints finish the checkpoint being
+	 * written, if any, and end.
+	 */
+	private void shutDownCheckpointWriter() {
+		if (checkpointWriter != null) {
+			checkpointWriter.shutdown();
+			checkpointWriter = null;
+		}
+	}
+
 	/**
 	 * Returns the state at the top of the stack, without modifying the stack.
 	 */
@@ -256,7 +469,7 @@ public class DfsSearcher<STATE, TRANSITION> {
 	}
 
 	/** Returns the stack used to perform the depth first search */
-	public Stack<StackEntry<STATE, TRANSITION>> stack() {
+	public DfsStack<STATE, TRANSITION> stack() {
 		return stack;
 	}
 
@@ -278,12 +491,12 @@ public class DfsSearcher<STATE, TRANSITION> {
 		if (minimize)
 			initialNode.setDepth(0);
 
-		StackEntry<STATE, TRANSITION> stackEntry = sequentialNodeFactory
-				.newStackEntry(initialNode, enabler.ampleSet(initialState), 0);
-
-		stack.push(stackEntry);
+		// as for the other states, the initial state must be fully expanded
+		// until proven otherwise, unless it has no transition at all:
+		initialNode.setExpand(pushAmpleSet(initialNode).hasNext());
 		initialNode.setSeen(true);
 		initialNode.setStackPosition(stack.size() - 1);
+		sequentialNodeFactory.pushed(initialNode);
 		if (debugging) {
 			debugOut.println("Pushed initial state onto stack " + name + ":\n");
 			manager.printStateLong(debugOut, initialState);
@@ -316,8 +529,36 @@ public class DfsSearcher<STATE, TRANSITION> {
 	 *         completes without finding such a state.
 	 */
 	public boolean search() {
+		if (monitor == null)
+			return searchLoop();
+
+		monitor.start();
+		monitorEpoch = monitor.epoch();
+		try {
+			return searchLoop();
+		} finally {
+			// also stops the timer if the model or a checkpoint fails:
+			monitor.finish(metrics());
+		}
+	}
+
+	/**
+	 * The loop of {@link #search()}.
+	 */
+	private boolean searchLoop() {
 		while (!predicate.holdsAt(currentState())) {
 			debug("Predicate does not hold at current state of " + name + ".");
+			if (stopped) {
+				debug("Search of " + name + " stopped.");
+				return false;
+			}
+			if (monitor != null && monitor.epoch() != monitorEpoch) {
+				monitorEpoch = monitor.epoch();
+				monitor.sample(metrics());
+			}
+			if (checkpointFile != null
+					&& System.currentTimeMillis() >= nextCheckpointTime)
+				checkpoint();
 			if (!proceedToNewState()) {
 				if (cycleFound) {
 					debug("Cycle found in state space.");
@@ -326,6 +567,7 @@ public class DfsSearcher<STATE, TRANSITION> {
 				debug("Search complete: predicate " + predicate
 						+ " does not hold at " + "any reachable state of "
 						+ name + ".\n");
+				close();
 				return false;
 			}
 		}
@@ -334,6 +576,273 @@ public class DfsSearcher<STATE, TRANSITION> {
 		return true;
 	}
 
+	/**
+	 * Makes the search write a checkpoint to the given file periodically. The
+	 * file is replaced by each checkpoint, which is first written to a
+	 * temporary file next to it, so it always holds a complete checkpoint.
+	 * 
+	 * @param file
+	 *            the file to which to write the checkpoints, or null to stop
+	 *            writing them and end the thread writing them
+	 * @param period
+	 *            the number of milliseconds between two checkpoints
+	 * @throws IllegalStateException
+	 *             if the state manager does not provide a state serializer
+	 */
+	public void setCheckpointing(File file, long period) {
+		if (file != null)
+			checkpointSerializer();
+		else
+			shutDownCheckpointWriter();
+		this.checkpointFile = file;
+		this.checkpointPeriod = period;
+		this.nextCheckpointTime = System.currentTimeMillis() + period;
+	}
+
+	/**
+	 * Writes a checkpoint of the search to the checkpoint file. The search
+	 * state is copied on this thread, and written to the file by another
+	 * thread; this method waits for the previous checkpoint to be written, if
+	 * it is not yet.
+	 * 
+	 * @throws IllegalStateException
+	 *             if no checkpoint file has been set
+	 * @throws UncheckedIOException
+	 *             if the previous checkpoint could not be written
+	 */
+	public void checkpoint() {
+		if (checkpointFile == null)
+			throw new IllegalStateException("No checkpoint file");
+		awaitCheckpoint();
+
+		File file = checkpointFile;
+		byte[] searchState = searchState();
+		SequentialNodeFactory.Snapshot visited = sequentialNodeFactory
+				.snapshot();
+
+		if (checkpointWriter == null)
+			checkpointWriter = Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "checkpoint writer");
+
+				thread.setDaemon(true);
+				return thread;
+			});
+		pendingCheckpoint = checkpointWriter.submit(() -> {
+			writeCheckpoint(file, searchState, visited);
+			return null;
+		});
+		nextCheckpointTime = System.currentTimeMillis() + checkpointPeriod;
+		debug("Checkpoint of " + name + " taken.");
+	}
+
+	/**
+	 * Waits for the checkpoint being written, if any.
+	 * 
+	 * @throws UncheckedIOException
+	 *             if the checkpoint could not be written
+	 */
+	public void awaitCheckpoint() {
+		if (pendingCheckpoint == null)
+			return;
+		try {
+			pendingCheckpoint.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted checkpoint", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+
+			if (cause instanceof IOException)
+				throw new UncheckedIOException((IOException) cause);
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw new IllegalStateException(cause);
+		} finally {
+			pendingCheckpoint = null;
+		}
+	}
+
+	/**
+	 * @return the serializer of the state manager
+	 * @throws IllegalStateException
+	 *             if the state manager does not provide one
+	 */
+	private StateSerializer<STATE> checkpointSerializer() {
+		StateSerializer<STATE> serializer = manager.getStateSerializer();
+
+		if (serializer == null)
+			throw new IllegalStateException(
+					"Checkpoints require a state serializer");
+		return serializer;
+	}
+
+	/**
+	 * Writes the counters and the stack of the search, which is the first part
+	 * of a checkpoint.
+	 */
+	private byte[] searchState() {
+		StateSerializer<STATE> serializer = checkpointSerializer();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		int size = stack.size();
+
+		try {
+			out.writeInt(CHECKPOINT_MAGIC);
+			out.writeInt(CHECKPOINT_VERSION);
+			out.writeUTF(sequentialNodeFactory.getClass().getName());
+			out.writeLong(numStatesSeen);
+			out.writeLong(numTransitions);
+			out.writeLong(numStatesMatched);
+			out.writeLong(numFullExpansions);
+			out.writeBoolean(stackIsBounded);
+			out.writeInt(depthBound);
+			out.writeInt(size);
+			for (int i = 0; i < size; i++) {
+				StackEntry<STATE, TRANSITION> entry = stack.get(i);
+				SequentialNode<STATE> node = entry.getNode();
+
+				serializer.write(node.getState(), out);
+				out.writeInt(node.getId());
+				out.writeBoolean(node.getFullyExpanded());
+				out.writeBoolean(node.getExpand());
+				out.writeInt(node.getDepth());
+				out.writeInt(entry.getOffset());
+				out.writeInt(entry.size());
+				out.writeInt(entry.getCursor());
+				out.writeInt(entry.getMinimumSuccessorStackIndex());
+			}
+			out.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Writes a checkpoint to a temporary file, and then moves it to the given
+	 * file.
+	 */
+	private static void writeCheckpoint(File file, byte[] searchState,
+			SequentialNodeFactory.Snapshot visited) throws IOException {
+		File temporary = new File(file.getPath() + ".tmp");
+
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(temporary),
+						1 << 16))) {
+			out.write(searchState);
+			visited.write(out);
+		}
+		try {
+			Files.move(temporary.toPath(), file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temporary.toPath(), file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Restores the search from a checkpoint written by
+	 * {@link #checkpoint()}, and continues it as {@link #search()} does. This
+	 * searcher must be new, and created with the same kind of enabler, state
+	 * manager, predicate and storage mode as the one which wrote the
+	 * checkpoint.
+	 * 
+	 * @param file
+	 *            the checkpoint file
+	 * @return true if a state is found which satisfies the predicate; false if
+	 *         the search completes without finding such a state
+	 * @throws IOException
+	 *             if the file cannot be read, or is not a checkpoint of this
+	 *             kind of search
+	 * @throws IllegalStateException
+	 *             if this searcher has already started a search, or the state
+	 *             manager does not provide a state serializer
+	 */
+	public boolean resume(File file) throws IOException {
+		if (!stack.isEmpty())
+			throw new IllegalStateException(
+					"Cannot resume a checkpoint in a started search");
+
+		StateSerializer<STATE> serializer = checkpointSerializer();
+		List<SequentialNode<STATE>> nodes = new ArrayList<>();
+		int[] offsets, counts, cursors, minimumIndexes;
+
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+			int size;
+			String factoryName;
+
+			if (in.readInt() != CHECKPOINT_MAGIC)
+				throw new IOException("Not a checkpoint file: " + file);
+			if (in.readInt() != CHECKPOINT_VERSION)
+				throw new IOException(
+						"Unsupported checkpoint file version: " + file);
+			factoryName = in.readUTF();
+			if (!factoryName
+					.equals(sequentialNodeFactory.getClass().getName()))
+				throw new IOException("Checkpoint of a search storing states in "
+						+ factoryName + " cannot be restored to "
+						+ sequentialNodeFactory.getClass().getName());
+			numStatesSeen = in.readLong();
+			numTransitions = in.readLong();
+			numStatesMatched = in.readLong();
+			numFullExpansions = in.readLong();
+			stackIsBounded = in.readBoolean();
+			depthBound = in.readInt();
+			size = in.readInt();
+			offsets = new int[size];
+			counts = new int[size];
+			cursors = new int[size];
+			minimumIndexes = new int[size];
+			for (int i = 0; i < size; i++) {
+				STATE state = serializer.read(in);
+				SequentialNode<STATE> node = new SequentialNode<>(state,
+						in.readInt());
+
+				node.setSeen(true);
+				node.setFullyExpanded(in.readBoolean());
+				node.setExpand(in.readBoolean());
+				node.setDepth(in.readInt());
+				offsets[i] = in.readInt();
+				counts[i] = in.readInt();
+				cursors[i] = in.readInt();
+				minimumIndexes[i] = in.readInt();
+				nodes.add(node);
+			}
+			// the stack nodes are recorded after the visited states:
+			sequentialNodeFactory.restore(in);
+		}
+		for (int i = 0; i < nodes.size(); i++) {
+			SequentialNode<STATE> node = nodes.get(i);
+			STATE state = node.getState();
+			Collection<TRANSITION> transitions = enabler.ampleSet(state);
+			int offset = 0;
+			StackEntry<STATE, TRANSITION> entry;
+
+			if (node.getFullyExpanded()) {
+				offset = transitions.size();
+				transitions = enabler.ampleSetComplement(state, transitions);
+			}
+			if (offset != offsets[i] || transitions.size() != counts[i])
+				throw new IOException("The enabler does not give the "
+						+ "transitions of the checkpoint at stack position "
+						+ i);
+			entry = stack.push(node, transitions, offset);
+			entry.setCursor(cursors[i]);
+			entry.setMinimumSuccessorStackIndex(minimumIndexes[i]);
+			node.setStackPosition(i);
+			sequentialNodeFactory.restoreStackNode(node);
+		}
+		if (checkpointFile != null)
+			nextCheckpointTime = System.currentTimeMillis() + checkpointPeriod;
+		debug("Search of " + name + " resumed from " + file + ".");
+		if (stack.isEmpty())
+			return false;
+		return search();
+	}
+
 	/**
 	 * <p>
 	 * Proceeds with the search until we arrive at a state that has not been
@@ -371,7 +880,8 @@ public class DfsSearcher<STATE, TRANSITION> {
 						transition);
 
 				// Let manager print the trace step (exclude final state):
-				manager.printTraceStep(currentState, traceStep);
+				if (printTransitions)
+					manager.printTraceStep(currentState, traceStep);
 
 				STATE newState = traceStep.getFinalState();
 				SequentialNode<STATE> newSequentialNode = sequentialNodeFactory
@@ -379,8 +889,9 @@ public class DfsSearcher<STATE, TRANSITION> {
 
 				newState = newSequentialNode.getState();
 				// Let manager print the final state of the trace step:
-				manager.printTraceStepFinalState(newState,
-						newSequentialNode.getId());
+				if (printTransitions)
+					manager.printTraceStepFinalState(newState,
+							newSequentialNode.getId());
 
 				int newStateStackIndex = newSequentialNode.getStackPosition();
 				if (currentSequentialNode.getFullyExpanded()
@@ -409,17 +920,13 @@ public class DfsSearcher<STATE, TRANSITION> {
 					if (minimize)
 						newSequentialNode.setDepth(stack.size());
 
-					Collection<TRANSITION> newSet = enabler.ampleSet(newState);
 					// assume a state must be fully expanded until proven
 					// otherwise.
-					if (newSet.iterator().hasNext())
-						newSequentialNode.setExpand(true);
-					else
-						newSequentialNode.setExpand(false);
-					stack.push(sequentialNodeFactory
-							.newStackEntry(newSequentialNode, newSet, 0));
+					newSequentialNode.setExpand(
+							pushAmpleSet(newSequentialNode).hasNext());
 					newSequentialNode.setSeen(true);
 					newSequentialNode.setStackPosition(stack.size() - 1);
+					sequentialNodeFactory.pushed(newSequentialNode);
 					numStatesSeen++;
 					debugPrintStack("Pushed " + newState + " onto the stack "
 							+ name + ". ", false);
@@ -440,22 +947,14 @@ public class DfsSearcher<STATE, TRANSITION> {
 			if (!stackOutOfBound() && !currentSequentialNode.getFullyExpanded()
 					&& currentSequentialNode.getExpand()
 					&& checkStackTrace(currentStackEntry)) {
-				Collection<TRANSITION> ampleSet = currentStackEntry
-						.getTransitions();
-				Collection<TRANSITION> fullSet = enabler.fullSet(currentState);
-				@SuppressWarnings("unchecked")
-				Collection<TRANSITION> ampleSetComplement = (Collection<TRANSITION>) Utils
-						.subtract(fullSet, ampleSet);
-
-				stack.pop();
-				stack.push(sequentialNodeFactory.newStackEntry(
-						currentSequentialNode, ampleSetComplement,
-						ampleSet.size()));
+				pushAmpleSetComplement(currentStackEntry);
 				currentSequentialNode.setFullyExpanded(true);
+				numFullExpansions++;
 				continue;
 			}
 			stack.pop();
 			currentSequentialNode.setStackPosition(-1);
+			sequentialNodeFactory.popped(currentSequentialNode);
 			if (!stack.isEmpty())
 				stack.peek().next();
 			debugPrintStack("Popped stack.", false);
@@ -463,6 +962,45 @@ public class DfsSearcher<STATE, TRANSITION> {
 		return false;
 	}
 
+	/**
+	 * Pushes the ample set of the state of a node onto the stack, as an
+	 * iterator if the enabler is lazy.
+	 * 
+	 * @return the entry pushed
+	 */
+	private StackEntry<STATE, TRANSITION> pushAmpleSet(
+			SequentialNode<STATE> node) {
+		STATE state = node.getState();
+
+		if (lazyEnabler != null)
+			return stack.push(node, lazyEnabler.ampleIterator(state), 0);
+		return stack.push(node, enabler.ampleSet(state), 0);
+	}
+
+	/**
+	 * Replaces the top entry of the stack, whose ample set has been explored,
+	 * by the complement of its ample set, as an iterator if the enabler is
+	 * lazy.
+	 */
+	private void pushAmpleSetComplement(StackEntry<STATE, TRANSITION> entry) {
+		SequentialNode<STATE> node = entry.getNode();
+		STATE state = node.getState();
+
+		if (lazyEnabler != null) {
+			int ampleSize = entry.size();
+
+			stack.pop();
+			stack.push(node, lazyEnabler.ampleComplementIterator(state),
+					ampleSize);
+		} else {
+			Collection<TRANSITION> ampleSet = entry.getTransitions();
+
+			stack.pop();
+			stack.push(node, enabler.ampleSetComplement(state, ampleSet),
+					ampleSet.size());
+		}
+	}
+
 	/**
 	 * Reset the fullyExpanded field of a state to false, and the expand field
 	 * to true.
@@ -497,20 +1035,18 @@ public class DfsSearcher<STATE, TRANSITION> {
 	}
 
 	/**
+	 * Checks the entries of the stack from the minimum successor stack index
+	 * of the given entry up to the top entry (excluded). This takes constant
+	 * time, see {@link DfsStack#numFullyExpanded(int, int)}.
+	 * 
 	 * @return false iff there exist a state on the trace that has already been
 	 *         fully expanded.
 	 */
 	public boolean checkStackTrace(StackEntry<STATE, TRANSITION> stackEntry) {
 		int stackIndex = stackEntry.getMinimumSuccessorStackIndex();
-		int size = stack.size();
 
 		assert stackIndex != Integer.MAX_VALUE;
-
-		for (int i = stackIndex; i < size - 1; i++) {
-			if (stack.get(i).getNode().getFullyExpanded())
-				return false;
-		}
-		return true;
+		return stack.numFullyExpanded(stackIndex, stack.size() - 1) == 0;
 	}
 
 	/**
@@ -596,7 +1132,7 @@ public class DfsSearcher<STATE, TRANSITION> {
 			out.println("  <EMPTY>");
 		}
 		for (int i = 0; i < size; i++) {
-			StackEntry<STATE, TRANSITION> stackEntry = stack.elementAt(i);
+			StackEntry<STATE, TRANSITION> stackEntry = stack.get(i);
 			STATE state = stackEntry.getState();
 
 			if (!summarize || i <= 1 || size - i < summaryCutOff - 1) {
@@ -685,32 +1221,75 @@ public class DfsSearcher<STATE, TRANSITION> {
 	}
 
 	/**
-	 * The number of states seen in this search.
+	 * Converts a count to an int, saturating at {@link Integer#MAX_VALUE}.
+	 */
+	private static int intCount(long count) {
+		return (int) Math.min(count, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * The number of states seen in this search. See {@link #metrics()} for
+	 * counts which do not saturate.
 	 * 
-	 * @return the number of states seen so far
+	 * @return the number of states seen so far, or
+	 *         {@link Integer#MAX_VALUE} if it is larger
 	 */
 	public int numStatesSeen() {
-		return numStatesSeen;
+		return intCount(numStatesSeen);
 	}
 
 	/**
 	 * The number of transitions executed in the course of this search so far.
+	 * See {@link #metrics()} for counts which do not saturate.
 	 * 
-	 * @return the number of transitions executed.
+	 * @return the number of transitions executed, or
+	 *         {@link Integer#MAX_VALUE} if it is larger
 	 */
 	public int numTransitions() {
-		return numTransitions;
+		return intCount(numTransitions);
 	}
 
 	/**
 	 * The number of states matched so far. A state is "matched" when the search
 	 * determines the state has been seen before, earlier in the search. If the
-	 * state has been seen before, it is not explored.
+	 * state has been seen before, it is not explored. See {@link #metrics()}
+	 * for counts which do not saturate.
 	 * 
-	 * @return the number of states matched
+	 * @return the number of states matched, or {@link Integer#MAX_VALUE} if it
+	 *         is larger
 	 */
 	public int numStatesMatched() {
-		return numStatesMatched;
+		return intCount(numStatesMatched);
+	}
+
+	/**
+	 * Sets the monitor sampling the metrics of this search while
+	 * {@link #search()} runs.
+	 * 
+	 * @param monitor
+	 *            the monitor, or null
+	 */
+	public void setMonitor(SearchMonitor monitor) {
+		this.monitor = monitor;
+	}
+
+	public SearchMonitor getMonitor() {
+		return monitor;
+	}
+
+	/**
+	 * Builds the metrics of this search from its counters. This must be called
+	 * on the thread of the search, or when it is not running. The elapsed time
+	 * is the one of the monitor, or 0 if there is no monitor.
+	 * 
+	 * @return the current metrics of this search
+	 */
+	public SearchMetrics metrics() {
+		return new SearchMetrics(
+				monitor == null ? 0 : monitor.elapsedNanos(), numStatesSeen,
+				numTransitions, numStatesMatched, stack.size(),
+				stack.maxSize(), sequentialNodeFactory.numOfSearchNodeSaved(),
+				sequentialNodeFactory.estimatedBytes(), numFullExpansions);
 	}
 
 	/**
@@ -732,9 +1311,19 @@ public class DfsSearcher<STATE, TRANSITION> {
 		out.println("Number of states seen:    " + numStatesSeen);
 		out.println("Number of transitions:   " + numTransitions);
 		out.println("Number of states matched: " + numStatesMatched + "\n");
+		sequentialNodeFactory.printSummary(out);
 		out.flush();
 	}
 
+	/**
+	 * @return the size of the stack, which is the number of states on the
+	 *         trace written by {@link #writeStack(PrintStream)}
+	 */
+	@Override
+	public int traceLength() {
+		return stack.size();
+	}
+
 	/**
 	 * Write the state of the current stack in a condensed form that can be used
 	 * to replay the trace later.
@@ -742,31 +1331,14 @@ public class DfsSearcher<STATE, TRANSITION> {
 	 * @param stream
 	 *            stream to which to write the current state of the DFS stack
 	 */
+	@Override
 	public void writeStack(PrintStream stream) {
 		int size = stack.size();
-		int prevTid = 0;
-		int count = 0;
+		int[] tids = new int[size];
 
-		stream.println("LENGTH = " + size);
-		for (int i = 0; i < size; i++) {
-			int curTid = stack.elementAt(i).getTid();
-
-			if (count == 0) {
-				count++;
-				prevTid = curTid;
-			} else {
-				if (curTid == prevTid) {
-					count++;
-				} else {
-					stream.println(count + ":" + prevTid);
-					count = 1;
-					prevTid = curTid;
-				}
-			}
-			if (i == size - 1) {
-				stream.println(count + ":" + prevTid);
-			}
-		}
-		stream.flush();
+		for (int i = 0; i < size; i++)
+			tids[i] = stack.get(i).getTid();
+		Utils.writeTrace(stream, tids);
 	}
+
 }
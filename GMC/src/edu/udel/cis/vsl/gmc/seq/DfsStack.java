@@ -0,0 +1,199 @@
+package edu.udel.cis.vsl.gmc.seq;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EmptyStackException;
+import java.util.Iterator;
+
+/**
+ * <p>
+ * The depth-first search stack of a {@link DfsSearcher}. It is a growable
+ * array of {@link StackEntry} slots. A slot is allocated the first time the
+ * stack reaches its depth, and is reused by every later push at that depth, so
+ * pushing and popping allocate nothing once the stack has reached its maximal
+ * depth.
+ * </p>
+ *
+ * <p>
+ * The stack also keeps, for each position, the number of entries below it
+ * whose node is fully expanded, so that the stack proviso can be checked in
+ * constant time by {@link #numFullyExpanded(int, int)}. The fully expanded
+ * flag of a node is only set while its entry is at the top of the stack, so
+ * this count is computed once, when an entry is pushed.
+ * </p>
+ *
+ * <p>
+ * Since the entries are reused, a {@link StackEntry} obtained from this stack
+ * must not be used after it has been popped. This class is not thread-safe.
+ * </p>
+ */
+public class DfsStack<STATE, TRANSITION> {
+
+	/**
+	 * The slots; the first {@link #size} of them are the entries of the stack,
+	 * from bottom to top.
+	 */
+	private StackEntry<STATE, TRANSITION>[] entries;
+
+	/**
+	 * The number of entries below each position whose node is fully expanded.
+	 */
+	private int[] fullyExpandedBelow;
+
+	/**
+	 * The number of entries on the stack.
+	 */
+	private int size = 0;
+
+	/**
+	 * The greatest size the stack has had, which is the number of slots
+	 * allocated.
+	 */
+	private int maxSize = 0;
+
+	@SuppressWarnings("unchecked")
+	public DfsStack() {
+		entries = (StackEntry<STATE, TRANSITION>[]) new StackEntry<?, ?>[16];
+		fullyExpandedBelow = new int[16];
+	}
+
+	/**
+	 * Pushes a new entry onto the stack.
+	 *
+	 * @param node
+	 *            The node that wraps the source state.
+	 * @param transitions
+	 *            The ample set or ample set complement of the source state.
+	 * @param offset
+	 *            The index of the first transition of {@code transitions}, see
+	 *            {@link StackEntry#reset(SequentialNode, Collection, int)}.
+	 * @return the entry pushed, which is valid until it is popped
+	 */
+	public StackEntry<STATE, TRANSITION> push(SequentialNode<STATE> node,
+			Collection<TRANSITION> transitions, int offset) {
+		StackEntry<STATE, TRANSITION> entry = pushEntry();
+
+		entry.reset(node, transitions, offset);
+		return entry;
+	}
+
+	/**
+	 * Adds an entry on top of the stack, to be reset by the caller.
+	 */
+	private StackEntry<STATE, TRANSITION> pushEntry() {
+		if (size == entries.length) {
+			entries = Arrays.copyOf(entries, size << 1);
+			fullyExpandedBelow = Arrays.copyOf(fullyExpandedBelow, size << 1);
+		}
+		if (size > 0)
+			fullyExpandedBelow[size] = fullyExpandedBelow[size - 1]
+					+ (entries[size - 1].getNode().getFullyExpanded() ? 1 : 0);
+		else
+			fullyExpandedBelow[0] = 0;
+
+		StackEntry<STATE, TRANSITION> entry = entries[size];
+
+		if (entry == null) {
+			entry = new StackEntry<>();
+			entries[size] = entry;
+			maxSize = size + 1;
+		}
+		size++;
+		return entry;
+	}
+
+	/**
+	 * Pushes a new entry onto the stack, whose transitions are generated on
+	 * demand by an iterator.
+	 *
+	 * @param node
+	 *            The node that wraps the source state.
+	 * @param transitions
+	 *            The ample set or ample set complement of the source state.
+	 * @param offset
+	 *            The index of the first transition of {@code transitions}, see
+	 *            {@link StackEntry#reset(SequentialNode, Iterator, int)}.
+	 * @return the entry pushed, which is valid until it is popped
+	 */
+	public StackEntry<STATE, TRANSITION> push(SequentialNode<STATE> node,
+			Iterator<TRANSITION> transitions, int offset) {
+		StackEntry<STATE, TRANSITION> entry = pushEntry();
+
+		entry.reset(node, transitions, offset);
+		return entry;
+	}
+
+	/**
+	 * Removes the top entry of the stack. The entry is cleared, so that it does
+	 * not hold on to the states and transitions of the popped state.
+	 *
+	 * @throws EmptyStackException
+	 *             if the stack is empty
+	 */
+	public void pop() {
+		if (size == 0)
+			throw new EmptyStackException();
+		entries[--size].clear();
+	}
+
+	/**
+	 * @return the top entry of the stack
+	 * @throws EmptyStackException
+	 *             if the stack is empty
+	 */
+	public StackEntry<STATE, TRANSITION> peek() {
+		if (size == 0)
+			throw new EmptyStackException();
+		return entries[size - 1];
+	}
+
+	/**
+	 * @param index
+	 *            a stack position, 0 being the bottom of the stack
+	 * @return the entry at the given position
+	 * @throws IndexOutOfBoundsException
+	 *             if there is no entry at the given position
+	 */
+	public StackEntry<STATE, TRANSITION> get(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException(
+					"Index: " + index + ", Size: " + size);
+		return entries[index];
+	}
+
+	/**
+	 * Counts the entries whose node is fully expanded in a range of positions.
+	 * The range must be below the top entry, whose flag may have changed since
+	 * it was pushed.
+	 *
+	 * @param from
+	 *            the first position of the range, inclusive
+	 * @param to
+	 *            the last position of the range, exclusive; at most
+	 *            {@code size() - 1}
+	 * @return the number of entries in the range whose node is fully expanded
+	 */
+	public int numFullyExpanded(int from, int to) {
+		if (from >= to)
+			return 0;
+		return fullyExpandedBelow[to] - fullyExpandedBelow[from];
+	}
+
+	/**
+	 * @return the number of entries on the stack
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the greatest number of entries the stack has had
+	 */
+	public int maxSize() {
+		return maxSize;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+}
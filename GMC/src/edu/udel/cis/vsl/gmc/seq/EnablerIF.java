@@ -3,6 +3,8 @@ package edu.udel.cis.vsl.gmc.seq;
 import java.io.PrintStream;
 import java.util.Collection;
 
+import edu.udel.cis.vsl.gmc.util.Utils;
+
 /**
  * <p>
  * An EnablerIF tells you which transitions should be explored from a given
@@ -63,6 +65,38 @@ public interface EnablerIF<STATE, TRANSITION> {
 	 */
 	Collection<TRANSITION> fullSet(STATE state);
 
+	/**
+	 * <p>
+	 * Computes the transitions enabled at {@code state} which are not in its
+	 * ample set, i.e., the transitions explored when {@code state} has to be
+	 * fully expanded. The transitions are in the order of
+	 * {@link #fullSet(Object)}.
+	 * </p>
+	 * 
+	 * <p>
+	 * The default implementation subtracts {@code ampleSet} from
+	 * {@link #fullSet(Object)} with a hashed set difference. Implementations
+	 * which know how their ample sets are made should compute the complement
+	 * directly.
+	 * </p>
+	 * 
+	 * @param state
+	 *            The source state.
+	 * @param ampleSet
+	 *            the collection returned by {@link #ampleSet(Object)} for
+	 *            {@code state}
+	 * @return the collection of transitions that are enabled at {@code state}
+	 *         but are not in {@code ampleSet}
+	 */
+	default Collection<TRANSITION> ampleSetComplement(STATE state,
+			Collection<TRANSITION> ampleSet) {
+		@SuppressWarnings("unchecked")
+		Collection<TRANSITION> result = (Collection<TRANSITION>) Utils
+				.subtract(fullSet(state), ampleSet);
+
+		return result;
+	}
+
 	/**
 	 * Set the debugging flag to the given value. When true, debugging output
 	 * will be printed to the debugging output stream.
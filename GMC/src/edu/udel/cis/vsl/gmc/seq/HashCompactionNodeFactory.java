@@ -0,0 +1,131 @@
+package edu.udel.cis.vsl.gmc.seq;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import edu.udel.cis.vsl.gmc.util.LongHashSet;
+
+/**
+ * <p>
+ * A {@link CompactNodeFactory} implementing hash compaction. The full states
+ * are kept only while they are on the DFS stack; every visited state is
+ * recorded by its 64-bit fingerprint (see {@link StateManager#fingerprint})
+ * in a primitive {@link LongHashSet}, which costs about 11 bytes per state.
+ * </p>
+ *
+ * <p>
+ * Two different states with the same fingerprint are considered the same, so
+ * the search may omit states. With a good 64-bit fingerprint, the probability
+ * of this is about n<sup>2</sup>/2<sup>65</sup> for n states, see
+ * {@link #collisionProbability()}. If the state manager does not override
+ * {@link StateManager#fingerprint}, whose default only has the 32 bits of
+ * {@link Object#hashCode()}, the estimate is n<sup>2</sup>/2<sup>33</sup>.
+ * </p>
+ */
+public class HashCompactionNodeFactory<STATE, TRANSITION>
+		extends
+			CompactNodeFactory<STATE, TRANSITION> {
+
+	/**
+	 * The fingerprints of the visited states.
+	 */
+	private LongHashSet fingerprints = new LongHashSet(1 << 16);
+
+	/**
+	 * The number of bits of entropy of the fingerprints: 32 if the state
+	 * manager uses the default {@link StateManager#fingerprint}, else 64.
+	 */
+	private final int fingerprintBits;
+
+	public HashCompactionNodeFactory(
+			StateManager<STATE, TRANSITION> stateManager) {
+		super(stateManager);
+		this.fingerprintBits = overridesFingerprint(stateManager) ? 64 : 32;
+	}
+
+	/**
+	 * @return true iff the class of the manager overrides
+	 *         {@link StateManager#fingerprint}
+	 */
+	private static boolean overridesFingerprint(StateManager<?, ?> manager) {
+		try {
+			return manager.getClass().getMethod("fingerprint", Object.class)
+					.getDeclaringClass() != StateManager.class;
+		} catch (NoSuchMethodException e) {
+			return true;
+		}
+	}
+
+	@Override
+	protected void visit(STATE state) {
+		fingerprints.add(stateManager().fingerprint(state));
+	}
+
+	@Override
+	protected boolean visited(STATE state) {
+		return fingerprints.contains(stateManager().fingerprint(state));
+	}
+
+	@Override
+	protected int numVisited() {
+		return fingerprints.size();
+	}
+
+	@Override
+	public long estimatedBytes() {
+		return 8L * fingerprints.capacity();
+	}
+
+	@Override
+	protected Snapshot snapshotVisited() {
+		long[] values = fingerprints.toArray();
+
+		return out -> {
+			out.writeInt(values.length);
+			for (long value : values)
+				out.writeLong(value);
+		};
+	}
+
+	@Override
+	protected void restoreVisited(DataInput in) throws IOException {
+		int n = in.readInt();
+
+		fingerprints = new LongHashSet(n);
+		for (int i = 0; i < n; i++)
+			fingerprints.add(in.readLong());
+	}
+
+	/**
+	 * An estimate of the probability that two of the visited states have the
+	 * same fingerprint, assuming the fingerprints are uniformly distributed
+	 * over {@link #fingerprintBits()} bits.
+	 *
+	 * @return the probability of a fingerprint collision so far
+	 */
+	public double collisionProbability() {
+		double n = fingerprints.size();
+
+		return Math.min(1.0, n * n / Math.scalb(1.0, fingerprintBits + 1));
+	}
+
+	/**
+	 * @return the number of bits of entropy assumed for the fingerprints: 32
+	 *         if the state manager uses the default
+	 *         {@link StateManager#fingerprint}, which scrambles
+	 *         {@link Object#hashCode()}, else 64
+	 */
+	public int fingerprintBits() {
+		return fingerprintBits;
+	}
+
+	@Override
+	public void printSummary(PrintStream out) {
+		out.println("Fingerprints stored:      " + fingerprints.size());
+		out.println("Fingerprint table slots:  " + fingerprints.capacity());
+		out.println("Fingerprint bits:         " + fingerprintBits);
+		out.println("Collision probability:    " + collisionProbability());
+		out.flush();
+	}
+}
@@ -0,0 +1,445 @@
+package edu.udel.cis.vsl.gmc.seq;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import edu.udel.cis.vsl.gmc.IntStatePredicateIF;
+import edu.udel.cis.vsl.gmc.SearchMetrics;
+import edu.udel.cis.vsl.gmc.SearchMonitor;
+import edu.udel.cis.vsl.gmc.TraceWriterIF;
+import edu.udel.cis.vsl.gmc.util.Utils;
+
+/**
+ * <p>
+ * The counterpart of {@link DfsSearcher} for transition systems whose states
+ * and transitions are encoded as ints, given by an {@link IntEnablerIF} and an
+ * {@link IntStateManager}. It explores the same states in the same order as a
+ * {@link DfsSearcher} given the same transitions, with the same stack proviso
+ * for the ample sets, but it allocates nothing per state or transition: the
+ * stack is a set of parallel int arrays, and the visited states are recorded
+ * in a primitive table (see {@link IntStateManager#numStates()}).
+ * </p>
+ *
+ * <p>
+ * Minimal counterexamples, checkpoints and the storage modes of
+ * {@link DfsSearcher} are not supported.
+ * </p>
+ */
+public class IntDfsSearcher implements TraceWriterIF {
+
+	private IntEnablerIF enabler;
+
+	private IntStateManager manager;
+
+	private IntStatePredicateIF predicate;
+
+	/**
+	 * The visited states and their stack positions.
+	 */
+	private IntStateTable table;
+
+	/**
+	 * The state of each stack entry.
+	 */
+	private int[] stackStates = new int[16];
+
+	/**
+	 * The index of the next transition to explore of each stack entry.
+	 */
+	private int[] cursors = new int[16];
+
+	/**
+	 * The index after the last transition to explore of each stack entry: the
+	 * end of the ample set, or of the full set once the state is fully
+	 * expanded.
+	 */
+	private int[] ends = new int[16];
+
+	/**
+	 * The minimum stack position of the successors of each stack entry which
+	 * were on the stack, or {@link Integer#MAX_VALUE}.
+	 */
+	private int[] minimumSuccessorStackIndex = new int[16];
+
+	/**
+	 * The number of fully expanded entries below each entry, as in
+	 * {@link DfsStack}.
+	 */
+	private int[] fullyExpandedBelow = new int[16];
+
+	/**
+	 * Has the state of each stack entry been fully expanded?
+	 */
+	private boolean[] fullyExpanded = new boolean[16];
+
+	/**
+	 * Must the state of each stack entry be fully expanded, as far as we know?
+	 * It is true until a transition of the state leads to a state which is not
+	 * on the stack.
+	 */
+	private boolean[] expand = new boolean[16];
+
+	/**
+	 * The number of entries on the stack.
+	 */
+	private int size = 0;
+
+	private int maxSize = 0;
+
+	private long numTransitions = 0;
+
+	private long numStatesMatched = 0;
+
+	private long numStatesSeen = 0;
+
+	private long numFullExpansions = 0;
+
+	private boolean reportCycleAsViolation = false;
+
+	private boolean cycleFound = false;
+
+	/**
+	 * Upper bound on stack depth, or {@link Integer#MAX_VALUE}.
+	 */
+	private int depthBound = Integer.MAX_VALUE;
+
+	private String name = null;
+
+	/**
+	 * Set by {@link #stop()}, possibly from another thread, to make the search
+	 * return as soon as possible.
+	 */
+	private volatile boolean stopped = false;
+
+	/**
+	 * The monitor sampling the metrics of this search, or null.
+	 */
+	private SearchMonitor monitor = null;
+
+	/**
+	 * The epoch of {@link #monitor} when the metrics were last sampled.
+	 */
+	private int monitorEpoch;
+
+	public IntDfsSearcher(IntEnablerIF enabler, IntStateManager manager,
+			IntStatePredicateIF predicate) {
+		if (enabler == null)
+			throw new NullPointerException("null enabler");
+		if (manager == null)
+			throw new NullPointerException("null manager");
+		if (predicate == null)
+			throw new NullPointerException("null predicate");
+		this.enabler = enabler;
+		this.manager = manager;
+		this.predicate = predicate;
+		this.table = new IntStateTable(manager.numStates());
+	}
+
+	public IntStatePredicateIF predicate() {
+		return predicate;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String name() {
+		return name;
+	}
+
+	public void boundDepth(int value) {
+		depthBound = value;
+	}
+
+	public void unboundDepth() {
+		depthBound = Integer.MAX_VALUE;
+	}
+
+	public boolean reportCycleAsViolation() {
+		return reportCycleAsViolation;
+	}
+
+	/**
+	 * If set to true, a cycle in the state space is reported as a violation.
+	 */
+	public void setReportCycleAsViolation(boolean value) {
+		this.reportCycleAsViolation = value;
+	}
+
+	/**
+	 * @return true iff the search stopped because it found a cycle
+	 */
+	public boolean cycleFound() {
+		return cycleFound;
+	}
+
+	/**
+	 * Makes the search return as soon as possible. May be called from another
+	 * thread.
+	 */
+	public void stop() {
+		stopped = true;
+	}
+
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	public void setMonitor(SearchMonitor monitor) {
+		this.monitor = monitor;
+	}
+
+	public SearchMonitor getMonitor() {
+		return monitor;
+	}
+
+	/**
+	 * @return the state on top of the stack
+	 * @throws IllegalStateException
+	 *             if the stack is empty
+	 */
+	public int currentState() {
+		if (size == 0)
+			throw new IllegalStateException("The stack is empty");
+		return stackStates[size - 1];
+	}
+
+	/**
+	 * Pushes a state which has not been seen onto the stack, with its ample
+	 * set.
+	 */
+	private void push(int state) {
+		int ampleSize = enabler.ampleSize(state);
+
+		if (size == stackStates.length) {
+			int capacity = size << 1;
+
+			stackStates = Arrays.copyOf(stackStates, capacity);
+			cursors = Arrays.copyOf(cursors, capacity);
+			ends = Arrays.copyOf(ends, capacity);
+			minimumSuccessorStackIndex = Arrays
+					.copyOf(minimumSuccessorStackIndex, capacity);
+			fullyExpandedBelow = Arrays.copyOf(fullyExpandedBelow, capacity);
+			fullyExpanded = Arrays.copyOf(fullyExpanded, capacity);
+			expand = Arrays.copyOf(expand, capacity);
+		}
+		stackStates[size] = state;
+		cursors[size] = 0;
+		ends[size] = ampleSize;
+		minimumSuccessorStackIndex[size] = Integer.MAX_VALUE;
+		fullyExpandedBelow[size] = size == 0
+				? 0
+				: fullyExpandedBelow[size - 1]
+						+ (fullyExpanded[size - 1] ? 1 : 0);
+		fullyExpanded[size] = false;
+		// a state must be fully expanded until proven otherwise, unless it
+		// has no transition at all:
+		expand[size] = ampleSize > 0;
+		table.put(state, size);
+		size++;
+		if (size > maxSize)
+			maxSize = size;
+		numStatesSeen++;
+	}
+
+	/**
+	 * Performs a depth-first search starting from the given state.
+	 *
+	 * @return true if a state is found that satisfies the predicate, or a
+	 *         cycle if they are reported as violations; false if the search
+	 *         has completed or was stopped
+	 */
+	public boolean search(int initialState) {
+		push(initialState);
+		return search();
+	}
+
+	/**
+	 * Resumes the search from the current state, as
+	 * {@link DfsSearcher#search()} does.
+	 *
+	 * @return true if a state is found that satisfies the predicate, or a
+	 *         cycle if they are reported as violations; false if the search
+	 *         has completed or was stopped
+	 */
+	public boolean search() {
+		boolean result;
+
+		if (monitor == null)
+			return searchLoop();
+		monitor.start();
+		monitorEpoch = monitor.epoch();
+		result = searchLoop();
+		monitor.finish(metrics());
+		return result;
+	}
+
+	private boolean searchLoop() {
+		while (!predicate.holdsAt(currentState())) {
+			if (stopped)
+				return false;
+			if (monitor != null && monitor.epoch() != monitorEpoch) {
+				monitorEpoch = monitor.epoch();
+				monitor.sample(metrics());
+			}
+			if (!proceedToNewState())
+				return cycleFound;
+		}
+		return true;
+	}
+
+	/**
+	 * Explores the transitions of the stack from the top down until one leads
+	 * to a state which has not been seen, which is pushed.
+	 *
+	 * @return true if a new state was pushed; false if the search is over or a
+	 *         cycle was found and cycles are reported as violations
+	 */
+	private boolean proceedToNewState() {
+		while (size > 0) {
+			int top = size - 1, state = stackStates[top];
+			boolean outOfBound = size >= depthBound;
+
+			while (!outOfBound && cursors[top] < ends[top]) {
+				int newState = manager.nextState(state,
+						enabler.transition(state, cursors[top]));
+				int position = table.get(newState);
+
+				if (fullyExpanded[top] || position < 0)
+					expand[top] = false;
+				else if (position < minimumSuccessorStackIndex[top])
+					minimumSuccessorStackIndex[top] = position;
+				numTransitions++;
+				if (position == IntStateTable.UNSEEN) {
+					push(newState);
+					return true;
+				}
+				if (reportCycleAsViolation && position >= 0) {
+					cycleFound = true;
+					return false;
+				}
+				numStatesMatched++;
+				cursors[top]++;
+			}
+			if (!outOfBound && !fullyExpanded[top] && expand[top]
+					&& checkStackTrace(top)) {
+				int ampleSize = ends[top],
+						numEnabled = enabler.numTransitions(state);
+
+				// explore the complement of the ample set, as a new entry
+				cursors[top] = ampleSize;
+				ends[top] = ampleSize < numEnabled ? numEnabled : ampleSize;
+				minimumSuccessorStackIndex[top] = Integer.MAX_VALUE;
+				fullyExpanded[top] = true;
+				numFullExpansions++;
+				continue;
+			}
+			table.put(state, IntStateTable.OFF_STACK);
+			size--;
+			if (size > 0)
+				cursors[size - 1]++;
+		}
+		return false;
+	}
+
+	/**
+	 * @return false iff a state of the stack from the minimum successor stack
+	 *         index of the entry up to the entry (excluded) has been fully
+	 *         expanded
+	 */
+	private boolean checkStackTrace(int entry) {
+		int from = minimumSuccessorStackIndex[entry];
+
+		assert from != Integer.MAX_VALUE;
+		return from >= entry
+				|| fullyExpandedBelow[entry] - fullyExpandedBelow[from] == 0;
+	}
+
+	/**
+	 * @return the number of states seen so far
+	 */
+	public long numStatesSeen() {
+		return numStatesSeen;
+	}
+
+	/**
+	 * @return the number of transitions executed so far
+	 */
+	public long numTransitions() {
+		return numTransitions;
+	}
+
+	/**
+	 * @return the number of transitions which led to a state seen before
+	 */
+	public long numStatesMatched() {
+		return numStatesMatched;
+	}
+
+	/**
+	 * @return the number of states which were fully expanded because their
+	 *         ample set did not satisfy the stack proviso
+	 */
+	public long numFullExpansions() {
+		return numFullExpansions;
+	}
+
+	/**
+	 * Builds the metrics of this search. This must be called on the thread of
+	 * the search, or when it is not running.
+	 *
+	 * @return the current metrics of this search
+	 */
+	public SearchMetrics metrics() {
+		return new SearchMetrics(
+				monitor == null ? 0 : monitor.elapsedNanos(), numStatesSeen,
+				numTransitions, numStatesMatched, size, maxSize, table.size(),
+				table.estimatedBytes(), numFullExpansions);
+	}
+
+	/**
+	 * Prints the states of the stack, with the transition taken from each.
+	 *
+	 * @param out
+	 *            the stream to which to print the stack
+	 */
+	public void printStack(PrintStream out) {
+		if (name != null)
+			out.print(name + " ");
+		out.println("Trace summary:\n");
+		for (int i = 0; i < size; i++) {
+			int state = stackStates[i];
+
+			out.print("Step " + (i + 1) + ": ");
+			manager.printState(out, state);
+			if (cursors[i] < ends[i]) {
+				out.print(" --");
+				manager.printTransition(out,
+						enabler.transition(state, cursors[i]));
+			}
+			out.println();
+		}
+		out.flush();
+	}
+
+	public void printSummary(PrintStream out) {
+		out.println("Number of states seen:    " + numStatesSeen);
+		out.println("Number of transitions:   " + numTransitions);
+		out.println("Number of states matched: " + numStatesMatched + "\n");
+		out.flush();
+	}
+
+	@Override
+	public int traceLength() {
+		return size;
+	}
+
+	/**
+	 * Writes the index of the transition taken from each state of the stack,
+	 * in the numbering of the {@link IntEnablerIF}.
+	 */
+	@Override
+	public void writeStack(PrintStream stream) {
+		Utils.writeTrace(stream, Arrays.copyOf(cursors, size));
+	}
+}
@@ -0,0 +1,46 @@
+package edu.udel.cis.vsl.gmc.seq;
+
+/**
+ * <p>
+ * The counterpart of {@link EnablerIF} for transition systems whose states and
+ * transitions are encoded as ints. Instead of collections, the transitions
+ * enabled at a state are given by index, so the search allocates nothing to
+ * iterate over them.
+ * </p>
+ * 
+ * <p>
+ * The enabled transitions of a state are numbered from 0 to
+ * {@link #numTransitions(int)}-1, and the transitions of its ample set are
+ * the first {@link #ampleSize(int)} ones. The complement of the ample set is
+ * the remaining transitions, and it is empty if the ample set is the full
+ * set. The numbering of the transitions of a state must not change during a
+ * search, since it is used to write the traces.
+ * </p>
+ */
+public interface IntEnablerIF {
+
+	/**
+	 * @param state
+	 *            a state
+	 * @return the number of transitions enabled at the state
+	 */
+	int numTransitions(int state);
+
+	/**
+	 * @param state
+	 *            a state
+	 * @return the number of transitions of the ample set of the state, which
+	 *         are the first ones; at most {@link #numTransitions(int)}
+	 */
+	int ampleSize(int state);
+
+	/**
+	 * @param state
+	 *            a state
+	 * @param index
+	 *            the index of an enabled transition of the state, between 0
+	 *            and {@link #numTransitions(int)}-1
+	 * @return the transition
+	 */
+	int transition(int state, int index);
+}
@@ -0,0 +1,42 @@
+package edu.udel.cis.vsl.gmc.seq;
+
+import java.io.PrintStream;
+
+/**
+ * The counterpart of {@link StateManager} for transition systems whose states
+ * and transitions are encoded as ints. The states must be canonical: two
+ * states are the same iff their ints are equal.
+ */
+public abstract class IntStateManager {
+
+	/**
+	 * Computes the state reached by executing a transition.
+	 * 
+	 * @param state
+	 *            the source state
+	 * @param transition
+	 *            a transition enabled at the source state
+	 * @return the destination state
+	 */
+	public abstract int nextState(int state, int transition);
+
+	/**
+	 * Returns the number of states, if the states are the ints from 0 to that
+	 * number minus 1, in which case the searcher records the visited states
+	 * in an array indexed by state. Otherwise, it records them in a hash
+	 * table.
+	 * 
+	 * @return the number of states, or -1 if the states are arbitrary ints
+	 */
+	public int numStates() {
+		return -1;
+	}
+
+	public void printState(PrintStream out, int state) {
+		out.print(state);
+	}
+
+	public void printTransition(PrintStream out, int transition) {
+		out.print(transition);
+	}
+}
@@ -0,0 +1,162 @@
+package edu.udel.cis.vsl.gmc.seq;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * The visited states of an {@link IntDfsSearcher}, with the position on the
+ * stack of each visited state: a state is either unseen, seen and off the
+ * stack, or at a position of the stack.
+ * </p>
+ *
+ * <p>
+ * If the states are the ints from 0 to a known bound, the positions are stored
+ * in an array indexed by state. Otherwise they are stored in a primitive
+ * open-addressing hash table with linear probing, in which a slot is empty
+ * iff its value is {@link #UNSEEN}.
+ * </p>
+ */
+class IntStateTable {
+
+	/**
+	 * The value of a state which has not been seen.
+	 */
+	static final int UNSEEN = -2;
+
+	/**
+	 * The value of a state which has been seen and is not on the stack.
+	 */
+	static final int OFF_STACK = -1;
+
+	/**
+	 * The hash table is grown when it is more than this full.
+	 */
+	private static final double MAX_LOAD = 0.5;
+
+	/**
+	 * The value of each state, if the states are bounded, or null.
+	 */
+	private final int[] direct;
+
+	/**
+	 * The states of the slots of the hash table, if the states are not
+	 * bounded.
+	 */
+	private int[] keys;
+
+	/**
+	 * The values of the slots of the hash table; {@link #UNSEEN} marks an
+	 * empty slot.
+	 */
+	private int[] values;
+
+	/**
+	 * The number of states seen.
+	 */
+	private int size = 0;
+
+	/**
+	 * The number of states at which the hash table is grown.
+	 */
+	private int threshold;
+
+	/**
+	 * @param numStates
+	 *            the number of states, if they are the ints from 0 to that
+	 *            number minus 1, or -1
+	 */
+	IntStateTable(int numStates) {
+		if (numStates >= 0) {
+			direct = new int[numStates];
+			Arrays.fill(direct, UNSEEN);
+		} else {
+			direct = null;
+			allocate(1 << 10);
+		}
+	}
+
+	private void allocate(int capacity) {
+		keys = new int[capacity];
+		values = new int[capacity];
+		Arrays.fill(values, UNSEEN);
+		threshold = (int) (capacity * MAX_LOAD);
+	}
+
+	/**
+	 * @return the slot of the state in the hash table, which is empty if the
+	 *         state is not in the table
+	 */
+	private int slot(int state) {
+		int mask = keys.length - 1;
+		int h = state * 0x9e3779b9;
+		int i = (h ^ (h >>> 16)) & mask;
+
+		while (values[i] != UNSEEN && keys[i] != state)
+			i = (i + 1) & mask;
+		return i;
+	}
+
+	/**
+	 * @return {@link #UNSEEN}, {@link #OFF_STACK} or the position of the state
+	 *         on the stack
+	 */
+	int get(int state) {
+		if (direct != null)
+			return direct[state];
+		return values[slot(state)];
+	}
+
+	/**
+	 * Sets the value of a state; the value must not be {@link #UNSEEN}.
+	 */
+	void put(int state, int value) {
+		assert value != UNSEEN;
+		if (direct != null) {
+			if (direct[state] == UNSEEN)
+				size++;
+			direct[state] = value;
+			return;
+		}
+
+		int i = slot(state);
+
+		if (values[i] == UNSEEN) {
+			if (size >= threshold) {
+				grow();
+				i = slot(state);
+			}
+			keys[i] = state;
+			size++;
+		}
+		values[i] = value;
+	}
+
+	private void grow() {
+		int[] oldKeys = keys, oldValues = values;
+
+		allocate(keys.length << 1);
+		for (int i = 0; i < oldKeys.length; i++)
+			if (oldValues[i] != UNSEEN) {
+				int j = slot(oldKeys[i]);
+
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+			}
+	}
+
+	/**
+	 * @return the number of states seen
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @return the number of bytes of the arrays of this table
+	 */
+	long estimatedBytes() {
+		if (direct != null)
+			return 4L * direct.length;
+		return 8L * keys.length;
+	}
+}
@@ -0,0 +1,75 @@
+package edu.udel.cis.vsl.gmc.seq;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * <p>
+ * An {@link EnablerIF} which can generate the transitions of a state one at a
+ * time. A {@link DfsSearcher} given a lazy enabler asks for the next
+ * transition of a state only when it has explored the previous one, so no
+ * transition is computed after a state whose successor violates the property,
+ * or when the search is stopped.
+ * </p>
+ *
+ * <p>
+ * The iterators must give the transitions in the same order as
+ * {@link #ampleSet(Object)} and
+ * {@link #ampleSetComplement(Object, Collection)}, since the indexes of the
+ * transitions are written in the traces. The default implementations of these
+ * methods collect the transitions of the iterators, so the enabler also works
+ * with the searchers which need collections.
+ * </p>
+ *
+ * @param <STATE>
+ *            the type used to represent states in the state-transition system
+ *            being analyzed
+ * @param <TRANSITION>
+ *            the type used to represent transitions in the state-transition
+ *            system being analyzed
+ */
+public interface LazyEnablerIF<STATE, TRANSITION>
+		extends
+			EnablerIF<STATE, TRANSITION> {
+
+	/**
+	 * Generates the candidate ample set of a state, see
+	 * {@link #ampleSet(Object)}.
+	 *
+	 * @param source
+	 *            the source state
+	 * @return an iterator over the ample set of {@code source}, which computes
+	 *         the transitions on demand
+	 */
+	Iterator<TRANSITION> ampleIterator(STATE source);
+
+	/**
+	 * Generates the transitions enabled at a state which are not in its ample
+	 * set, see {@link #ampleSetComplement(Object, Collection)}.
+	 *
+	 * @param state
+	 *            the source state
+	 * @return an iterator over the complement of the ample set of
+	 *         {@code state}, which computes the transitions on demand
+	 */
+	Iterator<TRANSITION> ampleComplementIterator(STATE state);
+
+	@Override
+	default Collection<TRANSITION> ampleSet(STATE source) {
+		List<TRANSITION> result = new ArrayList<>();
+
+		ampleIterator(source).forEachRemaining(result::add);
+		return result;
+	}
+
+	@Override
+	default Collection<TRANSITION> ampleSetComplement(STATE state,
+			Collection<TRANSITION> ampleSet) {
+		List<TRANSITION> result = new ArrayList<>();
+
+		ampleComplementIterator(state).forEachRemaining(result::add);
+		return result;
+	}
+}
@@ -48,8 +48,25 @@ public class SequentialNode<STATE> {
 		this.state = state;
 		this.id = id;
 	}
-	
-	
+
+	/**
+	 * Makes this node a new node of the given state, as if it was newly
+	 * constructed.
+	 * 
+	 * @param state
+	 *            the state that is associated with this node
+	 * @param id
+	 *            the id of the node
+	 */
+	void reset(STATE state, int id) {
+		this.state = state;
+		this.id = id;
+		this.seen = false;
+		this.stackPosition = -1;
+		this.fullyExpanded = false;
+		this.expand = true;
+		this.depth = -1;
+	}
 
 	/**
 	 * Sets the "seen flag" to a given value.
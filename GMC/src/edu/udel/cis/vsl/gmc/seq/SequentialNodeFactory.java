@@ -1,28 +1,106 @@
 package edu.udel.cis.vsl.gmc.seq;
 
-import java.util.Collection;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
 
 import edu.udel.cis.vsl.gmc.TraceStepIF;
+import edu.udel.cis.vsl.gmc.util.ObjectIntMap;
 
 /**
+ * <p>
  * The factory to get a GMC search {@link SequentialNode}, if the
  * {@link SequentialNode} has been seen before, the seen {@link SequentialNode}
  * will be returned, otherwise, a new {@link SequentialNode} will be created and
  * returned.
+ * </p>
+ * 
+ * <p>
+ * Only the states on the DFS stack keep their {@link SequentialNode} while
+ * they are on the stack. The search information of the other visited states
+ * is held in parallel arrays indexed by the node id (the normalized state, its
+ * depth, and whether it has been visited or is on the stack), and an
+ * {@link ObjectIntMap} maps each state to its id. A visited state which is
+ * encountered again off the stack is given a {@link SequentialNode} built from
+ * these arrays, instead of keeping a {@link SequentialNode} and a hash map
+ * entry alive for every state. That node is reused for every such match, so
+ * it is only valid until the next call to {@link #getNode(TraceStepIF)}.
+ * </p>
+ * 
+ * <p>
+ * The visited states can be saved in a checkpoint of the search: they are
+ * copied by {@link #snapshotVisited()} on the thread of the search, and the
+ * copy is written on another thread, while the search goes on.
+ * </p>
  * 
  * @author Yihao Yan (yanyihao)
  */
 public class SequentialNodeFactory<STATE, TRANSITION> {
 	/**
-	 * Maps each STATE to a unique {@link SequentialNode}.
+	 * A copy of the visited states of a factory, which can be written to a
+	 * checkpoint independently of the factory.
+	 */
+	public interface Snapshot {
+		/**
+		 * Writes the visited states.
+		 * 
+		 * @param out
+		 *            the output to which to write
+		 * @throws IOException
+		 *             if the output throws it
+		 */
+		void write(DataOutput out) throws IOException;
+	}
+
+	/**
+	 * The initial capacity of the arrays indexed by node id.
+	 */
+	private static final int INITIAL_CAPACITY = 1 << 10;
+
+	/**
+	 * Maps each STATE, normalized or not, to the id of its normalized state.
+	 */
+	private ObjectIntMap<STATE> idMap = new ObjectIntMap<>(INITIAL_CAPACITY);
+
+	/**
+	 * The normalized state of each id.
+	 */
+	private Object[] states = new Object[INITIAL_CAPACITY];
+
+	/**
+	 * The depth of the node of each id when it was last popped from the stack.
+	 * See {@link SequentialNode#getDepth()}.
+	 */
+	private int[] depths = new int[INITIAL_CAPACITY];
+
+	/**
+	 * The ids of the nodes which have been pushed onto the stack.
 	 */
-	private Map<STATE, SequentialNode<STATE>> nodeMap = new HashMap<>();
+	private BitSet seen = new BitSet();
 
 	/**
-	 * The counter used to count the # of {@link SequentialNode} cached in
-	 * {@link #nodeMap}.
+	 * The ids of the nodes which are currently on the stack.
+	 */
+	private BitSet onStack = new BitSet();
+
+	/**
+	 * Maps each normalized state on the stack to its {@link SequentialNode}.
+	 */
+	private Map<STATE, SequentialNode<STATE>> stackMap = new HashMap<>();
+
+	/**
+	 * The node returned for the visited states which are not on the stack,
+	 * reused until it is pushed onto the stack, or null.
+	 */
+	private SequentialNode<STATE> matchedNode = null;
+
+	/**
+	 * The counter used to count the # of ids given so far.
 	 */
 	private int nodeCounter = 0;
 
@@ -34,7 +112,10 @@ public class SequentialNodeFactory<STATE, TRANSITION> {
 
 	private boolean saveStates = true;
 
-	private static int NOT_SAVED = -1;
+	/**
+	 * The id given to a {@link SequentialNode} whose state is not saved.
+	 */
+	protected static final int NOT_SAVED = -1;
 
 	public SequentialNodeFactory(StateManager<STATE, TRANSITION> stateManager,
 			boolean saveStates) {
@@ -59,30 +140,82 @@ public class SequentialNodeFactory<STATE, TRANSITION> {
 		STATE state = traceStep.getFinalState();
 
 		if (saveStates) {
-			SequentialNode<STATE> result = nodeMap.get(state);
+			int id = idMap.get(state);
 
-			if (result == null) {
+			if (id == ObjectIntMap.ABSENT) {
 				stateManager.normalize(traceStep);
 
 				STATE normalizedState = traceStep.getFinalState();
 
 				if (normalizedState != state) {
-					result = nodeMap.get(normalizedState);
-					if (result == null) {
-						result = new SequentialNode<STATE>(normalizedState,
-								nodeCounter++);
-						nodeMap.put(normalizedState, result);
-					}
-				} else {
-					result = new SequentialNode<STATE>(state, nodeCounter++);
-				}
-				nodeMap.put(state, result);
+					id = idMap.get(normalizedState);
+					if (id == ObjectIntMap.ABSENT)
+						id = newId(normalizedState);
+					idMap.put(state, id);
+				} else
+					id = newId(state);
 			}
-			return result;
+			return node(id, true);
 		} else
 			return new SequentialNode<STATE>(state, NOT_SAVED);
 	}
 
+	/**
+	 * Gives the next id to a normalized state which has no id.
+	 * 
+	 * @param normalizedState
+	 *            a normalized state
+	 * @return the id of the state
+	 */
+	private int newId(STATE normalizedState) {
+		int id = nodeCounter++;
+
+		if (id == states.length) {
+			states = Arrays.copyOf(states, id << 1);
+			depths = Arrays.copyOf(depths, id << 1);
+		}
+		states[id] = normalizedState;
+		idMap.put(normalizedState, id);
+		return id;
+	}
+
+	/**
+	 * Returns the {@link SequentialNode} of an id: the node on the stack if
+	 * there is one, otherwise a node recording the search information of the
+	 * id.
+	 * 
+	 * @param id
+	 *            an id given by {@link #newId(Object)}
+	 * @param reuse
+	 *            if true, the node of a visited state which is not on the
+	 *            stack is {@link #matchedNode}, which is only valid until the
+	 *            next call to this method; otherwise it is a new node
+	 * @return the {@link SequentialNode} of the id
+	 */
+	private SequentialNode<STATE> node(int id, boolean reuse) {
+		@SuppressWarnings("unchecked")
+		STATE state = (STATE) states[id];
+
+		if (onStack.get(id))
+			return stackMap.get(state);
+		if (!seen.get(id))
+			return new SequentialNode<STATE>(state, id);
+
+		SequentialNode<STATE> result;
+
+		if (reuse) {
+			if (matchedNode == null)
+				matchedNode = new SequentialNode<STATE>(state, id);
+			else
+				matchedNode.reset(state, id);
+			result = matchedNode;
+		} else
+			result = new SequentialNode<STATE>(state, id);
+		result.setSeen(true);
+		result.setDepth(depths[id]);
+		return result;
+	}
+
 	/**
 	 * Get the node associated to the given state, null there is no such a node.
 	 * 
@@ -92,32 +225,16 @@ public class SequentialNodeFactory<STATE, TRANSITION> {
 	 *         node.
 	 */
 	public SequentialNode<STATE> getNode(STATE state) {
-		return nodeMap.get(state);
-	}
+		int id = idMap.get(state);
 
-	/**
-	 * Construct a new stack entry which will be pushed onto the stack.
-	 * 
-	 * @param node
-	 *            The {@link SequentialNode} that wraps the source state.
-	 * @param transitions
-	 *            This could be the ample set or ample set complement of the
-	 *            source state.
-	 * @param full
-	 *            Whether {@code transitions} is ample set complement or not.
-	 * @return The newly constructed {@link StackEntry}.
-	 */
-	public StackEntry<STATE, TRANSITION> newStackEntry(
-			SequentialNode<STATE> node, Collection<TRANSITION> transitions,
-			int offset) {
-		return new StackEntry<>(node, transitions, offset);
+		return id == ObjectIntMap.ABSENT ? null : node(id, false);
 	}
 
 	/**
 	 * @return the number of search nodes saved.
 	 */
 	public int numOfSearchNodeSaved() {
-		return nodeMap.size();
+		return nodeCounter;
 	}
 
 	/**
@@ -127,26 +244,261 @@ public class SequentialNodeFactory<STATE, TRANSITION> {
 	 * @return
 	 */
 	public SequentialNode<STATE> getInitialNode(STATE initState) {
-		SequentialNode<STATE> initNode;
-
 		if (saveStates) {
-			initNode = new SequentialNode<STATE>(initState, nodeCounter++);
+			int id = idMap.get(initState);
+
+			return node(id == ObjectIntMap.ABSENT ? newId(initState) : id,
+					false);
 		} else
-			initNode = new SequentialNode<STATE>(initState, NOT_SAVED);
+			return new SequentialNode<STATE>(initState, NOT_SAVED);
+	}
 
-		nodeMap.put(initState, initNode);
-		return initNode;
+	/**
+	 * Called by the {@link DfsSearcher} right after the node has been pushed
+	 * onto the DFS stack (and marked as seen). Until it is popped, the node is
+	 * the one returned for its state.
+	 * 
+	 * @param node
+	 *            the node that has just been pushed
+	 */
+	public void pushed(SequentialNode<STATE> node) {
+		int id = node.getId();
+
+		if (node == matchedNode)
+			matchedNode = null;
+		if (id != NOT_SAVED) {
+			seen.set(id);
+			onStack.set(id);
+			addStackNode(node);
+		}
+	}
+
+	/**
+	 * Called by the {@link DfsSearcher} right after the node has been popped
+	 * from the DFS stack. The depth of the node is recorded, since it is
+	 * needed to find a minimal counterexample.
+	 * 
+	 * @param node
+	 *            the node that has just been popped
+	 */
+	public void popped(SequentialNode<STATE> node) {
+		int id = node.getId();
+
+		if (id != NOT_SAVED) {
+			onStack.clear(id);
+			depths[id] = node.getDepth();
+			removeStackNode(node);
+		}
+	}
+
+	/**
+	 * Records the node of a state which has just been pushed onto the stack.
+	 * 
+	 * @param node
+	 *            the node that has just been pushed
+	 */
+	protected void addStackNode(SequentialNode<STATE> node) {
+		stackMap.put(node.getState(), node);
 	}
 
 	/**
-	 * Look up if there exists a {@link SequentialNode} associated with a
-	 * non-initial state, if there is, return the {@link SequentialNode},
-	 * otherwise return null.
+	 * Forgets the node of a state which has just been popped from the stack.
 	 * 
+	 * @param node
+	 *            the node that has just been popped
+	 */
+	protected void removeStackNode(SequentialNode<STATE> node) {
+		stackMap.remove(node.getState());
+	}
+
+	/**
 	 * @param state
-	 * @return
+	 *            a normalized state
+	 * @return the node of the state if it is on the stack, otherwise null
+	 */
+	protected SequentialNode<STATE> stackNode(STATE state) {
+		return stackMap.get(state);
+	}
+
+	/**
+	 * Releases the resources held outside of the Java heap by this factory,
+	 * such as open files. Called by the {@link DfsSearcher} when its search is
+	 * over; the visited states may still be counted, but no state should be
+	 * added afterwards. Does nothing by default.
+	 */
+	public void close() {
+	}
+
+	/**
+	 * Prints statistics about the storage of the visited states, if this
+	 * factory has any to report. Prints nothing by default.
+	 * 
+	 * @param out
+	 *            the stream to which to print
+	 */
+	public void printSummary(PrintStream out) {
+	}
+
+	/**
+	 * Estimates the number of bytes used to record the visited states, not
+	 * counting the states themselves: the hash table and the arrays indexed by
+	 * id, assuming 8-byte references.
+	 * 
+	 * @return the estimated number of bytes of the visited set
+	 */
+	public long estimatedBytes() {
+		return 16L * idMap.capacity() + 12L * states.length
+				+ (seen.size() + onStack.size()) / 8;
+	}
+
+	/**
+	 * Copies the visited states. Called by the {@link DfsSearcher} on its
+	 * thread; the result is written on another thread.
+	 * 
+	 * @return the copy of the visited states and of the id counter
+	 */
+	final Snapshot snapshot() {
+		int numIds = nodeCounter;
+		Snapshot visited = snapshotVisited();
+
+		return out -> {
+			out.writeInt(numIds);
+			visited.write(out);
+		};
+	}
+
+	/**
+	 * Restores the visited states written by a {@link #snapshot()}. This
+	 * factory must be new.
+	 * 
+	 * @param in
+	 *            the input from which to read
+	 * @throws IOException
+	 *             if the input throws it or is not a snapshot of this kind of
+	 *             factory
+	 */
+	final void restore(DataInput in) throws IOException {
+		nodeCounter = in.readInt();
+		restoreVisited(in);
+	}
+
+	/**
+	 * Copies the visited states, so that they can be written on another
+	 * thread while the search goes on. The normalized states are written with
+	 * the serializer of the state manager, on that other thread, so they must
+	 * not be modified.
+	 * 
+	 * @return the copy of the visited states
+	 */
+	protected Snapshot snapshotVisited() {
+		int numIds = nodeCounter;
+
+		if (!saveStates)
+			return out -> out.writeBoolean(false);
+
+		StateSerializer<STATE> serializer = serializer();
+		Object[] statesCopy = Arrays.copyOf(states, numIds);
+		int[] depthsCopy = Arrays.copyOf(depths, numIds);
+		long[] seenCopy = seen.toLongArray();
+
+		return out -> {
+			out.writeBoolean(true);
+			for (int id = 0; id < numIds; id++) {
+				@SuppressWarnings("unchecked")
+				STATE state = (STATE) statesCopy[id];
+
+				serializer.write(state, out);
+				out.writeInt(depthsCopy[id]);
+			}
+			out.writeInt(seenCopy.length);
+			for (long word : seenCopy)
+				out.writeLong(word);
+		};
+	}
+
+	/**
+	 * Restores the visited states written by {@link #snapshotVisited()}. The
+	 * id counter has already been restored.
+	 * 
+	 * @param in
+	 *            the input from which to read
+	 * @throws IOException
+	 *             if the input throws it
+	 */
+	protected void restoreVisited(DataInput in) throws IOException {
+		int numIds = nodeCounter;
+
+		if (in.readBoolean() != saveStates)
+			throw new IOException(saveStates
+					? "Checkpoint of a search which does not save the states"
+					: "Checkpoint of a search which saves the states");
+		if (!saveStates)
+			return;
+
+		StateSerializer<STATE> serializer = serializer();
+		int capacity = INITIAL_CAPACITY;
+		long[] seenWords;
+
+		while (capacity < numIds)
+			capacity <<= 1;
+		states = new Object[capacity];
+		depths = new int[capacity];
+		idMap = new ObjectIntMap<>(capacity);
+		for (int id = 0; id < numIds; id++) {
+			STATE state = serializer.read(in);
+
+			states[id] = state;
+			depths[id] = in.readInt();
+			idMap.put(state, id);
+		}
+		seenWords = new long[in.readInt()];
+		for (int i = 0; i < seenWords.length; i++)
+			seenWords[i] = in.readLong();
+		seen = BitSet.valueOf(seenWords);
+	}
+
+	/**
+	 * Records a node which is on the stack of a search restored from a
+	 * checkpoint, after the visited states have been restored.
+	 * 
+	 * @param node
+	 *            a node which has just been pushed onto the restored stack
+	 */
+	protected void restoreStackNode(SequentialNode<STATE> node) {
+		int id = node.getId();
+
+		if (id != NOT_SAVED) {
+			seen.set(id);
+			onStack.set(id);
+			addStackNode(node);
+		}
+	}
+
+	/**
+	 * @return the serializer of the state manager
+	 * @throws IllegalStateException
+	 *             if the state manager does not provide one
+	 */
+	protected StateSerializer<STATE> serializer() {
+		StateSerializer<STATE> result = stateManager.getStateSerializer();
+
+		if (result == null)
+			throw new IllegalStateException(
+					"Checkpoints require a state serializer");
+		return result;
+	}
+
+	/**
+	 * @return the next unused node id
+	 */
+	protected int nextId() {
+		return nodeCounter++;
+	}
+
+	/**
+	 * @return the state manager used to normalize states
 	 */
-	SequentialNode<STATE> lookup(STATE state) {
-		return nodeMap.get(state);
+	protected StateManager<STATE, TRANSITION> stateManager() {
+		return stateManager;
 	}
 }
@@ -0,0 +1,457 @@
+package edu.udel.cis.vsl.gmc.seq;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.udel.cis.vsl.gmc.util.Utils;
+
+/**
+ * <p>
+ * A {@link CompactNodeFactory} which stores the visited states outside of the
+ * Java heap, as byte records produced by a {@link StateSerializer}. The records
+ * are appended to large direct {@link ByteBuffer} arenas, or to arenas mapped
+ * from a file, and are indexed by a primitive open-addressing table of record
+ * addresses. The only objects on the heap are the nodes of the states on the
+ * DFS stack and a few large arrays, so the garbage collector has almost
+ * nothing to trace however many states are visited.
+ * </p>
+ *
+ * <p>
+ * Unlike hash compaction and bitstate hashing, this storage is exact: records
+ * with the same hash are compared byte by byte.
+ * </p>
+ */
+public class SerializedNodeFactory<STATE, TRANSITION>
+		extends
+			CompactNodeFactory<STATE, TRANSITION> {
+
+	/**
+	 * A byte array output stream which gives access to its buffer, so the
+	 * record can be hashed and compared without being copied.
+	 */
+	private static class RecordBuffer extends ByteArrayOutputStream {
+		RecordBuffer() {
+			super(256);
+		}
+
+		byte[] bytes() {
+			return buf;
+		}
+	}
+
+	/**
+	 * The default number of bytes of an arena: 64MB.
+	 */
+	public static final int DEFAULT_ARENA_SIZE = 1 << 26;
+
+	/**
+	 * The index table is grown when it is more than this full.
+	 */
+	private static final double MAX_LOAD = 0.75;
+
+	/**
+	 * The serializer used to convert states to byte records.
+	 */
+	private StateSerializer<STATE> serializer;
+
+	/**
+	 * The arenas holding the records. Each record is the length of the
+	 * serialized state (an int) followed by its bytes.
+	 */
+	private List<ByteBuffer> arenas = new ArrayList<>();
+
+	/**
+	 * The arena to which records are currently appended.
+	 */
+	private ByteBuffer currentArena = null;
+
+	/**
+	 * The number of bytes of an arena.
+	 */
+	private int arenaSize;
+
+	/**
+	 * The file from which the arenas are mapped, or null if the arenas are
+	 * direct buffers or the file has been closed.
+	 */
+	private RandomAccessFile file = null;
+
+	/**
+	 * The channel of {@link #file}, or null.
+	 */
+	private FileChannel channel = null;
+
+	/**
+	 * The number of bytes of the file mapped so far.
+	 */
+	private long fileSize = 0;
+
+	/**
+	 * The index table: the address of each record plus one, 0 marking an
+	 * empty slot. An address is the index of the arena in the high 32 bits and
+	 * the offset of the record in the arena in the low 32 bits. The length is a
+	 * power of 2.
+	 */
+	private long[] addresses;
+
+	/**
+	 * The hash of the record of each non-empty slot of {@link #addresses},
+	 * kept so that the table can be grown without reading the records.
+	 */
+	private int[] hashes;
+
+	/**
+	 * The number of records.
+	 */
+	private int numRecords = 0;
+
+	/**
+	 * The total number of bytes of the records.
+	 */
+	private long numBytes = 0;
+
+	/**
+	 * The buffer into which states are serialized.
+	 */
+	private RecordBuffer record = new RecordBuffer();
+
+	/**
+	 * The stream writing to {@link #record}.
+	 */
+	private DataOutputStream recordOut = new DataOutputStream(record);
+
+	/**
+	 * The state last serialized into {@link #record}, since a new state is
+	 * looked up and then immediately recorded.
+	 */
+	private STATE recordState = null;
+
+	/**
+	 * The hash of {@link #record}.
+	 */
+	private int recordHash;
+
+	/**
+	 * Creates a factory storing the records in direct buffers.
+	 *
+	 * @param stateManager
+	 *            the state manager used to normalize states
+	 * @param serializer
+	 *            the serializer used to convert states to byte records
+	 */
+	public SerializedNodeFactory(StateManager<STATE, TRANSITION> stateManager,
+			StateSerializer<STATE> serializer) {
+		this(stateManager, serializer, null, DEFAULT_ARENA_SIZE);
+	}
+
+	/**
+	 * Creates a factory storing the records in direct buffers, or in a
+	 * memory-mapped file.
+	 *
+	 * @param stateManager
+	 *            the state manager used to normalize states
+	 * @param serializer
+	 *            the serializer used to convert states to byte records
+	 * @param file
+	 *            the file from which the arenas are mapped; it is created or
+	 *            overwritten. If null, direct buffers are used.
+	 * @param arenaSize
+	 *            the number of bytes of an arena
+	 */
+	public SerializedNodeFactory(StateManager<STATE, TRANSITION> stateManager,
+			StateSerializer<STATE> serializer, File file, int arenaSize) {
+		super(stateManager);
+		if (serializer == null)
+			throw new NullPointerException("null serializer");
+		if (arenaSize <= 0)
+			throw new IllegalArgumentException(
+					"Arena size is not positive: " + arenaSize);
+		this.serializer = serializer;
+		this.arenaSize = arenaSize;
+		if (file != null) {
+			try {
+				this.file = new RandomAccessFile(file, "rw");
+				this.file.setLength(0);
+				channel = this.file.getChannel();
+			} catch (IOException e) {
+				close();
+				throw new UncheckedIOException(e);
+			}
+		}
+		this.addresses = new long[1 << 16];
+		this.hashes = new int[1 << 16];
+	}
+
+	/**
+	 * Serializes the state into {@link #record}, unless it is already there.
+	 */
+	private void serialize(STATE state) {
+		if (state == recordState)
+			return;
+		record.reset();
+		try {
+			serializer.write(state, recordOut);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		hashRecord();
+		recordState = state;
+	}
+
+	/**
+	 * Computes the hash of {@link #record}.
+	 */
+	private void hashRecord() {
+		byte[] bytes = record.bytes();
+		int length = record.size();
+		long h = length;
+
+		for (int i = 0; i < length; i++)
+			h = 31 * h + bytes[i];
+		recordHash = (int) Utils.mix64(h);
+	}
+
+	/**
+	 * Returns the arena with the given index.
+	 */
+	private ByteBuffer arena(long address) {
+		return arenas.get((int) (address >>> 32));
+	}
+
+	/**
+	 * Is the record at the given address equal to {@link #record}?
+	 */
+	private boolean recordEquals(long address) {
+		ByteBuffer arena = arena(address);
+		int offset = (int) address;
+		int length = record.size();
+		byte[] bytes = record.bytes();
+
+		if (arena.getInt(offset) != length)
+			return false;
+		offset += 4;
+		for (int i = 0; i < length; i++)
+			if (arena.get(offset + i) != bytes[i])
+				return false;
+		return true;
+	}
+
+	/**
+	 * The slot of {@link #record} in the index table: either the slot holding
+	 * an equal record, or the empty slot where it should be inserted.
+	 */
+	private int findSlot() {
+		int mask = addresses.length - 1;
+		int i = recordHash & mask;
+
+		while (addresses[i] != 0) {
+			if (hashes[i] == recordHash && recordEquals(addresses[i] - 1))
+				break;
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	/**
+	 * Allocates a new arena of the given capacity and makes it the current
+	 * one.
+	 */
+	private void newArena(int capacity) {
+		if (channel == null)
+			currentArena = ByteBuffer.allocateDirect(capacity);
+		else {
+			try {
+				currentArena = channel.map(MapMode.READ_WRITE, fileSize,
+						capacity);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			fileSize += capacity;
+		}
+		arenas.add(currentArena);
+	}
+
+	/**
+	 * Appends {@link #record} to the current arena.
+	 *
+	 * @return the address of the record
+	 */
+	private long append() {
+		int length = record.size();
+		int recordSize = length + 4;
+		int offset;
+
+		if (currentArena == null || currentArena.remaining() < recordSize)
+			newArena(Math.max(arenaSize, recordSize));
+		offset = currentArena.position();
+		currentArena.putInt(length);
+		currentArena.put(record.bytes(), 0, length);
+		numBytes += recordSize;
+		return ((long) (arenas.size() - 1) << 32) | offset;
+	}
+
+	/**
+	 * Doubles the capacity of the index table.
+	 */
+	private void grow() {
+		long[] oldAddresses = addresses;
+		int[] oldHashes = hashes;
+		int mask = (oldAddresses.length << 1) - 1;
+
+		addresses = new long[oldAddresses.length << 1];
+		hashes = new int[oldHashes.length << 1];
+		for (int j = 0; j < oldAddresses.length; j++) {
+			if (oldAddresses[j] != 0) {
+				int i = oldHashes[j] & mask;
+
+				while (addresses[i] != 0)
+					i = (i + 1) & mask;
+				addresses[i] = oldAddresses[j];
+				hashes[i] = oldHashes[j];
+			}
+		}
+	}
+
+	/**
+	 * Inserts {@link #record} in the index table and appends it to the current
+	 * arena, unless an equal record is there already.
+	 */
+	private void insertRecord() {
+		int slot = findSlot();
+
+		if (addresses[slot] != 0)
+			return;
+		addresses[slot] = append() + 1;
+		hashes[slot] = recordHash;
+		if (++numRecords > addresses.length * MAX_LOAD)
+			grow();
+	}
+
+	@Override
+	protected void visit(STATE state) {
+		serialize(state);
+		insertRecord();
+	}
+
+	@Override
+	protected boolean visited(STATE state) {
+		serialize(state);
+		return addresses[findSlot()] != 0;
+	}
+
+	@Override
+	protected int numVisited() {
+		return numRecords;
+	}
+
+	/**
+	 * The records are off the heap, and are counted in the estimate.
+	 */
+	@Override
+	public long estimatedBytes() {
+		return numBytes + 12L * addresses.length;
+	}
+
+	/**
+	 * The records are never modified once appended, so the snapshot only
+	 * copies the bounds of the arenas, and reads the records while the search
+	 * goes on.
+	 */
+	@Override
+	protected Snapshot snapshotVisited() {
+		List<ByteBuffer> filled = new ArrayList<>(arenas.size());
+		int n = numRecords;
+
+		for (ByteBuffer arena : arenas) {
+			ByteBuffer copy = arena.duplicate();
+
+			copy.flip();
+			filled.add(copy);
+		}
+		return out -> {
+			byte[] bytes = new byte[256];
+
+			out.writeInt(n);
+			for (ByteBuffer arena : filled) {
+				while (arena.hasRemaining()) {
+					int length = arena.getInt();
+
+					if (length > bytes.length)
+						bytes = new byte[Math.max(length, bytes.length << 1)];
+					arena.get(bytes, 0, length);
+					out.writeInt(length);
+					out.write(bytes, 0, length);
+				}
+			}
+		};
+	}
+
+	@Override
+	protected void restoreVisited(DataInput in) throws IOException {
+		int n = in.readInt();
+		byte[] bytes = new byte[256];
+
+		for (int i = 0; i < n; i++) {
+			int length = in.readInt();
+
+			if (length > bytes.length)
+				bytes = new byte[Math.max(length, bytes.length << 1)];
+			in.readFully(bytes, 0, length);
+			record.reset();
+			record.write(bytes, 0, length);
+			recordState = null;
+			hashRecord();
+			insertRecord();
+		}
+	}
+
+	/**
+	 * @return the total number of bytes of the records stored
+	 */
+	public long numBytes() {
+		return numBytes;
+	}
+
+	/**
+	 * Closes the file from which the arenas are mapped, if any. The arenas
+	 * stay readable, since a mapping does not depend on its channel, and are
+	 * unmapped when this factory is garbage collected; the arenas allocated
+	 * after this call are direct buffers.
+	 *
+	 * @throws UncheckedIOException
+	 *             if the file cannot be closed
+	 */
+	@Override
+	public void close() {
+		RandomAccessFile file = this.file;
+
+		this.file = null;
+		this.channel = null;
+		if (file != null) {
+			try {
+				file.close();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	@Override
+	public void printSummary(PrintStream out) {
+		out.println("Serialized states:        " + numRecords);
+		out.println("Serialized bytes:         " + numBytes);
+		out.println("Off-heap arenas:          " + arenas.size());
+		out.flush();
+	}
+}
@@ -1,14 +1,33 @@
 package edu.udel.cis.vsl.gmc.seq;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.RandomAccess;
 
 /**
  * The stack entry that is going to be pushed onto the stack during the search.
  * The stack entry also serves as the iterator of the ample set or ample set
  * complement of the source {@code state}.
  * 
+ * <p>
+ * The transitions are copied into an array owned by the entry, which is
+ * iterated with a cursor. The entries of a {@link DfsStack} are reused through
+ * {@link #reset(SequentialNode, Collection, int)}, so the array is only
+ * reallocated when a state has more transitions than any state previously
+ * pushed at the same depth.
+ * </p>
+ * 
+ * <p>
+ * An entry may instead be given an iterator over the transitions, by a
+ * {@link LazyEnablerIF}. The transitions are then pulled into the array one
+ * at a time, when the cursor reaches the end of the transitions already
+ * pulled.
+ * </p>
+ * 
  * @author Yihao Yan (yanyihao)
  *
  */
@@ -26,22 +45,35 @@ public class StackEntry<STATE, TRANSITION> implements Iterator<TRANSITION> {
 	private Collection<TRANSITION> transitions;
 
 	/**
-	 * The iterator to iterate either the ample set or the ample set complement
-	 * of the {@link #sourceState}. This iterator will iterate over all the
-	 * transitions after {@link #current} transition.
+	 * The iterator giving the transitions which have not been pulled into
+	 * {@link #buffer} yet, or null if there is none left.
+	 */
+	private Iterator<TRANSITION> pending;
+
+	/**
+	 * The transitions of {@link #transitions}, in iteration order, followed by
+	 * unused slots.
 	 */
-	private Iterator<TRANSITION> transitionIterator;
+	private Object[] buffer = new Object[4];
 
 	/**
-	 * The index of the current transition. This is used to write the trace file
-	 * which will be used later for replay.
+	 * The number of transitions in {@link #buffer}: all the transitions,
+	 * unless some are still {@link #pending}.
 	 */
-	private int tid = -1;
+	private int count = 0;
 
 	/**
-	 * The current transition.
+	 * The index in {@link #buffer} of the current transition.
 	 */
-	private TRANSITION current = null;
+	private int cursor = 0;
+
+	/**
+	 * The index of the first transition, see
+	 * {@link #reset(SequentialNode, Collection, int)}. The index of the current
+	 * transition is {@code offset + cursor}. This is used to write the trace
+	 * file which will be used later for replay.
+	 */
+	private int offset = 0;
 
 	/**
 	 * If a successor is on stack, then it will have an index on the stack. This
@@ -64,63 +96,173 @@ public class StackEntry<STATE, TRANSITION> implements Iterator<TRANSITION> {
 	 */
 	public StackEntry(SequentialNode<STATE> node,
 			Collection<TRANSITION> transitions, int offset) {
+		reset(node, transitions, offset);
+	}
+
+	/**
+	 * Creates an empty entry, to be initialized by
+	 * {@link #reset(SequentialNode, Collection, int)}.
+	 */
+	StackEntry() {
+	}
+
+	/**
+	 * Makes this entry an entry for another state or another set of
+	 * transitions, as if it was newly constructed.
+	 * 
+	 * @param node
+	 *            The node that wraps the source state.
+	 * @param transitions
+	 *            The ample set or ample set complement of the source state.
+	 * @param offset
+	 *            the start index of transitions in {@link #transitions}, see
+	 *            {@link #StackEntry(SequentialNode, Collection, int)}
+	 */
+	void reset(SequentialNode<STATE> node, Collection<TRANSITION> transitions,
+			int offset) {
+		int n = transitions.size();
+
+		if (n > buffer.length)
+			buffer = new Object[Math.max(n, buffer.length << 1)];
+		else if (n < count)
+			Arrays.fill(buffer, n, count, null);
+		if (transitions instanceof RandomAccess
+				&& transitions instanceof List) {
+			List<TRANSITION> list = (List<TRANSITION>) transitions;
+
+			for (int i = 0; i < n; i++)
+				buffer[i] = list.get(i);
+		} else {
+			int i = 0;
+
+			for (TRANSITION transition : transitions)
+				buffer[i++] = transition;
+		}
 		this.node = node;
 		this.transitions = transitions;
-		this.transitionIterator = transitions.iterator();
-		if (transitionIterator.hasNext()) {
-			this.current = transitionIterator.next();
-			tid = offset;
+		this.pending = null;
+		this.count = n;
+		this.cursor = 0;
+		this.offset = offset;
+		this.minimumSuccessorStackIndex = Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Makes this entry an entry whose transitions are generated on demand by
+	 * an iterator.
+	 * 
+	 * @param node
+	 *            The node that wraps the source state.
+	 * @param transitions
+	 *            The ample set or ample set complement of the source state, as
+	 *            an iterator which has not been used.
+	 * @param offset
+	 *            the start index of transitions in {@link #transitions}, see
+	 *            {@link #StackEntry(SequentialNode, Collection, int)}
+	 */
+	void reset(SequentialNode<STATE> node, Iterator<TRANSITION> transitions,
+			int offset) {
+		Arrays.fill(buffer, 0, count, null);
+		this.node = node;
+		this.transitions = null;
+		this.pending = transitions;
+		this.count = 0;
+		this.cursor = 0;
+		this.offset = offset;
+		this.minimumSuccessorStackIndex = Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Pulls pending transitions into {@link #buffer} until it holds the
+	 * transition with the given index.
+	 * 
+	 * @return true iff there is a transition with the given index
+	 */
+	private boolean fill(int index) {
+		while (index >= count) {
+			if (pending == null)
+				return false;
+			if (!pending.hasNext()) {
+				pending = null;
+				return false;
+			}
+			if (count == buffer.length)
+				buffer = Arrays.copyOf(buffer, count << 1);
+			buffer[count++] = pending.next();
 		}
+		return true;
+	}
+
+	/**
+	 * @return true iff there is a transition at the cursor
+	 */
+	private boolean fill() {
+		return cursor < count || fill(cursor);
+	}
+
+	/**
+	 * Pulls all the pending transitions into {@link #buffer}.
+	 */
+	private void fillAll() {
+		while (pending != null)
+			fill(count);
 	}
 
 	/**
-	 * @return the current transition but not move the
-	 *         {@link #transitionIterator}.
+	 * Drops the references of this entry to the state and the transitions.
 	 */
+	void clear() {
+		Arrays.fill(buffer, 0, count, null);
+		node = null;
+		transitions = null;
+		pending = null;
+		count = 0;
+		cursor = 0;
+	}
+
+	/**
+	 * @return the current transition but not move to the next transition.
+	 */
+	@SuppressWarnings("unchecked")
 	public TRANSITION peek() {
-		if (current == null)
+		if (!fill())
 			throw new NoSuchElementException();
-		return current;
+		return (TRANSITION) buffer[cursor];
 	}
 
 	/**
-	 * @return the current transition and also move the
-	 *         {@link #transitionIterator}.
+	 * @return the current transition and also move to the next transition.
 	 */
+	@SuppressWarnings("unchecked")
 	@Override
 	public TRANSITION next() {
-		TRANSITION result = current;
-
-		if (result != null) {
-			if (transitionIterator.hasNext()) {
-				current = transitionIterator.next();
-				tid++;
-			} else
-				current = null;
-		} else
+		if (!fill())
 			throw new NoSuchElementException();
-		return result;
+		return (TRANSITION) buffer[cursor++];
 	}
 
+	/**
+	 * @return the index of the current transition, or -1 if there is no
+	 *         transition at all
+	 */
 	public int getTid() {
-		return tid;
+		fill();
+		if (count == 0)
+			return -1;
+		return offset + Math.min(cursor, count - 1);
 	}
 
 	public SequentialNode<STATE> getNode() {
 		return node;
 	}
 
-	public Iterator<TRANSITION> getTransitionIterator() {
-		return transitionIterator;
-	}
-
 	public STATE source() {
 		return node.getState();
 	}
 
 	@Override
 	public boolean hasNext() {
-		return current != null;
+		return fill();
 	}
 
 	public STATE getState() {
@@ -135,7 +277,57 @@ public class StackEntry<STATE, TRANSITION> implements Iterator<TRANSITION> {
 		this.minimumSuccessorStackIndex = minimumSuccessorStackIndex;
 	}
 
+	/**
+	 * Returns the transitions of this entry. If they are generated by an
+	 * iterator, the pending ones are generated first.
+	 * 
+	 * @return the transitions of this entry, in iteration order
+	 */
+	@SuppressWarnings("unchecked")
 	public Collection<TRANSITION> getTransitions() {
+		if (transitions == null && node != null) {
+			fillAll();
+			transitions = (Collection<TRANSITION>) Collections
+					.unmodifiableList(
+							Arrays.asList(Arrays.copyOf(buffer, count)));
+		}
 		return transitions;
 	}
+
+	/**
+	 * @return the number of transitions of this entry; if they are generated
+	 *         by an iterator, the pending ones are generated first
+	 */
+	int size() {
+		fillAll();
+		return count;
+	}
+
+	/**
+	 * @return the index of the first transition of this entry, see
+	 *         {@link #reset(SequentialNode, Collection, int)}
+	 */
+	int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * @return the index of the current transition among the transitions of
+	 *         this entry, which is their number if they have all been explored
+	 */
+	int getCursor() {
+		return cursor;
+	}
+
+	/**
+	 * Moves to the transition with the given index among the transitions of
+	 * this entry, as when a checkpoint is restored.
+	 */
+	void setCursor(int cursor) {
+		fillAll();
+		if (cursor < 0 || cursor > count)
+			throw new IndexOutOfBoundsException(
+					"Cursor: " + cursor + ", Count: " + count);
+		this.cursor = cursor;
+	}
 }
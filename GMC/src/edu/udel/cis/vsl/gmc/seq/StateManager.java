@@ -3,6 +3,7 @@ package edu.udel.cis.vsl.gmc.seq;
 import java.io.PrintStream;
 
 import edu.udel.cis.vsl.gmc.TraceStepIF;
+import edu.udel.cis.vsl.gmc.util.Utils;
 
 /**
  * A StateManagerIF provides part of a generic interface to a state-transition
@@ -176,6 +177,39 @@ public abstract class StateManager<STATE, TRANSITION> {
 		return -1;
 	}
 
+	/**
+	 * <p>
+	 * Returns a 64-bit fingerprint of a normalized state. Equal states must
+	 * have equal fingerprints. The fingerprint stands for the state in the
+	 * storage modes which do not save the full states (hash compaction and
+	 * bitstate hashing): two different states with the same fingerprint are
+	 * considered the same, so the second one is not explored.
+	 * </p>
+	 * 
+	 * <p>
+	 * The default implementation scrambles {@link Object#hashCode()}, which
+	 * only has 32 bits. Models should override it with a strong 64-bit hash
+	 * of the state when using those storage modes.
+	 * </p>
+	 * 
+	 * @param normalizedState
+	 *            a normalized state
+	 * @return the fingerprint of the state
+	 */
+	public long fingerprint(STATE normalizedState) {
+		return Utils.mix64(normalizedState.hashCode());
+	}
+
+	/**
+	 * Returns the serializer used to store states as byte records outside of
+	 * the Java heap, or null if the model does not provide one (the default).
+	 * 
+	 * @return the state serializer, or null
+	 */
+	public StateSerializer<STATE> getStateSerializer() {
+		return null;
+	}
+
 	public void setSequentialNodeFactory(
 			SequentialNodeFactory<STATE, TRANSITION> nodeFactory) {
 		this.nodeFactory = nodeFactory;
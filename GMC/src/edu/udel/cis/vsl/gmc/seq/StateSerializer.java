@@ -0,0 +1,50 @@
+package edu.udel.cis.vsl.gmc.seq;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * <p>
+ * A StateSerializer converts normalized states to compact byte records and
+ * back. It is provided by the model (see
+ * {@link StateManager#getStateSerializer()}) to the storage modes which keep
+ * the visited states outside of the Java heap, such as
+ * {@link SerializedNodeFactory}.
+ * </p>
+ * 
+ * <p>
+ * The encoding must be canonical: two equal states must be written as the
+ * same sequence of bytes, and two different states as different sequences,
+ * since the visited states are compared byte by byte.
+ * </p>
+ * 
+ * @param <STATE>
+ *            the type used to represent states in the state-transition system
+ *            being analyzed
+ */
+public interface StateSerializer<STATE> {
+
+	/**
+	 * Writes the state to the output.
+	 * 
+	 * @param state
+	 *            a normalized state
+	 * @param out
+	 *            the output to which to write the state
+	 * @throws IOException
+	 *             if the output throws it
+	 */
+	void write(STATE state, DataOutput out) throws IOException;
+
+	/**
+	 * Reads a state written by {@link #write(Object, DataOutput)}.
+	 * 
+	 * @param in
+	 *            the input from which to read the state
+	 * @return the state
+	 * @throws IOException
+	 *             if the input throws it, or does not contain a state
+	 */
+	STATE read(DataInput in) throws IOException;
+}
@@ -0,0 +1,558 @@
+package edu.udel.cis.vsl.gmc.seq;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import edu.udel.cis.vsl.gmc.ErrorLog;
+import edu.udel.cis.vsl.gmc.ExcessiveErrorException;
+import edu.udel.cis.vsl.gmc.GMCConfiguration;
+import edu.udel.cis.vsl.gmc.LogEntry;
+import edu.udel.cis.vsl.gmc.StatePredicateIF;
+import edu.udel.cis.vsl.gmc.TraceWriterIF;
+import edu.udel.cis.vsl.gmc.util.Utils;
+
+/**
+ * <p>
+ * A swarm of independent {@link DfsSearcher}s, each one running on its own
+ * thread. The searchers share nothing: each one has its own enabler, state
+ * manager and predicate, obtained from the suppliers given at creation, and
+ * its own memory-bounded store of visited states, a
+ * {@link BitstateNodeFactory}. Hence the swarm scales with the number of
+ * cores, and the memory used is fixed.
+ * </p>
+ *
+ * <p>
+ * The searchers are diversified so that they explore different parts of the
+ * state space first. Worker i:
+ * </p>
+ * <ul>
+ * <li>explores the transitions in a random order, seeded with the base seed
+ * plus i, except worker 0 which keeps the order of the enabler;</li>
+ * <li>does not use partial order reduction if i % 4 is 3;</li>
+ * <li>has depth bound d, d/2 or d/4 according to i % 3, if a depth bound d is
+ * set;</li>
+ * <li>uses bitstate hash functions seeded with the base seed plus i.</li>
+ * </ul>
+ *
+ * <p>
+ * If an {@link ErrorLog} is set, every violation found by a worker is reported
+ * to it, together with the worker's trace, and the worker goes on with its
+ * search. The swarm stops when all the searches are over, or when the log
+ * throws an {@link ExcessiveErrorException}. Without a log, the swarm stops at
+ * the first violation. The traces are written with the transition indexes of
+ * the original enabler, so they can be replayed as usual.
+ * </p>
+ */
+public class SwarmSearcher<STATE, TRANSITION> {
+
+	/**
+	 * The default number of bits of the bit array of each worker: 2^27 bits,
+	 * i.e., 16MB.
+	 */
+	public static final long DEFAULT_BITSTATE_SIZE = 1L << 27;
+
+	/**
+	 * Makes a new enabler for each worker.
+	 */
+	private Supplier<? extends EnablerIF<STATE, TRANSITION>> enablers;
+
+	/**
+	 * Makes a new state manager for each worker.
+	 */
+	private Supplier<? extends StateManager<STATE, TRANSITION>> managers;
+
+	/**
+	 * Makes a new predicate for each worker.
+	 */
+	private Supplier<? extends StatePredicateIF<STATE>> predicates;
+
+	/**
+	 * The configuration given to each {@link DfsSearcher}.
+	 */
+	private GMCConfiguration gmcConfig;
+
+	/**
+	 * The number of workers.
+	 */
+	private int numWorkers;
+
+	/**
+	 * The seed from which the seeds of the workers are derived.
+	 */
+	private long seed = 0;
+
+	/**
+	 * The largest depth bound of the workers, or a non-positive value if the
+	 * depth is not bounded.
+	 */
+	private int depthBound = 0;
+
+	/**
+	 * The log to which the violations are reported, or null.
+	 */
+	private ErrorLog log = null;
+
+	/**
+	 * Makes the log entry of a violating state.
+	 */
+	private Function<? super STATE, ? extends LogEntry> entries = null;
+
+	/**
+	 * The workers of the last search.
+	 */
+	private List<Worker> workers = new ArrayList<>();
+
+	/**
+	 * The first worker which found a violation, or null.
+	 */
+	private volatile Worker firstViolation = null;
+
+	/**
+	 * @param enablers
+	 *            makes a new enabler for each worker
+	 * @param managers
+	 *            makes a new state manager for each worker
+	 * @param predicates
+	 *            makes a new predicate for each worker
+	 * @param gmcConfig
+	 *            the configuration of the searches; the bitstate size and
+	 *            number of hash functions are used for the store of each
+	 *            worker, if set. It must not ask for checkpoints or for the
+	 *            transitions to be printed, since the workers would write
+	 *            them to the same file or stream.
+	 * @param numWorkers
+	 *            the number of searches to run in parallel
+	 * @throws IllegalArgumentException
+	 *             if the configuration asks for checkpoints or for the
+	 *             transitions to be printed
+	 */
+	public SwarmSearcher(
+			Supplier<? extends EnablerIF<STATE, TRANSITION>> enablers,
+			Supplier<? extends StateManager<STATE, TRANSITION>> managers,
+			Supplier<? extends StatePredicateIF<STATE>> predicates,
+			GMCConfiguration gmcConfig, int numWorkers) {
+		if (enablers == null)
+			throw new NullPointerException("null enablers");
+		if (managers == null)
+			throw new NullPointerException("null managers");
+		if (predicates == null)
+			throw new NullPointerException("null predicates");
+		if (gmcConfig == null)
+			throw new NullPointerException("null gmcConfig");
+		if (numWorkers <= 0)
+			throw new IllegalArgumentException(
+					"Number of workers is not positive: " + numWorkers);
+		checkConfiguration(gmcConfig);
+		this.enablers = enablers;
+		this.managers = managers;
+		this.predicates = predicates;
+		this.gmcConfig = gmcConfig;
+		this.numWorkers = numWorkers;
+	}
+
+	/**
+	 * Rejects the options which would make all the workers write to the same
+	 * file or stream.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the configuration asks for checkpoints or for the
+	 *             transitions to be printed
+	 */
+	private static void checkConfiguration(GMCConfiguration gmcConfig) {
+		if (gmcConfig.getCheckpointFile() != null)
+			throw new IllegalArgumentException(
+					"Checkpoints are not supported by a swarm search");
+		if (gmcConfig.printTransitions() && !gmcConfig.isQuiet())
+			throw new IllegalArgumentException(
+					"Printing transitions is not supported by a swarm search");
+	}
+
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Sets the largest depth bound of the workers; a non-positive value means
+	 * that the depth is not bounded.
+	 */
+	public void setDepthBound(int depthBound) {
+		this.depthBound = depthBound;
+	}
+
+	public int getDepthBound() {
+		return depthBound;
+	}
+
+	/**
+	 * Sets the log to which the violations are reported.
+	 *
+	 * @param log
+	 *            the log, or null
+	 * @param entries
+	 *            makes the log entry of a violating state
+	 */
+	public void setLog(ErrorLog log,
+			Function<? super STATE, ? extends LogEntry> entries) {
+		if (log != null && entries == null)
+			throw new NullPointerException("null entries");
+		this.log = log;
+		this.entries = entries;
+	}
+
+	public ErrorLog getLog() {
+		return log;
+	}
+
+	/**
+	 * Runs the workers from the given state until they are all done.
+	 *
+	 * @param initialState
+	 *            the state from which each worker starts
+	 * @return true iff a worker found a state satisfying the predicate
+	 */
+	public boolean search(STATE initialState) {
+		ExecutorService pool;
+
+		// the configuration may have been changed since the construction:
+		checkConfiguration(gmcConfig);
+		pool = Executors.newFixedThreadPool(numWorkers);
+		workers.clear();
+		firstViolation = null;
+		for (int i = 0; i < numWorkers; i++)
+			workers.add(new Worker(i));
+		try {
+			List<Future<?>> futures = new ArrayList<>(numWorkers);
+
+			for (Worker worker : workers)
+				futures.add(pool.submit(() -> worker.run(initialState)));
+			for (Future<?> future : futures)
+				future.get();
+		} catch (InterruptedException e) {
+			stopAll();
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted swarm search", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+
+			stopAll();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new IllegalStateException(cause);
+		} finally {
+			pool.shutdownNow();
+		}
+		return firstViolation != null;
+	}
+
+	/**
+	 * Stops all the searches of the workers.
+	 */
+	private void stopAll() {
+		for (Worker worker : workers)
+			worker.searcher.stop();
+	}
+
+	/**
+	 * @return the state satisfying the predicate found by the first worker
+	 *         which found one, or null
+	 */
+	public STATE violatingState() {
+		Worker worker = firstViolation;
+
+		return worker == null ? null : worker.searcher.currentState();
+	}
+
+	/**
+	 * @return the trace of the first worker which found a violation, or null;
+	 *         the trace is only stable if there is no log, since otherwise the
+	 *         worker went on with its search
+	 */
+	public TraceWriterIF counterexample() {
+		return firstViolation;
+	}
+
+	/**
+	 * @return the sum over the workers of the number of states seen
+	 */
+	public long numStatesSeen() {
+		long result = 0;
+
+		for (Worker worker : workers)
+			result += worker.searcher.numStatesSeen();
+		return result;
+	}
+
+	/**
+	 * @return the sum over the workers of the number of transitions executed
+	 */
+	public long numTransitions() {
+		long result = 0;
+
+		for (Worker worker : workers)
+			result += worker.searcher.numTransitions();
+		return result;
+	}
+
+	/**
+	 * Summarizes the last search in a human-readable form printed to the given
+	 * stream.
+	 *
+	 * @param out
+	 *            the stream to which to print the information
+	 */
+	public void printSummary(PrintStream out) {
+		out.println("Number of workers:        " + workers.size());
+		out.println("Number of states seen:    " + numStatesSeen());
+		out.println("Number of transitions:   " + numTransitions());
+		out.println("Violation found:          " + (firstViolation != null));
+		out.flush();
+	}
+
+	/**
+	 * One search of the swarm. It writes its trace with the transition indexes
+	 * of its original enabler.
+	 */
+	private class Worker implements TraceWriterIF {
+
+		/**
+		 * The enabler from the supplier, without diversification.
+		 */
+		private final EnablerIF<STATE, TRANSITION> enabler;
+
+		private final DfsSearcher<STATE, TRANSITION> searcher;
+
+		Worker(int index) {
+			long workerSeed = seed + index;
+			StateManager<STATE, TRANSITION> manager = managers.get();
+			EnablerIF<STATE, TRANSITION> searchEnabler;
+			long bitstateSize = DEFAULT_BITSTATE_SIZE;
+			int bitstateHashes = 3;
+
+			this.enabler = enablers.get();
+			searchEnabler = enabler;
+			if (index % 4 == 3)
+				searchEnabler = new FullEnabler<>(searchEnabler);
+			if (index > 0)
+				searchEnabler = new ShuffledEnabler<>(searchEnabler,
+						new Random(workerSeed));
+			if (gmcConfig.getBitstateSize() > 0) {
+				bitstateSize = gmcConfig.getBitstateSize();
+				bitstateHashes = gmcConfig.getBitstateHashes();
+			}
+			this.searcher = new DfsSearcher<>(searchEnabler, manager,
+					predicates.get(), gmcConfig, null,
+					new BitstateNodeFactory<>(manager, bitstateSize,
+							bitstateHashes, Utils.mix64(workerSeed + 1)));
+			searcher.setName("swarm worker " + index);
+			if (depthBound > 0)
+				searcher.boundDepth(Math.max(1, depthBound >> (index % 3)));
+		}
+
+		void run(STATE initialState) {
+			boolean found = searcher.search(initialState);
+
+			while (found && !searcher.isStopped()) {
+				if (firstViolation == null) {
+					synchronized (SwarmSearcher.this) {
+						if (firstViolation == null)
+							firstViolation = this;
+					}
+				}
+				if (log == null) {
+					stopAll();
+					return;
+				}
+				try {
+					log.report(entries.apply(searcher.currentState()), this);
+				} catch (ExcessiveErrorException e) {
+					stopAll();
+					return;
+				} catch (FileNotFoundException e) {
+					stopAll();
+					throw new UncheckedIOException(e);
+				}
+				// go on with the search from the violating state:
+				found = searcher.proceedToNewState() && searcher.search();
+			}
+		}
+
+		@Override
+		public int traceLength() {
+			return searcher.traceLength();
+		}
+
+		/**
+		 * Writes the stack of the searcher, replacing the index of each
+		 * transition in the diversified enabler by its index in the original
+		 * one: its index in the ample set, or the size of the ample set plus its
+		 * index in the ample set complement. The trace ends with -1 at the top
+		 * state, so that a replay stops there.
+		 */
+		@Override
+		public void writeStack(PrintStream stream) {
+			DfsStack<STATE, TRANSITION> stack = searcher.stack();
+			int size = stack.size();
+			int[] tids = new int[size];
+
+			for (int i = 0; i < size - 1; i++) {
+				StackEntry<STATE, TRANSITION> entry = stack.get(i);
+
+				tids[i] = originalIndex(entry.getState(), entry.peek());
+			}
+			if (size > 0)
+				tids[size - 1] = -1;
+			Utils.writeTrace(stream, tids);
+		}
+
+		private int originalIndex(STATE state, TRANSITION transition) {
+			Collection<TRANSITION> ampleSet = enabler.ampleSet(state);
+			int index = indexOf(ampleSet, transition);
+
+			if (index >= 0)
+				return index;
+			index = indexOf(enabler.ampleSetComplement(state, ampleSet),
+					transition);
+			if (index < 0)
+				throw new IllegalStateException("Transition " + transition
+						+ " is not enabled at " + state);
+			return ampleSet.size() + index;
+		}
+
+		private int indexOf(Collection<TRANSITION> transitions,
+				TRANSITION transition) {
+			Iterator<TRANSITION> iterator = transitions.iterator();
+
+			for (int i = 0; iterator.hasNext(); i++)
+				if (iterator.next().equals(transition))
+					return i;
+			return -1;
+		}
+	}
+
+	/**
+	 * An enabler exploring the transitions of another one in a random order.
+	 */
+	private static class ShuffledEnabler<STATE, TRANSITION>
+			extends
+				DelegatingEnabler<STATE, TRANSITION> {
+
+		private final Random random;
+
+		ShuffledEnabler(EnablerIF<STATE, TRANSITION> enabler, Random random) {
+			super(enabler);
+			this.random = random;
+		}
+
+		private Collection<TRANSITION> shuffle(
+				Collection<TRANSITION> transitions) {
+			List<TRANSITION> result = new ArrayList<>(transitions);
+
+			Collections.shuffle(result, random);
+			return result;
+		}
+
+		@Override
+		public Collection<TRANSITION> ampleSet(STATE source) {
+			return shuffle(enabler.ampleSet(source));
+		}
+
+		@Override
+		public Collection<TRANSITION> ampleSetComplement(STATE state,
+				Collection<TRANSITION> ampleSet) {
+			return shuffle(enabler.ampleSetComplement(state, ampleSet));
+		}
+	}
+
+	/**
+	 * An enabler without partial order reduction: the ample set of each state
+	 * is the full set.
+	 */
+	private static class FullEnabler<STATE, TRANSITION>
+			extends
+				DelegatingEnabler<STATE, TRANSITION> {
+
+		FullEnabler(EnablerIF<STATE, TRANSITION> enabler) {
+			super(enabler);
+		}
+
+		@Override
+		public Collection<TRANSITION> ampleSet(STATE source) {
+			return enabler.fullSet(source);
+		}
+
+		@Override
+		public Collection<TRANSITION> ampleSetComplement(STATE state,
+				Collection<TRANSITION> ampleSet) {
+			return Collections.emptyList();
+		}
+	}
+
+	/**
+	 * An enabler forwarding all the calls to another one.
+	 */
+	private static class DelegatingEnabler<STATE, TRANSITION>
+			implements
+				EnablerIF<STATE, TRANSITION> {
+
+		protected final EnablerIF<STATE, TRANSITION> enabler;
+
+		DelegatingEnabler(EnablerIF<STATE, TRANSITION> enabler) {
+			this.enabler = enabler;
+		}
+
+		@Override
+		public Collection<TRANSITION> ampleSet(STATE source) {
+			return enabler.ampleSet(source);
+		}
+
+		@Override
+		public Collection<TRANSITION> fullSet(STATE state) {
+			return enabler.fullSet(state);
+		}
+
+		@Override
+		public Collection<TRANSITION> ampleSetComplement(STATE state,
+				Collection<TRANSITION> ampleSet) {
+			return enabler.ampleSetComplement(state, ampleSet);
+		}
+
+		@Override
+		public void setDebugging(boolean value) {
+			enabler.setDebugging(value);
+		}
+
+		@Override
+		public boolean debugging() {
+			return enabler.debugging();
+		}
+
+		@Override
+		public void setDebugOut(PrintStream out) {
+			enabler.setDebugOut(out);
+		}
+
+		@Override
+		public PrintStream getDebugOut() {
+			return enabler.getDebugOut();
+		}
+	}
+}
@@ -12,6 +12,13 @@
  * <li><strong>depth-first search</strong> of an arbitrary state-transition
  * system</li>
  * <li><strong>minimal counterexample</strong> search</li>
+ * <li><strong>breadth-first search</strong>, which finds a shortest
+ * counterexample in a single pass</li>
+ * <li><strong>lazy successor generation</strong>: the depth-first search
+ * asks a {@link edu.udel.cis.vsl.gmc.seq.LazyEnablerIF} for the transitions of
+ * a state one at a time</li>
+ * <li><strong>int-specialized depth-first search</strong> of systems whose
+ * states and transitions are encoded as ints</li>
  * </ul>
  * 
  * @author siegel
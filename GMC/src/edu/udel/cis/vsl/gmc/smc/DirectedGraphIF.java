@@ -0,0 +1,90 @@
+package edu.udel.cis.vsl.gmc.smc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * A directed state-transition graph explored by SMC. The states are the
+ * integers from 0 to {@link #numStates()}-1, and each transition is a labeled
+ * edge from a source state to a destination state.
+ * </p>
+ *
+ * <p>
+ * The ample set of a state consists of its transitions whose labels start
+ * with {@value #AMPLE_PREFIX}, if it has any, and of all its transitions
+ * otherwise, as described in {@link MatrixDirectedGraph}.
+ * </p>
+ */
+public interface DirectedGraphIF {
+
+	/**
+	 * The prefix of the labels of the transitions which belong to the ample
+	 * set of their source state.
+	 */
+	String AMPLE_PREFIX = "@";
+
+	/**
+	 * @return the number of states of this graph
+	 */
+	int numStates();
+
+	/**
+	 * Find the destination state with the given <code>sourceState</code> and
+	 * <code>transition</code>.
+	 *
+	 * @param sourceState
+	 *            the source state
+	 * @param transition
+	 *            the transition outgoing from the <code>sourceState</code>
+	 * @return the destination state; if it is not found then
+	 *         {@link Integer#MIN_VALUE} will be returned.
+	 */
+	Integer getDestState(Integer sourceState, String transition);
+
+	/**
+	 * Get all existing outgoing transitions from the given
+	 * <code>sourceState</code> in <code>this</code> graph.
+	 *
+	 * @param sourceState
+	 *            The source state.
+	 * @return the outgoing transitions, which the caller must not modify
+	 */
+	List<String> existingTransitions(Integer sourceState);
+
+	/**
+	 * @param sourceState
+	 *            The source state.
+	 * @return the ample set of the state, which the caller must not modify
+	 */
+	default List<String> ampleTransitions(Integer sourceState) {
+		List<String> existingTransitions = existingTransitions(sourceState);
+		List<String> ampleSet = new ArrayList<>();
+
+		for (String transition : existingTransitions)
+			if (transition.startsWith(AMPLE_PREFIX))
+				ampleSet.add(transition);
+		if (ampleSet.isEmpty())
+			return existingTransitions;
+		return ampleSet;
+	}
+
+	/**
+	 * @param sourceState
+	 *            The source state.
+	 * @return the outgoing transitions which are not in the ample set of the
+	 *         state, which the caller must not modify
+	 */
+	default List<String> ampleComplement(Integer sourceState) {
+		List<String> existingTransitions = existingTransitions(sourceState);
+		List<String> complement = new ArrayList<>();
+
+		for (String transition : existingTransitions)
+			if (!transition.startsWith(AMPLE_PREFIX))
+				complement.add(transition);
+		if (complement.size() == existingTransitions.size())
+			return Collections.emptyList();
+		return complement;
+	}
+}
@@ -0,0 +1,308 @@
+package edu.udel.cis.vsl.gmc.smc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>
+ * Loads a {@link SparseDirectedGraph} from a file, streaming the transitions
+ * into a {@link SparseDirectedGraph.Builder}, so no dense matrix is ever
+ * built. Two formats are read:
+ * </p>
+ *
+ * <ul>
+ * <li><strong>text</strong>: one transition per line, as the source state, the
+ * label and the destination state, separated by white space, e.g.,
+ * <code>0 @a 1</code>. Empty lines and lines starting with <code>#</code> are
+ * ignored. An optional first line <code>states N</code> gives the number of
+ * states; otherwise it is one plus the greatest state of a transition.</li>
+ * <li><strong>binary</strong>, as written by
+ * {@link #writeBinary(SparseDirectedGraph, File)}, in big-endian order: the
+ * magic number {@link #MAGIC}, the version {@link #VERSION}, the number of
+ * states, the number of labels, each label as its UTF-8 length and bytes, the
+ * number of transitions as a long, and each transition as three ints: the
+ * source, the label id and the destination. The transitions are read from a
+ * memory-mapped view of the file.</li>
+ * </ul>
+ */
+public class GraphLoader {
+
+	/**
+	 * The first int of a binary graph file: "SMCG".
+	 */
+	public static final int MAGIC = 0x534d4347;
+
+	/**
+	 * The version of the binary format.
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * The number of bytes of a transition in the binary format.
+	 */
+	private static final int TRANSITION_BYTES = 12;
+
+	/**
+	 * The greatest number of bytes of transitions mapped at once: a mapped
+	 * buffer is indexed by an int.
+	 */
+	private static final long MAX_MAPPED_BYTES = (Integer.MAX_VALUE
+			/ TRANSITION_BYTES) * (long) TRANSITION_BYTES;
+
+	/**
+	 * Loads a graph in either format; a file starting with {@link #MAGIC} is
+	 * read as binary, and any other file as text.
+	 *
+	 * @param file
+	 *            the graph file
+	 * @return the graph
+	 * @throws IOException
+	 *             if the file cannot be read or is malformed
+	 */
+	public static SparseDirectedGraph load(File file) throws IOException {
+		int magic = 0;
+
+		try (DataInputStream in = new DataInputStream(
+				new FileInputStream(file))) {
+			if (file.length() >= 4)
+				magic = in.readInt();
+		}
+		return magic == MAGIC ? loadBinary(file) : loadText(file);
+	}
+
+	/**
+	 * Loads a graph in the text format.
+	 *
+	 * @param file
+	 *            the graph file
+	 * @return the graph
+	 * @throws IOException
+	 *             if the file cannot be read or is malformed
+	 */
+	public static SparseDirectedGraph loadText(File file) throws IOException {
+		try (InputStream in = new FileInputStream(file)) {
+			return loadText(
+					new InputStreamReader(in, StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Reads a graph in the text format. The reader is not closed.
+	 *
+	 * @param reader
+	 *            the text of the graph
+	 * @return the graph
+	 * @throws IOException
+	 *             if the text cannot be read or is malformed
+	 */
+	public static SparseDirectedGraph loadText(Reader reader)
+			throws IOException {
+		BufferedReader in = new BufferedReader(reader, 1 << 16);
+		SparseDirectedGraph.Builder builder = null;
+		String[] tokens = new String[3];
+		int lineNumber = 0;
+		String line;
+
+		while ((line = in.readLine()) != null) {
+			int numTokens;
+
+			lineNumber++;
+			numTokens = tokenize(line, tokens);
+			if (numTokens == 0 || tokens[0].startsWith("#"))
+				continue;
+			if (builder == null && numTokens == 2
+					&& tokens[0].equals("states")) {
+				builder = new SparseDirectedGraph.Builder(
+						parseState(tokens[1], lineNumber));
+				continue;
+			}
+			if (numTokens != 3)
+				throw new IOException("line " + lineNumber
+						+ ": expected <source> <label> <destination>");
+			if (builder == null)
+				builder = new SparseDirectedGraph.Builder();
+			try {
+				builder.addTransition(parseState(tokens[0], lineNumber),
+						tokens[1], parseState(tokens[2], lineNumber));
+			} catch (IllegalArgumentException e) {
+				throw new IOException(
+						"line " + lineNumber + ": " + e.getMessage());
+			}
+		}
+		if (builder == null)
+			builder = new SparseDirectedGraph.Builder();
+		return builder.build();
+	}
+
+	/**
+	 * Splits a line at white space into at most as many tokens as the array
+	 * has, plus one; the extra token, if any, is not stored.
+	 *
+	 * @return the number of tokens found, up to tokens.length + 1
+	 */
+	private static int tokenize(String line, String[] tokens) {
+		int length = line.length(), numTokens = 0, i = 0;
+
+		while (numTokens <= tokens.length) {
+			int start;
+
+			while (i < length && Character.isWhitespace(line.charAt(i)))
+				i++;
+			if (i == length)
+				break;
+			start = i;
+			while (i < length && !Character.isWhitespace(line.charAt(i)))
+				i++;
+			if (numTokens < tokens.length)
+				tokens[numTokens] = line.substring(start, i);
+			numTokens++;
+		}
+		return numTokens;
+	}
+
+	private static int parseState(String token, int lineNumber)
+			throws IOException {
+		try {
+			return Integer.parseInt(token);
+		} catch (NumberFormatException e) {
+			throw new IOException(
+					"line " + lineNumber + ": not a state: " + token);
+		}
+	}
+
+	/**
+	 * Loads a graph in the binary format. The header is read with a stream,
+	 * and the transitions from memory-mapped regions of the file.
+	 *
+	 * @param file
+	 *            the graph file
+	 * @return the graph
+	 * @throws IOException
+	 *             if the file cannot be read or is malformed
+	 */
+	public static SparseDirectedGraph loadBinary(File file)
+			throws IOException {
+		SparseDirectedGraph.Builder builder;
+		long headerBytes, numTransitions;
+
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(file)))) {
+			int numStates, numLabels;
+
+			if (in.readInt() != MAGIC)
+				throw new IOException("Not a binary graph file: " + file);
+			if (in.readInt() != VERSION)
+				throw new IOException(
+						"Unsupported binary graph version in " + file);
+			numStates = in.readInt();
+			numLabels = in.readInt();
+			if (numStates < 0 || numLabels < 0)
+				throw new IOException("Corrupt binary graph header: " + file);
+			builder = new SparseDirectedGraph.Builder(numStates);
+			headerBytes = 16;
+			for (int i = 0; i < numLabels; i++) {
+				int length = in.readInt();
+				byte[] bytes;
+
+				// check the length before allocating it:
+				if (length < 0 || length > file.length() - headerBytes - 4)
+					throw new IOException(
+							"Corrupt binary graph header: " + file);
+				bytes = new byte[length];
+				in.readFully(bytes);
+				if (builder.internLabel(
+						new String(bytes, StandardCharsets.UTF_8)) != i)
+					throw new IOException(
+							"Duplicate label in binary graph: " + file);
+				headerBytes += 4 + bytes.length;
+			}
+			numTransitions = in.readLong();
+			headerBytes += 8;
+		}
+		if (numTransitions < 0 || numTransitions > Integer.MAX_VALUE - 8
+				|| headerBytes + numTransitions * TRANSITION_BYTES != file
+						.length())
+			throw new IOException("Corrupt binary graph: " + file);
+		builder.ensureCapacity((int) numTransitions);
+		try (FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.READ)) {
+			long position = headerBytes,
+					end = headerBytes + numTransitions * TRANSITION_BYTES;
+
+			while (position < end) {
+				long size = Math.min(MAX_MAPPED_BYTES, end - position);
+				MappedByteBuffer buffer = channel
+						.map(FileChannel.MapMode.READ_ONLY, position, size);
+
+				while (buffer.hasRemaining()) {
+					int source = buffer.getInt(), label = buffer.getInt(),
+							destination = buffer.getInt();
+
+					try {
+						builder.addTransition(source, label, destination);
+					} catch (IllegalArgumentException e) {
+						throw new IOException("Corrupt binary graph " + file
+								+ ": " + e.getMessage());
+					}
+				}
+				position += size;
+			}
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Writes a graph in the binary format.
+	 *
+	 * @param graph
+	 *            the graph
+	 * @param file
+	 *            the file to write, which is replaced if it exists
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	public static void writeBinary(SparseDirectedGraph graph, File file)
+			throws IOException {
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file),
+						1 << 16))) {
+			int numStates = graph.numStates();
+
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(numStates);
+			out.writeInt(graph.numLabels());
+			for (int l = 0; l < graph.numLabels(); l++) {
+				byte[] bytes = graph.labelName(l)
+						.getBytes(StandardCharsets.UTF_8);
+
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+			out.writeLong(graph.numTransitions());
+			for (int s = 0; s < numStates; s++) {
+				int end = graph.endTransition(s);
+
+				for (int t = graph.firstTransition(s); t < end; t++) {
+					out.writeInt(s);
+					out.writeInt(graph.labelId(t));
+					out.writeInt(graph.destination(t));
+				}
+			}
+		}
+	}
+}
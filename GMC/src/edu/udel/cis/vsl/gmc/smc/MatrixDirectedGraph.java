@@ -9,7 +9,7 @@ import java.util.LinkedList;
  * @author Wenhao Wu
  *
  */
-public class MatrixDirectedGraph {
+public class MatrixDirectedGraph implements DirectedGraphIF {
 	/**
 	 * The square matrix which represents a directed state-transition graph
 	 */
@@ -80,6 +80,11 @@ public class MatrixDirectedGraph {
 		this.numStates = rowLength;
 	}
 
+	@Override
+	public int numStates() {
+		return numStates;
+	}
+
 	/**
 	 * Get all outgoing transitions from the given source state to all other
 	 * states in <code>this</code> graph. If there is no transition between the
@@ -112,6 +117,7 @@ public class MatrixDirectedGraph {
 	 * @return the destination state; if it is not found then
 	 *         {@link Integer#MIN_VALUE} will be returned.
 	 */
+	@Override
 	public Integer getDestState(Integer sourceState, String transition) {
 		assert sourceState >= 0 && sourceState < numStates;
 		for (int i = 0; i < numStates; i++)
@@ -129,6 +135,7 @@ public class MatrixDirectedGraph {
 	 *            The source state.
 	 * @return a {@link LinkedList} of outgoing transitions
 	 */
+	@Override
 	public LinkedList<String> existingTransitions(Integer sourceState) {
 		LinkedList<String> transitions = new LinkedList<String>();
 
@@ -1,64 +1,55 @@
 package edu.udel.cis.vsl.gmc.smc;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.BitSet;
 
-import edu.udel.cis.vsl.gmc.StatePredicateIF;
+import edu.udel.cis.vsl.gmc.BitSetPredicate;
 
 /**
  * The predicate used for detecting violation state defined in the given list
- * <code>states</code>. <br>
+ * <code>states</code>. The states are kept in a {@link BitSet}, so a test is a
+ * single bit lookup, and the predicate has no side effects. <br>
  * 
  * @author Wenhao Wu (wuwenhao@udel.edu)
  *
  */
-public class Predicate implements StatePredicateIF<Integer> {
-	/**
-	 * The violation state collection.<br>
-	 * If any state is in this collection, that state is considered as a
-	 * violation state.
-	 */
-	private Collection<Integer> violationStates = new LinkedList<>();
-
-	/**
-	 * Temporarily store the latest detected violation state for
-	 * {@link #explanation()}.
-	 */
-	private Integer detectedViolationState;
+public class Predicate extends BitSetPredicate {
 
 	public Predicate(Integer... states) {
-		Collections.addAll(violationStates, states);
+		super(toInts(states));
+	}
+
+	private static int[] toInts(Integer[] states) {
+		int[] result = new int[states.length];
+
+		for (int i = 0; i < states.length; i++)
+			result[i] = states[i];
+		return result;
 	}
 
 	/**
 	 * {@inheritDoc}<br>
 	 * <p>
-	 * For the Violation State Predicate, if the given <code>state<state> is in
-	 * the field <code>violationStates</code>, this function will return
-	 * <code>true</code> (which will make the SMC return <code>false</code> for
-	 * this violation), else <code>false<code>.
+	 * For the Violation State Predicate, if the given <code>state</code> is in
+	 * the violation states, this function will return <code>true</code>
+	 * (which will make the SMC return <code>false</code> for this violation),
+	 * else <code>false</code>.
 	 * </p>
 	 */
 	@Override
 	public boolean holdsAt(Integer state) {
-		boolean result = violationStates.contains(state);
-
-		if (result)
-			this.detectedViolationState = state;
-		return result;
+		return super.holdsAt(state);
 	}
 
 	@Override
 	public String explanation() {
 		StringBuilder sBuilder = new StringBuilder();
+		BitSet states = states();
 
 		sBuilder.append("Violation type: ");
 		sBuilder.append(Predicate.class.getName());
-		sBuilder.append("\nState<");
-		sBuilder.append(detectedViolationState);
-		sBuilder.append("> is in the violation state collection: \n\t{");
-		for (Integer state : violationStates) {
+		sBuilder.append("\nThe state is in the violation state collection: \n\t{");
+		for (int state = states.nextSetBit(0); state >= 0; state = states
+				.nextSetBit(state + 1)) {
 			sBuilder.append("<");
 			sBuilder.append(state);
 			sBuilder.append(">,");
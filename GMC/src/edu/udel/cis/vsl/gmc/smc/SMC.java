@@ -3,9 +3,13 @@ package edu.udel.cis.vsl.gmc.smc;
 import static edu.udel.cis.vsl.gmc.smc.SMCConstants.DEFAULT_SOURCE_STATE;
 
 import edu.udel.cis.vsl.gmc.GMCConfiguration;
+import edu.udel.cis.vsl.gmc.IntStatePredicateIF;
 import edu.udel.cis.vsl.gmc.StatePredicateIF;
+import edu.udel.cis.vsl.gmc.concurrent.ConcurrentDfsSearcher;
 import edu.udel.cis.vsl.gmc.seq.DfsSearcher;
 import edu.udel.cis.vsl.gmc.seq.EnablerIF;
+import edu.udel.cis.vsl.gmc.seq.IntDfsSearcher;
+import edu.udel.cis.vsl.gmc.util.AsyncPrintStream;
 
 /**
  * This is a simple sequential model checker (SMC) implementing general model
@@ -33,14 +37,14 @@ public class SMC {
 	private boolean debug = false;
 
 	/**
-	 * For a given {@link MatrixDirectedGraph} <code>graph</code>, a
+	 * For a given {@link DirectedGraphIF} <code>graph</code>, a
 	 * <code>predicate</code> implementing {@link StatePredicateIF} and a
 	 * starting state <code>initialState</code>,<br>
 	 * If the <code>predicate</code> is hold, <code>true</code> will be
 	 * returned, else <code>false</code>.
 	 * 
 	 * @param graph
-	 *            A {@link MatrixDirectedGraph} representing the transition map.
+	 *            A {@link DirectedGraphIF} representing the transition map.
 	 * @param predicate
 	 *            A predicate of a property
 	 * @param initialState
@@ -48,13 +52,19 @@ public class SMC {
 	 * @return <code>true</code> iff there is a state in the violation state
 	 *         list, else <code>false</code>.
 	 */
-	public boolean run(MatrixDirectedGraph graph,
+	public boolean run(DirectedGraphIF graph,
 			StatePredicateIF<Integer> predicate, Integer initialState,
 			GMCConfiguration config) {
 		DfsSearcher<Integer, String> searcher;
+		AsyncPrintStream traceOut = null;
 
 		this.enabler = new SMCEnabler(graph);
 		this.stateManager = new SimpleStateManager(graph);
+		if (config.printTransitions() && !config.isQuiet()) {
+			// the trace steps are written on another thread:
+			traceOut = new AsyncPrintStream(config.out);
+			stateManager.setPrintStream(traceOut);
+		}
 		if (debug)
 			searcher = new DfsSearcher<>(enabler, stateManager, predicate,
 					config, System.out);
@@ -63,11 +73,17 @@ public class SMC {
 					config);
 
 		searcher.setDebugging(debug);
-		return !searcher.search(initialState);
+		try {
+			return !searcher.search(initialState);
+		} finally {
+			searcher.close();
+			if (traceOut != null)
+				traceOut.close();
+		}
 	}
 
 	/**
-	 * For a given {@link MatrixDirectedGraph} <code>graph</code> and a
+	 * For a given {@link DirectedGraphIF} <code>graph</code> and a
 	 * <code>predicate</code> implementing {@link StatePredicateIF},<br>
 	 * If the <code>predicate</code> is hold, <code>true</code> will be
 	 * returned, else <code>false</code>.<br>
@@ -75,18 +91,63 @@ public class SMC {
 	 * <code>0</code>
 	 * 
 	 * @param graph
-	 *            A {@link MatrixDirectedGraph} representing the transition map.
+	 *            A {@link DirectedGraphIF} representing the transition map.
 	 * @param predicate
 	 *            A predicate of a property
 	 * @return <code>true</code> iff there is a state in the violation state
 	 *         list, else <code>false</code>.
 	 */
-	public boolean run(MatrixDirectedGraph graph,
+	public boolean run(DirectedGraphIF graph,
 			StatePredicateIF<Integer> predicate, GMCConfiguration config) {
 		return run(graph, predicate, DEFAULT_SOURCE_STATE,
 				config);
 	}
 
+	/**
+	 * Checks a {@link SparseDirectedGraph} with the int-specialized
+	 * {@link IntDfsSearcher}, which boxes no state and allocates nothing per
+	 * transition.
+	 * 
+	 * @param graph
+	 *            A {@link SparseDirectedGraph} representing the transition map.
+	 * @param predicate
+	 *            A predicate of a property
+	 * @param initialState
+	 *            The starting state
+	 * @return <code>true</code> iff the predicate holds at no reachable
+	 *         state, else <code>false</code>.
+	 */
+	public boolean runInt(SparseDirectedGraph graph,
+			IntStatePredicateIF predicate, int initialState) {
+		IntDfsSearcher searcher = new IntDfsSearcher(
+				new SMCIntEnabler(graph), new SMCIntStateManager(graph),
+				predicate);
+
+		return !searcher.search(initialState);
+	}
+
+	/**
+	 * Checks a graph with the {@link ConcurrentDfsSearcher}, starting from the
+	 * state of id <code>0</code>.
+	 * 
+	 * @param graph
+	 *            A {@link DirectedGraphIF} representing the transition map.
+	 * @param predicate
+	 *            A predicate of a property
+	 * @param numThreads
+	 *            The number of threads of the search
+	 * @return <code>true</code> iff the predicate holds at no reachable
+	 *         state, else <code>false</code>.
+	 */
+	public boolean runConcurrent(DirectedGraphIF graph,
+			StatePredicateIF<Integer> predicate, int numThreads) {
+		ConcurrentDfsSearcher<Integer, String> searcher = new ConcurrentDfsSearcher<>(
+				new SMCEnabler(graph), new SimpleStateManager(graph),
+				predicate, numThreads);
+
+		return !searcher.search(DEFAULT_SOURCE_STATE);
+	}
+
 	/**
 	 * Set SMC to print debugging info, iff <code>isDebug</code> is
 	 * <code>true</code>
@@ -2,7 +2,6 @@ package edu.udel.cis.vsl.gmc.smc;
 
 import java.io.PrintStream;
 import java.util.Collection;
-import java.util.LinkedList;
 
 import edu.udel.cis.vsl.gmc.seq.EnablerIF;
 
@@ -17,7 +16,7 @@ public class SMCEnabler implements EnablerIF<Integer, String> {
 	/**
 	 * The directed graph of the state-transition model
 	 */
-	private MatrixDirectedGraph graph;
+	private DirectedGraphIF graph;
 
 	/**
 	 * The boolean indicating whether debug info will be printed
@@ -29,7 +28,7 @@ public class SMCEnabler implements EnablerIF<Integer, String> {
 	 */
 	private PrintStream debugStream = System.out;
 
-	public SMCEnabler(MatrixDirectedGraph graph) {
+	public SMCEnabler(DirectedGraphIF graph) {
 		this.graph = graph;
 	}
 
@@ -42,16 +41,7 @@ public class SMCEnabler implements EnablerIF<Integer, String> {
 	 */
 	@Override
 	public Collection<String> ampleSet(Integer source) {
-		LinkedList<String> existingTransitions = graph
-				.existingTransitions(source);
-		LinkedList<String> ampleSet = new LinkedList<>();
-
-		for (String transition : existingTransitions)
-			if (transition.startsWith("@"))
-				ampleSet.add(transition);
-		if (ampleSet.isEmpty())
-			return existingTransitions;
-		return ampleSet;
+		return graph.ampleTransitions(source);
 	}
 
 	@Override
@@ -59,6 +49,21 @@ public class SMCEnabler implements EnablerIF<Integer, String> {
 		return graph.existingTransitions(state);
 	}
 
+	/**
+	 * {@inheritDoc}<br>
+	 * <p>
+	 * The ample set of a state is either the set of its transitions whose
+	 * label starts with "@" or, if there is none, the full set, so the
+	 * complement is computed from the labels without comparing the
+	 * transitions to the ample set.
+	 * </p>
+	 */
+	@Override
+	public Collection<String> ampleSetComplement(Integer state,
+			Collection<String> ampleSet) {
+		return graph.ampleComplement(state);
+	}
+
 	@Override
 	public void setDebugging(boolean value) {
 		this.debug = value;
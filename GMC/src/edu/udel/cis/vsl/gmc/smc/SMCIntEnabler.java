@@ -0,0 +1,38 @@
+package edu.udel.cis.vsl.gmc.smc;
+
+import edu.udel.cis.vsl.gmc.seq.IntEnablerIF;
+
+/**
+ * The implementation of {@link IntEnablerIF} used by SMC on a
+ * {@link SparseDirectedGraph}. The transitions are the indexes of the
+ * transitions of the graph, whose ample transitions are stored first, so the
+ * ample set of a state is a prefix of its transitions.
+ */
+public class SMCIntEnabler implements IntEnablerIF {
+
+	/**
+	 * The directed graph of the state-transition model
+	 */
+	private SparseDirectedGraph graph;
+
+	public SMCIntEnabler(SparseDirectedGraph graph) {
+		this.graph = graph;
+	}
+
+	@Override
+	public int numTransitions(int state) {
+		return graph.endTransition(state) - graph.firstTransition(state);
+	}
+
+	@Override
+	public int ampleSize(int state) {
+		int numAmple = graph.numAmpleTransitions(state);
+
+		return numAmple == 0 ? numTransitions(state) : numAmple;
+	}
+
+	@Override
+	public int transition(int state, int index) {
+		return graph.firstTransition(state) + index;
+	}
+}
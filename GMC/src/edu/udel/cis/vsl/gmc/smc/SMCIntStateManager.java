@@ -0,0 +1,42 @@
+package edu.udel.cis.vsl.gmc.smc;
+
+import java.io.PrintStream;
+
+import edu.udel.cis.vsl.gmc.seq.IntStateManager;
+
+/**
+ * The implementation of {@link IntStateManager} used by SMC on a
+ * {@link SparseDirectedGraph}, whose transitions are given by their indexes in
+ * the graph. It prints nothing unless asked to.
+ */
+public class SMCIntStateManager extends IntStateManager {
+
+	/**
+	 * The directed graph of the state-transition model
+	 */
+	private SparseDirectedGraph graph;
+
+	public SMCIntStateManager(SparseDirectedGraph graph) {
+		this.graph = graph;
+	}
+
+	@Override
+	public int nextState(int state, int transition) {
+		return graph.destination(transition);
+	}
+
+	@Override
+	public int numStates() {
+		return graph.numStates();
+	}
+
+	@Override
+	public void printState(PrintStream out, int state) {
+		out.print("S:<" + state + ">");
+	}
+
+	@Override
+	public void printTransition(PrintStream out, int transition) {
+		out.print("T:'" + graph.labelName(graph.labelId(transition)) + "'");
+	}
+}
@@ -66,17 +66,18 @@ public class SMCSimulator {
 		this.out = out;
 	}
 
-	public Trace<String, Integer> run(MatrixDirectedGraph graph,
+	public Trace<String, Integer> run(DirectedGraphIF graph,
 			StatePredicateIF<Integer> predicate)
 			throws MisguidedExecutionException {
 		return run(graph, predicate, DEFAULT_SOURCE_STATE);
 	}
 
-	public Trace<String, Integer> run(MatrixDirectedGraph graph,
+	public Trace<String, Integer> run(DirectedGraphIF graph,
 			StatePredicateIF<Integer> predicate, Integer initialState)
 			throws MisguidedExecutionException {
 		this.enabler = new SMCEnabler(graph);
 		this.stateManager = new SimpleStateManager(graph);
+		this.stateManager.setPrintStream(out);
 		this.log = new ErrorLog(new File(DEFAULT_REPLAY_OUTPUT_DIR),
 				graph.toString(), out);
 		this.log.setErrorBound((int) config.getAnonymousSection()
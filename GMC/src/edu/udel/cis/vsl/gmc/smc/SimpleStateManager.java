@@ -1,25 +1,72 @@
 package edu.udel.cis.vsl.gmc.smc;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.PrintStream;
 
 import edu.udel.cis.vsl.gmc.TraceStepIF;
+import edu.udel.cis.vsl.gmc.concurrent.ConcurrentStateManagerIF;
 import edu.udel.cis.vsl.gmc.seq.StateManager;
+import edu.udel.cis.vsl.gmc.seq.StateSerializer;
 
 /**
- * The implementation of the interface {@link StateManager} used by SMC.
+ * The implementation of the interface {@link StateManager} used by SMC. The
+ * states are immutable, so it may also be used by the concurrent searchers.
  * 
  * @author Wenhao Wu (wuwenhao@udel.edu)
  */
-public class SimpleStateManager extends StateManager<Integer, String> {
+public class SimpleStateManager
+		extends
+			ConcurrentStateManagerIF<Integer, String> {
 	/**
-	 * The {@link MatrixDirectedGraph} represents the state-transition map.
+	 * The {@link DirectedGraphIF} represents the state-transition map.
 	 */
-	MatrixDirectedGraph graph;
+	DirectedGraphIF graph;
 
-	public SimpleStateManager(MatrixDirectedGraph graph) {
+	/**
+	 * The stream to which the trace steps are printed.
+	 */
+	private PrintStream out = System.out;
+
+	/**
+	 * Serializes a state as its int value.
+	 */
+	private static final StateSerializer<Integer> SERIALIZER = new StateSerializer<Integer>() {
+		@Override
+		public void write(Integer state, DataOutput out) throws IOException {
+			out.writeInt(state);
+		}
+
+		@Override
+		public Integer read(DataInput in) throws IOException {
+			return in.readInt();
+		}
+	};
+
+	public SimpleStateManager(DirectedGraphIF graph) {
 		this.graph = graph;
 	}
 
+	/**
+	 * Sets the stream to which {@link #printTraceStep(Integer, TraceStepIF)}
+	 * and {@link #printTraceStepFinalState(Integer, int)} print.
+	 */
+	public void setPrintStream(PrintStream out) {
+		if (out == null)
+			throw new NullPointerException("null out");
+		this.out = out;
+	}
+
+	public PrintStream getPrintStream() {
+		return out;
+	}
+
+	@Override
+	public StateSerializer<Integer> getStateSerializer() {
+		return SERIALIZER;
+	}
+
 	@Override
 	public TraceStepIF<Integer> nextState(Integer state, String transition) {
 		return new TraceStep(transition, graph.getDestState(state, transition));
@@ -35,24 +82,29 @@ public class SimpleStateManager extends StateManager<Integer, String> {
 		// Do nothing
 	}
 
+	@Override
+	public Integer normalize(Integer state) {
+		return state;
+	}
+
 	@Override
 	public void printStateShort(PrintStream out, Integer state) {
-		System.out.println("S:<" + state + ">");
+		out.println("S:<" + state + ">");
 	}
 
 	@Override
 	public void printStateLong(PrintStream out, Integer state) {
-		System.out.println("State<" + state + ">");
+		out.println("State<" + state + ">");
 	}
 
 	@Override
 	public void printTransitionShort(PrintStream out, String transition) {
-		System.out.println("T:'" + transition + "'");
+		out.println("T:'" + transition + "'");
 	}
 
 	@Override
 	public void printTransitionLong(PrintStream out, String transition) {
-		System.out.println("Transition'" + transition + "'");
+		out.println("Transition'" + transition + "'");
 
 	}
 
@@ -79,12 +131,12 @@ public class SimpleStateManager extends StateManager<Integer, String> {
 		sBuilder.append(sourceState);
 		sBuilder.append(">\n TraceStep:");
 		sBuilder.append(traceStep);
-		System.out.println(sBuilder);
+		out.println(sBuilder);
 	}
 
 	@Override
 	public void printTraceStepFinalState(Integer finalState, int normalizedID) {
-		System.out.println(
+		out.println(
 				"[" + normalizedID + "]FinalState<" + finalState + ">");
 	}
 
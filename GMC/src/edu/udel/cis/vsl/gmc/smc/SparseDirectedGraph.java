@@ -0,0 +1,423 @@
+package edu.udel.cis.vsl.gmc.smc;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * <p>
+ * A directed graph stored in compressed sparse rows (CSR): the transitions of
+ * all the states are stored in a single array, ordered by source state, and
+ * the transitions of state <code>s</code> are the entries from
+ * {@link #firstTransition(int) firstTransition(s)} to
+ * {@link #endTransition(int) endTransition(s)}-1. Each transition has a
+ * destination and a label; the labels are interned, so each distinct label is
+ * stored once and referred to by its id.
+ * </p>
+ *
+ * <p>
+ * The memory used is proportional to the number of transitions, instead of
+ * the square of the number of states for a {@link MatrixDirectedGraph}, and
+ * the transitions of a state are found in time proportional to its
+ * out-degree. The lists returned by {@link #existingTransitions(Integer)},
+ * {@link #ampleTransitions(Integer)} and {@link #ampleComplement(Integer)} are
+ * views of the arrays, which are not copied: the ample transitions of each
+ * state are stored before its other transitions.
+ * </p>
+ *
+ * <p>
+ * A graph is created with a {@link Builder}, e.g.,
+ * </p>
+ *
+ * <pre>
+ * SparseDirectedGraph graph = new SparseDirectedGraph.Builder(4)
+ * 		.addTransition(0, "a", 1).addTransition(0, "b", 2)
+ * 		.addTransition(1, "c", 3).addTransition(2, "d", 3).build();
+ * </pre>
+ */
+public class SparseDirectedGraph implements DirectedGraphIF {
+
+	/**
+	 * Accumulates the transitions of a {@link SparseDirectedGraph}, in any
+	 * order.
+	 */
+	public static class Builder {
+
+		/**
+		 * The number of states, or -1 if it is given by the greatest state of
+		 * a transition.
+		 */
+		private final int fixedNumStates;
+
+		/**
+		 * One plus the greatest state of a transition added so far.
+		 */
+		private int numStates = 0;
+
+		private int numTransitions = 0;
+
+		private int[] sources = new int[16];
+
+		private int[] destinations = new int[16];
+
+		private int[] labels = new int[16];
+
+		/**
+		 * Maps each label to its id.
+		 */
+		private Map<String, Integer> labelIds = new HashMap<>();
+
+		/**
+		 * The label of each id.
+		 */
+		private String[] labelNames = new String[16];
+
+		/**
+		 * Creates a builder of a graph whose number of states is one plus the
+		 * greatest state of its transitions.
+		 */
+		public Builder() {
+			this.fixedNumStates = -1;
+		}
+
+		/**
+		 * @param numStates
+		 *            the number of states of the graph; must be non-negative
+		 */
+		public Builder(int numStates) {
+			if (numStates < 0)
+				throw new IllegalArgumentException(
+						"Negative number of states: " + numStates);
+			this.fixedNumStates = numStates;
+			this.numStates = numStates;
+		}
+
+		/**
+		 * Returns the id of a label, giving it the next id if it is new. The
+		 * ids are 0, 1, 2, ... in the order the labels are first interned.
+		 *
+		 * @param label
+		 *            a transition label
+		 * @return the id of the label
+		 */
+		public int internLabel(String label) {
+			Integer id = labelIds.get(label);
+
+			if (label == null)
+				throw new NullPointerException("null label");
+			if (id == null) {
+				id = labelIds.size();
+				if (id == labelNames.length)
+					labelNames = Arrays.copyOf(labelNames, id << 1);
+				labelNames[id] = label;
+				labelIds.put(label, id);
+			}
+			return id;
+		}
+
+		/**
+		 * Makes room for a number of transitions, so that adding them does
+		 * not resize the arrays of this builder.
+		 *
+		 * @param capacity
+		 *            the total number of transitions expected
+		 */
+		public void ensureCapacity(int capacity) {
+			if (capacity > sources.length) {
+				sources = Arrays.copyOf(sources, capacity);
+				destinations = Arrays.copyOf(destinations, capacity);
+				labels = Arrays.copyOf(labels, capacity);
+			}
+		}
+
+		/**
+		 * Checks that a state is in the range of the graph.
+		 */
+		private void checkState(int state, String kind) {
+			if (state < 0 || fixedNumStates >= 0 && state >= fixedNumStates)
+				throw new IllegalArgumentException(
+						kind + " state out of range: " + state);
+		}
+
+		/**
+		 * Adds a transition to the graph.
+		 *
+		 * @param source
+		 *            the source state
+		 * @param label
+		 *            the label of the transition; labels starting with
+		 *            {@value DirectedGraphIF#AMPLE_PREFIX} are ample
+		 * @param destination
+		 *            the destination state
+		 * @return this builder
+		 */
+		public Builder addTransition(int source, String label,
+				int destination) {
+			return addTransition(source, internLabel(label), destination);
+		}
+
+		/**
+		 * Adds a transition whose label was interned by
+		 * {@link #internLabel(String)}.
+		 *
+		 * @param source
+		 *            the source state
+		 * @param labelId
+		 *            the id of the label of the transition
+		 * @param destination
+		 *            the destination state
+		 * @return this builder
+		 */
+		public Builder addTransition(int source, int labelId,
+				int destination) {
+			checkState(source, "Source");
+			checkState(destination, "Destination");
+			if (labelId < 0 || labelId >= labelIds.size())
+				throw new IllegalArgumentException(
+						"Unknown label id: " + labelId);
+			if (numTransitions == sources.length)
+				ensureCapacity((int) Math.min(Integer.MAX_VALUE - 8,
+						2L * numTransitions));
+			sources[numTransitions] = source;
+			destinations[numTransitions] = destination;
+			labels[numTransitions] = labelId;
+			numTransitions++;
+			if (source >= numStates)
+				numStates = source + 1;
+			if (destination >= numStates)
+				numStates = destination + 1;
+			return this;
+		}
+
+		/**
+		 * @return the number of transitions added so far
+		 */
+		public int numTransitions() {
+			return numTransitions;
+		}
+
+		/**
+		 * @return a new graph of the transitions added so far
+		 */
+		public SparseDirectedGraph build() {
+			return new SparseDirectedGraph(this);
+		}
+	}
+
+	/**
+	 * A view of the labels of the transitions from index <code>from</code> to
+	 * <code>to</code>-1.
+	 */
+	private class LabelList extends AbstractList<String>
+			implements
+				RandomAccess {
+		private final int from, to;
+
+		LabelList(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public String get(int index) {
+			if (index < 0 || index >= to - from)
+				throw new IndexOutOfBoundsException("Index: " + index);
+			return labelNames[labels[from + index]];
+		}
+
+		@Override
+		public int size() {
+			return to - from;
+		}
+	}
+
+	/**
+	 * The index of the first transition of each state, followed by the number
+	 * of transitions.
+	 */
+	private final int[] offsets;
+
+	/**
+	 * The number of ample transitions of each state, which are stored first.
+	 */
+	private final int[] numAmple;
+
+	/**
+	 * The destination state of each transition.
+	 */
+	private final int[] destinations;
+
+	/**
+	 * The label id of each transition.
+	 */
+	private final int[] labels;
+
+	/**
+	 * The label of each label id.
+	 */
+	private final String[] labelNames;
+
+	/**
+	 * Maps each label to its id.
+	 */
+	private final Map<String, Integer> labelIds;
+
+	/**
+	 * Sorts the transitions of the builder by source state with a counting
+	 * sort, the ample transitions of each state first, and otherwise in the
+	 * order they were added.
+	 */
+	private SparseDirectedGraph(Builder builder) {
+		int numStates = builder.numStates;
+		int numTransitions = builder.numTransitions;
+		int numLabels = builder.labelIds.size();
+		boolean[] ample = new boolean[numLabels];
+		int[] next = new int[numStates];
+
+		offsets = new int[numStates + 1];
+		numAmple = new int[numStates];
+		destinations = new int[numTransitions];
+		labels = new int[numTransitions];
+		labelNames = Arrays.copyOf(builder.labelNames, numLabels);
+		labelIds = new HashMap<>(builder.labelIds);
+		for (int l = 0; l < numLabels; l++)
+			ample[l] = labelNames[l].startsWith(AMPLE_PREFIX);
+		for (int t = 0; t < numTransitions; t++) {
+			int source = builder.sources[t];
+
+			offsets[source + 1]++;
+			if (ample[builder.labels[t]])
+				numAmple[source]++;
+		}
+		for (int s = 0; s < numStates; s++) {
+			offsets[s + 1] += offsets[s];
+			next[s] = offsets[s];
+		}
+		for (int pass = 0; pass < 2; pass++)
+			for (int t = 0; t < numTransitions; t++) {
+				int label = builder.labels[t];
+
+				if (ample[label] == (pass == 0)) {
+					int index = next[builder.sources[t]]++;
+
+					destinations[index] = builder.destinations[t];
+					labels[index] = label;
+				}
+			}
+	}
+
+	@Override
+	public int numStates() {
+		return numAmple.length;
+	}
+
+	/**
+	 * @return the number of transitions of this graph
+	 */
+	public int numTransitions() {
+		return destinations.length;
+	}
+
+	/**
+	 * @return the number of distinct labels of the transitions
+	 */
+	public int numLabels() {
+		return labelNames.length;
+	}
+
+	/**
+	 * @return the index of the first transition of the state
+	 */
+	public int firstTransition(int state) {
+		return offsets[state];
+	}
+
+	/**
+	 * @return the index after the last transition of the state
+	 */
+	public int endTransition(int state) {
+		return offsets[state + 1];
+	}
+
+	/**
+	 * @return the number of ample transitions of the state, which are the
+	 *         first ones
+	 */
+	public int numAmpleTransitions(int state) {
+		return numAmple[state];
+	}
+
+	/**
+	 * @return the destination state of the transition of the given index
+	 */
+	public int destination(int transition) {
+		return destinations[transition];
+	}
+
+	/**
+	 * @return the label id of the transition of the given index
+	 */
+	public int labelId(int transition) {
+		return labels[transition];
+	}
+
+	/**
+	 * @return the label of the given label id
+	 */
+	public String labelName(int labelId) {
+		return labelNames[labelId];
+	}
+
+	@Override
+	public Integer getDestState(Integer sourceState, String transition) {
+		Integer labelId = labelIds.get(transition);
+
+		assert sourceState >= 0 && sourceState < numStates();
+		if (labelId != null) {
+			int label = labelId, end = offsets[sourceState + 1];
+
+			for (int t = offsets[sourceState]; t < end; t++)
+				if (labels[t] == label)
+					return destinations[t];
+		}
+		return Integer.MIN_VALUE;
+	}
+
+	@Override
+	public List<String> existingTransitions(Integer sourceState) {
+		assert sourceState >= 0 && sourceState < numStates();
+		return new LabelList(offsets[sourceState], offsets[sourceState + 1]);
+	}
+
+	@Override
+	public List<String> ampleTransitions(Integer sourceState) {
+		int first = offsets[sourceState], ample = numAmple[sourceState];
+
+		if (ample == 0)
+			return existingTransitions(sourceState);
+		return new LabelList(first, first + ample);
+	}
+
+	@Override
+	public List<String> ampleComplement(Integer sourceState) {
+		int first = offsets[sourceState], ample = numAmple[sourceState];
+
+		if (ample == 0)
+			return new LabelList(first, first);
+		return new LabelList(first + ample, offsets[sourceState + 1]);
+	}
+
+	/**
+	 * Describes the size of the graph; the transitions are not listed, since
+	 * the graph may be large.
+	 */
+	@Override
+	public String toString() {
+		return "Sparse directed graph with " + numStates() + " states, "
+				+ numTransitions() + " transitions and " + numLabels()
+				+ " labels\n";
+	}
+}
@@ -0,0 +1,198 @@
+package edu.udel.cis.vsl.gmc.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * <p>
+ * A print stream which writes to another print stream on a background thread,
+ * so that a search printing its transitions does not wait for the console.
+ * The text is gathered in a buffer, which is handed to the writer thread when
+ * it is full or when the stream is flushed. At most a few buffers are pending
+ * at once: when the writer falls behind, the printing thread waits for it.
+ * </p>
+ *
+ * <p>
+ * {@link #flush()} returns once all the text printed so far has been written
+ * to the target stream and the target has been flushed. {@link #close()}
+ * flushes this stream and stops the writer thread, but does not close the
+ * target.
+ * </p>
+ */
+public class AsyncPrintStream extends PrintStream {
+
+	/**
+	 * The default size of the buffer, in bytes.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * The maximum number of buffers handed to the writer thread and not yet
+	 * written.
+	 */
+	private static final int MAX_PENDING = 4;
+
+	/**
+	 * @param target
+	 *            the stream to which the text is written
+	 */
+	public AsyncPrintStream(PrintStream target) {
+		this(target, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param target
+	 *            the stream to which the text is written
+	 * @param bufferSize
+	 *            the number of bytes gathered before they are handed to the
+	 *            writer thread
+	 */
+	public AsyncPrintStream(PrintStream target, int bufferSize) {
+		super(new AsyncOutputStream(target, bufferSize), false);
+	}
+
+	/**
+	 * The output stream under an {@link AsyncPrintStream}. Its methods are
+	 * called with the lock of the print stream held.
+	 */
+	private static class AsyncOutputStream extends OutputStream {
+
+		/**
+		 * Handed to the writer thread to make it return.
+		 */
+		private static final byte[] END = new byte[0];
+
+		private final PrintStream target;
+
+		private final byte[] buffer;
+
+		/**
+		 * The number of bytes in {@link #buffer}.
+		 */
+		private int count = 0;
+
+		private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(
+				MAX_PENDING);
+
+		/**
+		 * The number of buffers handed to the writer thread.
+		 */
+		private long numSubmitted = 0;
+
+		/**
+		 * The number of buffers written by the writer thread; guarded by the
+		 * lock of this stream.
+		 */
+		private long numWritten = 0;
+
+		private Thread writer = null;
+
+		AsyncOutputStream(PrintStream target, int bufferSize) {
+			if (target == null)
+				throw new NullPointerException("null target");
+			if (bufferSize <= 0)
+				throw new IllegalArgumentException(
+						"Non-positive buffer size: " + bufferSize);
+			this.target = target;
+			this.buffer = new byte[bufferSize];
+		}
+
+		/**
+		 * Writes the buffers of the queue to the target until {@link #END}.
+		 */
+		private void drain() {
+			try {
+				while (true) {
+					byte[] chunk = queue.take();
+
+					if (chunk == END)
+						return;
+					target.write(chunk, 0, chunk.length);
+					synchronized (this) {
+						numWritten++;
+						notifyAll();
+					}
+				}
+			} catch (InterruptedException e) {
+				// the stream is abandoned
+			}
+		}
+
+		/**
+		 * Hands a chunk to the writer thread, starting it if needed.
+		 */
+		private void submit(byte[] chunk) throws IOException {
+			if (writer == null) {
+				writer = new Thread(this::drain, "gmc-async-output");
+				writer.setDaemon(true);
+				writer.start();
+			}
+			try {
+				queue.put(chunk);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while writing", e);
+			}
+			if (chunk != END)
+				numSubmitted++;
+		}
+
+		private void submitBuffer() throws IOException {
+			if (count > 0) {
+				submit(Arrays.copyOf(buffer, count));
+				count = 0;
+			}
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (count == buffer.length)
+				submitBuffer();
+			buffer[count++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length)
+				throws IOException {
+			while (length > 0) {
+				int n;
+
+				if (count == buffer.length)
+					submitBuffer();
+				n = Math.min(length, buffer.length - count);
+				System.arraycopy(bytes, offset, buffer, count, n);
+				count += n;
+				offset += n;
+				length -= n;
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			submitBuffer();
+			synchronized (this) {
+				try {
+					while (numWritten < numSubmitted)
+						wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while flushing", e);
+				}
+			}
+			target.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+			if (writer != null) {
+				submit(END);
+				writer = null;
+			}
+		}
+	}
+}
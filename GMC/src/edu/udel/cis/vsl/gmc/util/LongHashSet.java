@@ -0,0 +1,171 @@
+package edu.udel.cis.vsl.gmc.util;
+
+/**
+ * A set of long values implemented with a primitive open-addressing hash table
+ * with linear probing. No object is allocated per element, which makes it
+ * suitable for storing millions of state fingerprints.
+ * 
+ * <p>
+ * The value 0 is used to mark the empty slots of the table, so it is stored
+ * separately.
+ * </p>
+ */
+public class LongHashSet {
+
+	/**
+	 * The table is grown when it is more than this full.
+	 */
+	private static final double MAX_LOAD = 0.75;
+
+	/**
+	 * The slots of the hash table; 0 marks an empty slot. The length is always
+	 * a power of 2.
+	 */
+	private long[] table;
+
+	/**
+	 * The number of elements of the table, not counting 0.
+	 */
+	private int size = 0;
+
+	/**
+	 * Is 0 in this set?
+	 */
+	private boolean containsZero = false;
+
+	/**
+	 * The number of elements at which the table will be grown.
+	 */
+	private int threshold;
+
+	/**
+	 * Creates a new empty set.
+	 * 
+	 * @param initialCapacity
+	 *            the expected number of elements
+	 */
+	public LongHashSet(int initialCapacity) {
+		int capacity = 16;
+
+		while (capacity * MAX_LOAD < initialCapacity)
+			capacity <<= 1;
+		allocate(capacity);
+	}
+
+	public LongHashSet() {
+		this(16);
+	}
+
+	private void allocate(int capacity) {
+		table = new long[capacity];
+		threshold = (int) (capacity * MAX_LOAD);
+	}
+
+	/**
+	 * The index of the first slot probed for the value.
+	 */
+	private int slot(long value) {
+		return (int) Utils.mix64(value) & (table.length - 1);
+	}
+
+	/**
+	 * Adds the value to this set.
+	 * 
+	 * @param value
+	 *            any long
+	 * @return true iff the value was not in this set already
+	 */
+	public boolean add(long value) {
+		if (value == 0) {
+			boolean result = !containsZero;
+
+			containsZero = true;
+			return result;
+		}
+
+		int mask = table.length - 1;
+		int i = slot(value);
+
+		while (table[i] != 0) {
+			if (table[i] == value)
+				return false;
+			i = (i + 1) & mask;
+		}
+		table[i] = value;
+		if (++size > threshold)
+			grow();
+		return true;
+	}
+
+	/**
+	 * Is the value in this set?
+	 * 
+	 * @param value
+	 *            any long
+	 * @return true iff the value is in this set
+	 */
+	public boolean contains(long value) {
+		if (value == 0)
+			return containsZero;
+
+		int mask = table.length - 1;
+		int i = slot(value);
+
+		while (table[i] != 0) {
+			if (table[i] == value)
+				return true;
+			i = (i + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * Doubles the capacity of the table and re-inserts all the elements.
+	 */
+	private void grow() {
+		long[] oldTable = table;
+		int mask;
+
+		allocate(oldTable.length << 1);
+		mask = table.length - 1;
+		for (long value : oldTable) {
+			if (value != 0) {
+				int i = slot(value);
+
+				while (table[i] != 0)
+					i = (i + 1) & mask;
+				table[i] = value;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of elements in this set
+	 */
+	public int size() {
+		return containsZero ? size + 1 : size;
+	}
+
+	/**
+	 * @return a new array holding the elements of this set, in no particular
+	 *         order
+	 */
+	public long[] toArray() {
+		long[] result = new long[size()];
+		int i = 0;
+
+		if (containsZero)
+			result[i++] = 0;
+		for (long value : table)
+			if (value != 0)
+				result[i++] = value;
+		return result;
+	}
+
+	/**
+	 * @return the number of slots of the hash table
+	 */
+	public int capacity() {
+		return table.length;
+	}
+}
@@ -0,0 +1,170 @@
+package edu.udel.cis.vsl.gmc.util;
+
+/**
+ * A map from objects to non-negative ints, implemented with a primitive
+ * open-addressing hash table with linear probing. The keys, their hash codes
+ * and the values are held in three parallel arrays, so no object is allocated
+ * per entry. Entries cannot be removed.
+ * 
+ * @param <K>
+ *            the type of the keys, which must override
+ *            {@link Object#hashCode()} and {@link Object#equals(Object)}
+ */
+public class ObjectIntMap<K> {
+
+	/**
+	 * The value returned by {@link #get(Object)} for an absent key.
+	 */
+	public static final int ABSENT = -1;
+
+	/**
+	 * The table is grown when it is more than this full.
+	 */
+	private static final double MAX_LOAD = 0.75;
+
+	/**
+	 * The keys; null marks an empty slot. The length is always a power of 2.
+	 */
+	private Object[] keys;
+
+	/**
+	 * The hash code of the key of each non-empty slot.
+	 */
+	private int[] hashes;
+
+	/**
+	 * The value of each non-empty slot.
+	 */
+	private int[] values;
+
+	/**
+	 * The number of entries.
+	 */
+	private int size = 0;
+
+	/**
+	 * The number of entries at which the table will be grown.
+	 */
+	private int threshold;
+
+	/**
+	 * Creates a new empty map.
+	 * 
+	 * @param initialCapacity
+	 *            the expected number of entries
+	 */
+	public ObjectIntMap(int initialCapacity) {
+		int capacity = 16;
+
+		while (capacity * MAX_LOAD < initialCapacity)
+			capacity <<= 1;
+		allocate(capacity);
+	}
+
+	public ObjectIntMap() {
+		this(16);
+	}
+
+	private void allocate(int capacity) {
+		keys = new Object[capacity];
+		hashes = new int[capacity];
+		values = new int[capacity];
+		threshold = (int) (capacity * MAX_LOAD);
+	}
+
+	private static int hash(Object key) {
+		return (int) Utils.mix64(key.hashCode());
+	}
+
+	/**
+	 * Returns the slot holding the key, or the empty slot where it should be
+	 * inserted.
+	 */
+	private int find(Object key, int hash) {
+		int mask = keys.length - 1;
+		int i = hash & mask;
+		Object k;
+
+		while ((k = keys[i]) != null) {
+			if (hashes[i] == hash && (k == key || k.equals(key)))
+				break;
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	/**
+	 * Returns the value associated to the key.
+	 * 
+	 * @param key
+	 *            a non-null key
+	 * @return the value associated to the key, or {@link #ABSENT}
+	 */
+	public int get(K key) {
+		int i = find(key, hash(key));
+
+		return keys[i] == null ? ABSENT : values[i];
+	}
+
+	/**
+	 * Associates the value to the key, replacing the old value if any.
+	 * 
+	 * @param key
+	 *            a non-null key
+	 * @param value
+	 *            a non-negative int
+	 */
+	public void put(K key, int value) {
+		int hash = hash(key);
+		int i = find(key, hash);
+
+		if (keys[i] == null) {
+			keys[i] = key;
+			hashes[i] = hash;
+			if (++size > threshold) {
+				values[i] = value;
+				grow();
+				return;
+			}
+		}
+		values[i] = value;
+	}
+
+	/**
+	 * Doubles the capacity of the table and re-inserts all the entries.
+	 */
+	private void grow() {
+		Object[] oldKeys = keys;
+		int[] oldHashes = hashes;
+		int[] oldValues = values;
+		int mask;
+
+		allocate(oldKeys.length << 1);
+		mask = keys.length - 1;
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldKeys[j] != null) {
+				int i = oldHashes[j] & mask;
+
+				while (keys[i] != null)
+					i = (i + 1) & mask;
+				keys[i] = oldKeys[j];
+				hashes[i] = oldHashes[j];
+				values[i] = oldValues[j];
+			}
+		}
+	}
+
+	/**
+	 * @return the number of entries of this map
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the number of slots of the hash table
+	 */
+	public int capacity() {
+		return keys.length;
+	}
+}
@@ -1,10 +1,62 @@
 package edu.udel.cis.vsl.gmc.util;
 
+import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.HashSet;
+import java.util.Set;
 
 public class Utils {
 	/**
+	 * Writes a trace in the condensed form read by
+	 * {@link edu.udel.cis.vsl.gmc.GuidedTransitionChooser}: the length of the
+	 * trace, followed by the transition indexes, where each run of equal
+	 * indexes is written as <code>count:index</code>.
+	 * 
+	 * @param stream
+	 *            stream to which to write the trace
+	 * @param tids
+	 *            the index of the transition taken at each state of the trace
+	 */
+	public static void writeTrace(PrintStream stream, int[] tids) {
+		int size = tids.length;
+		int prevTid = 0;
+		int count = 0;
+
+		stream.println("LENGTH = " + size);
+		for (int i = 0; i < size; i++) {
+			int curTid = tids[i];
+
+			if (count == 0) {
+				count++;
+				prevTid = curTid;
+			} else {
+				if (curTid == prevTid) {
+					count++;
+				} else {
+					stream.println(count + ":" + prevTid);
+					count = 1;
+					prevTid = curTid;
+				}
+			}
+			if (i == size - 1) {
+				stream.println(count + ":" + prevTid);
+			}
+		}
+		stream.flush();
+	}
+
+	/**
+	 * Subtrahends with at most this many elements are scanned linearly instead
+	 * of being hashed.
+	 */
+	private static final int SUBTRACT_SCAN_LIMIT = 8;
+
+	/**
+	 * Computes a collection subtraction in O(n + m) expected time. The order of
+	 * the elements of the minuend is preserved. The elements are compared with
+	 * {@link Object#equals(Object)}, so they must also override
+	 * {@link Object#hashCode()} consistently.
 	 * 
 	 * @param minuend
 	 * @param subtrahend
@@ -13,19 +65,33 @@ public class Utils {
 	public static Collection<? extends Object> subtract(
 			Collection<? extends Object> minuend,
 			Collection<? extends Object> subtrahend) {
-		Collection<Object> result = new LinkedList<>();
-
-		for (Object minuendEle : minuend) {
-			boolean contains = false;
+		Collection<Object> result = new ArrayList<>(
+				Math.max(minuend.size() - subtrahend.size(), 0));
+		Collection<? extends Object> lookup = subtrahend;
 
-			for (Object subtrahendEle : subtrahend)
-				if (minuendEle.equals(subtrahendEle)) {
-					contains = true;
-					break;
-				}
-			if (!contains)
+		if (subtrahend.size() > SUBTRACT_SCAN_LIMIT
+				&& !(subtrahend instanceof Set))
+			lookup = new HashSet<>(subtrahend);
+		for (Object minuendEle : minuend)
+			if (!lookup.contains(minuendEle))
 				result.add(minuendEle);
-		}
 		return result;
 	}
+
+	/**
+	 * Scrambles the bits of a hash code, so that every bit of the result
+	 * depends on every bit of the argument (the finalizer of MurmurHash3).
+	 * 
+	 * @param h
+	 *            a hash code
+	 * @return the scrambled hash code
+	 */
+	public static long mix64(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
 }
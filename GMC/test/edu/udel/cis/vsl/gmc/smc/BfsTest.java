@@ -0,0 +1,111 @@
+package edu.udel.cis.vsl.gmc.smc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.PrintStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.udel.cis.vsl.gmc.GMCConfiguration;
+import edu.udel.cis.vsl.gmc.GuidedTransitionChooser;
+import edu.udel.cis.vsl.gmc.seq.BfsSearcher;
+
+/**
+ * Runs the {@link BfsSearcher} on SMC models and replays the traces it writes.
+ */
+public class BfsTest {
+	/**
+	 * The boolean indicating whether debug info will be printed.
+	 */
+	private final boolean DEBUG = false;
+
+	/**
+	 * A {@link TestHelper} assist the testing.
+	 */
+	private TestHelper helper;
+
+	/**
+	 * The configuration for SMC
+	 */
+	private GMCConfiguration config;
+
+	@Before
+	public void setUp() throws Exception {
+		helper = new TestHelper(5);
+		config = helper.generateGMCConfig();
+		config.setQuiet(!DEBUG);
+		// two paths to 4: 0->1->2->4, explored first by a DFS, and 0->3->4
+		helper.addTrans("t0", 0, 1);
+		helper.addTrans("t1", 1, 2);
+		helper.addTrans("t2", 2, 4);
+		helper.addTrans("t3", 0, 3);
+		helper.addTrans("t4", 3, 4);
+		helper.printMat(DEBUG);
+	}
+
+	private BfsSearcher<Integer, String> newSearcher() throws Exception {
+		MatrixDirectedGraph graph = helper.getTransitionGraph();
+
+		return new BfsSearcher<>(new SMCEnabler(graph),
+				new SimpleStateManager(graph), helper.getPredicate(), config);
+	}
+
+	@Test
+	public void noViolation() throws Exception {
+		BfsSearcher<Integer, String> searcher = newSearcher();
+
+		assertFalse(searcher.search(0));
+		assertEquals(5, searcher.numStatesSeen());
+	}
+
+	@Test
+	public void shortestViolation() throws Exception {
+		BfsSearcher<Integer, String> searcher;
+
+		helper.generateViolationPredicate(4);
+		searcher = newSearcher();
+		assertTrue(searcher.search(0));
+		assertEquals(Integer.valueOf(4), searcher.currentState());
+		assertEquals(3, searcher.traceLength());
+		// resuming does not find the same state again
+		assertFalse(searcher.search());
+	}
+
+	@Test
+	public void replayTrace() throws Exception {
+		MatrixDirectedGraph graph;
+		SMCEnabler enabler;
+		BfsSearcher<Integer, String> searcher;
+		File traceFile = File.createTempFile("bfs", ".trace");
+		PrintStream out = new PrintStream(traceFile);
+		GuidedTransitionChooser<Integer, String> chooser;
+		Integer state = 0;
+		String transition;
+		int steps = 0;
+
+		helper.generateViolationPredicate(4);
+		searcher = newSearcher();
+		assertTrue(searcher.search(0));
+		out.println("== Begin Trace ==");
+		searcher.writeStack(out);
+		out.println("== End Trace ==");
+		out.close();
+		graph = helper.getTransitionGraph();
+		enabler = new SMCEnabler(graph);
+		chooser = new GuidedTransitionChooser<>(enabler, traceFile);
+		assertEquals(3, chooser.getLength());
+		while ((transition = chooser.chooseEnabledTransition(state)) != null) {
+			state = graph.getDestState(state, transition);
+			steps++;
+		}
+		traceFile.delete();
+		assertEquals(Integer.valueOf(4), state);
+		assertEquals(2, steps);
+		assertNull(chooser.chooseEnabledTransition(state));
+	}
+}
@@ -0,0 +1,207 @@
+package edu.udel.cis.vsl.gmc.smc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.udel.cis.vsl.gmc.GMCConfiguration;
+import edu.udel.cis.vsl.gmc.StatePredicateIF;
+import edu.udel.cis.vsl.gmc.seq.DfsSearcher;
+
+/**
+ * Stops a {@link DfsSearcher} in the middle of its search, and resumes it from
+ * the last checkpoint it wrote with a new searcher.
+ */
+public class CheckpointTest {
+	/**
+	 * The boolean indicating whether debug info will be printed.
+	 */
+	private final boolean DEBUG = false;
+
+	/**
+	 * A {@link TestHelper} assist the testing.
+	 */
+	private TestHelper helper;
+
+	/**
+	 * The configuration for SMC
+	 */
+	private GMCConfiguration config;
+
+	/**
+	 * The checkpoint file.
+	 */
+	private File checkpoint;
+
+	@Before
+	public void setUp() throws Exception {
+		helper = new TestHelper(7);
+		config = helper.generateGMCConfig();
+		config.setQuiet(!DEBUG);
+		helper.addTrans("t0", 0, 1);
+		helper.addTrans("t1", 1, 2);
+		helper.addTrans("t2", 1, 4);
+		helper.addTrans("t3", 2, 3);
+		helper.addTrans("@t4", 3, 1);
+		helper.addTrans("t5", 0, 5);
+		helper.addTrans("t6", 5, 6);
+		helper.addTrans("t7", 6, 4);
+		helper.printMat(DEBUG);
+		checkpoint = File.createTempFile("gmc", ".checkpoint");
+	}
+
+	@After
+	public void tearDown() {
+		checkpoint.delete();
+	}
+
+	private DfsSearcher<Integer, String> newSearcher(
+			StatePredicateIF<Integer> predicate) throws Exception {
+		MatrixDirectedGraph graph = helper.getTransitionGraph();
+
+		return new DfsSearcher<>(new SMCEnabler(graph),
+				new SimpleStateManager(graph), predicate, config);
+	}
+
+	/**
+	 * Runs the search to completion, and also stops it after a few states,
+	 * writing a checkpoint at each state, and resumes it: the resumed search
+	 * must end with the same counts.
+	 */
+	private void checkResume() throws Exception {
+		DfsSearcher<Integer, String> complete = newSearcher(
+				helper.getPredicate());
+		AtomicReference<DfsSearcher<Integer, String>> stopped = new AtomicReference<>();
+		StatePredicateIF<Integer> stopper = new StatePredicateIF<Integer>() {
+			int numCalls = 0;
+
+			@Override
+			public boolean holdsAt(Integer state) {
+				if (++numCalls == 4)
+					stopped.get().stop();
+				return false;
+			}
+
+			@Override
+			public String explanation() {
+				return "stops the search";
+			}
+		};
+		DfsSearcher<Integer, String> resumed;
+
+		assertFalse(complete.search(0));
+		stopped.set(newSearcher(stopper));
+		stopped.get().setCheckpointing(checkpoint, 0);
+		assertFalse(stopped.get().search(0));
+		assertTrue(stopped.get().isStopped());
+		stopped.get().awaitCheckpoint();
+		resumed = newSearcher(helper.getPredicate());
+		assertFalse(resumed.resume(checkpoint));
+		assertEquals(complete.numStatesSeen(), resumed.numStatesSeen());
+		assertEquals(complete.numTransitions(), resumed.numTransitions());
+		assertEquals(complete.numStatesMatched(), resumed.numStatesMatched());
+	}
+
+	@Test
+	public void resumeSavedStates() throws Exception {
+		checkResume();
+	}
+
+	@Test
+	public void resumeBitstate() throws Exception {
+		config.setBitstateSize(1 << 16);
+		checkResume();
+	}
+
+	@Test
+	public void resumeHashCompaction() throws Exception {
+		config.setHashCompaction(true);
+		checkResume();
+	}
+
+	@Test
+	public void resumeOffHeap() throws Exception {
+		config.setOffHeapStates(true);
+		checkResume();
+	}
+
+	@Test
+	public void resumeFindsViolation() throws Exception {
+		DfsSearcher<Integer, String> searcher;
+
+		helper.generateViolationPredicate(6);
+		config.setCheckpointFile(checkpoint.getPath());
+		config.setCheckpointPeriod(0);
+		searcher = newSearcher(helper.getPredicate());
+		assertTrue(searcher.search(0));
+		searcher.awaitCheckpoint();
+		config.setCheckpointFile(null);
+		searcher = newSearcher(helper.getPredicate());
+		assertTrue(searcher.resume(checkpoint));
+		assertEquals(Integer.valueOf(6), searcher.currentState());
+	}
+
+	/**
+	 * @return the number of live threads writing checkpoints
+	 */
+	private int numCheckpointWriters() {
+		int result = 0;
+
+		for (Thread thread : Thread.getAllStackTraces().keySet())
+			if (thread.getName().equals("checkpoint writer")
+					&& thread.isAlive())
+				result++;
+		return result;
+	}
+
+	/**
+	 * Waits for the number of threads writing checkpoints to go down to the
+	 * given one, for at most 10 seconds.
+	 */
+	private void awaitCheckpointWriters(int expected) throws Exception {
+		for (int i = 0; i < 1000 && numCheckpointWriters() > expected; i++)
+			Thread.sleep(10);
+		assertEquals(expected, numCheckpointWriters());
+	}
+
+	@Test
+	public void writerEndsWithSearch() throws Exception {
+		int before = numCheckpointWriters();
+		DfsSearcher<Integer, String> searcher;
+
+		config.setCheckpointFile(checkpoint.getPath());
+		config.setCheckpointPeriod(0);
+		searcher = newSearcher(helper.getPredicate());
+		assertFalse(searcher.search(0));
+		awaitCheckpointWriters(before);
+		helper.generateViolationPredicate(6);
+		searcher = newSearcher(helper.getPredicate());
+		assertTrue(searcher.search(0));
+		assertEquals(before + 1, numCheckpointWriters());
+		searcher.close();
+		awaitCheckpointWriters(before);
+	}
+
+	@Test
+	public void writerEndsWithCheckpointing() throws Exception {
+		int before = numCheckpointWriters();
+		DfsSearcher<Integer, String> searcher;
+
+		helper.generateViolationPredicate(6);
+		config.setCheckpointFile(checkpoint.getPath());
+		config.setCheckpointPeriod(0);
+		searcher = newSearcher(helper.getPredicate());
+		assertTrue(searcher.search(0));
+		assertEquals(before + 1, numCheckpointWriters());
+		searcher.setCheckpointing(null, 0);
+		awaitCheckpointWriters(before);
+		searcher.awaitCheckpoint();
+	}
+}
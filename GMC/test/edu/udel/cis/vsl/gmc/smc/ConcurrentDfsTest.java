@@ -0,0 +1,219 @@
+package edu.udel.cis.vsl.gmc.smc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import edu.udel.cis.vsl.gmc.FalsePredicate;
+import edu.udel.cis.vsl.gmc.GuidedTransitionChooser;
+import edu.udel.cis.vsl.gmc.SearchListenerIF;
+import edu.udel.cis.vsl.gmc.SearchMetrics;
+import edu.udel.cis.vsl.gmc.SearchMonitor;
+import edu.udel.cis.vsl.gmc.concurrent.ConcurrentDfsSearcher;
+import edu.udel.cis.vsl.gmc.concurrent.SearchResult;
+
+/**
+ * Checks that the {@link ConcurrentDfsSearcher} explores all the reachable
+ * states of graphs without ample sets, whatever the number of threads, and
+ * that its counterexamples replay on graphs with and without ample sets.
+ */
+public class ConcurrentDfsTest {
+
+	@Test
+	public void allStates() {
+		for (int threads = 1; threads <= 4; threads++) {
+			SparseDirectedGraph graph = TestHelper.randomGraph(2000, 3,
+					threads, false, true);
+			ConcurrentDfsSearcher<Integer, String> searcher = new ConcurrentDfsSearcher<>(
+					new SMCEnabler(graph), new SimpleStateManager(graph),
+					new FalsePredicate<>(), threads);
+
+			assertFalse(searcher.search(0));
+			assertEquals(2000, searcher.metrics().numStatesSeen());
+			assertEquals(2000, searcher.totalNumStatesSeen());
+			assertEquals(searcher.metrics().numTransitions(),
+					searcher.totalNumTransitions());
+			assertEquals(0, searcher.metrics().numBusyWorkers());
+			// a state which is not fully explored may be explored again by
+			// another task:
+			assertTrue(searcher.metrics().numTransitions() >= 2000 * 4 - 1);
+		}
+	}
+
+	@Test
+	public void ampleStates() {
+		for (int threads = 1; threads <= 4; threads++) {
+			SparseDirectedGraph graph = TestHelper.randomGraph(2000, 3,
+					threads, true, true);
+			ConcurrentDfsSearcher<Integer, String> searcher = new ConcurrentDfsSearcher<>(
+					new SMCEnabler(graph), new SimpleStateManager(graph),
+					new FalsePredicate<>(), threads);
+
+			assertFalse(searcher.search(0));
+			// the reduction may skip states:
+			assertTrue(searcher.totalNumStatesSeen() <= 2000);
+			assertEquals(searcher.metrics().numStatesSeen(),
+					searcher.totalNumStatesSeen());
+			// the stack proviso expands some states fully:
+			assertTrue(searcher.metrics().numFullExpansions() > 0);
+		}
+	}
+
+	@Test
+	public void violation() {
+		SMC smc = new SMC();
+
+		for (int threads = 1; threads <= 4; threads++) {
+			SparseDirectedGraph graph = TestHelper.randomGraph(2000, 2,
+					threads, false, true);
+
+			assertFalse(smc.runConcurrent(graph, new Predicate(1999),
+					threads));
+			assertTrue(smc.runConcurrent(graph, new Predicate(5000),
+					threads));
+		}
+	}
+
+	@Test
+	public void results() {
+		SparseDirectedGraph graph = TestHelper.randomGraph(2000, 3, 7,
+				false, true);
+		ConcurrentDfsSearcher<Integer, String> searcher = new ConcurrentDfsSearcher<>(
+				new SMCEnabler(graph), new SimpleStateManager(graph),
+				new Predicate(1999), 2);
+
+		assertEquals(SearchResult.VIOLATION, searcher.searchAsync(0).join());
+		searcher = new ConcurrentDfsSearcher<>(new SMCEnabler(graph),
+				new SimpleStateManager(graph), new FalsePredicate<>(), 2);
+		searcher.setStateLimit(100);
+		assertEquals(SearchResult.TRUNCATED, searcher.searchAsync(0).join());
+		assertTrue(searcher.metrics().numStatesSeen() < 2000);
+	}
+
+	@Test
+	public void reuse() {
+		SparseDirectedGraph graph = TestHelper.randomGraph(2000, 3, 3, false,
+				true);
+		ConcurrentDfsSearcher<Integer, String> searcher = new ConcurrentDfsSearcher<>(
+				new SMCEnabler(graph), new SimpleStateManager(graph),
+				new FalsePredicate<>(), 2);
+
+		for (int i = 0; i < 2; i++) {
+			assertEquals(SearchResult.COMPLETED,
+					searcher.searchAsync(0).join());
+			assertEquals(2000, searcher.totalNumStatesSeen());
+			assertTrue(searcher.metrics().numTransitions() >= 2000 * 4 - 1);
+		}
+	}
+
+	@Test
+	public void failingListener() throws Exception {
+		SparseDirectedGraph graph = TestHelper.randomGraph(100, 3, 3, false,
+				true);
+		ConcurrentDfsSearcher<Integer, String> searcher = new ConcurrentDfsSearcher<>(
+				new SMCEnabler(graph), new SimpleStateManager(graph),
+				new FalsePredicate<>(), 2);
+		SearchMonitor monitor = new SearchMonitor(1000);
+
+		monitor.addListener(new SearchListenerIF() {
+			@Override
+			public void sampled(SearchMetrics metrics) {
+			}
+
+			@Override
+			public void finished(SearchMetrics metrics) {
+				throw new IllegalStateException("listener failed");
+			}
+		});
+		searcher.setMonitor(monitor);
+		try {
+			searcher.searchAsync(0).get(10, TimeUnit.SECONDS);
+			fail("The search did not fail");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	/**
+	 * Searches the graph for one of the states, and replays the counterexample
+	 * with the original enabler.
+	 * 
+	 * @return the number of transitions of the counterexample which are in
+	 *         the complement of an ample set
+	 */
+	private int replay(SparseDirectedGraph graph, Integer[] states,
+			int threads) throws Exception {
+		ConcurrentDfsSearcher<Integer, String> searcher = new ConcurrentDfsSearcher<>(
+				new SMCEnabler(graph), new SimpleStateManager(graph),
+				new Predicate(states), threads);
+		File traceFile = File.createTempFile("concurrent", ".trace");
+		PrintStream out = new PrintStream(traceFile);
+		GuidedTransitionChooser<Integer, String> chooser;
+		Integer state = 0;
+		String transition;
+		int steps = 0, complementSteps = 0;
+
+		assertTrue(searcher.search(0));
+		out.println("== Begin Trace ==");
+		searcher.writeStack(out);
+		out.println("== End Trace ==");
+		out.close();
+		chooser = new GuidedTransitionChooser<>(new SMCEnabler(graph),
+				traceFile);
+		assertEquals(searcher.traceLength(), chooser.getLength());
+		while ((transition = chooser.chooseEnabledTransition(state)) != null) {
+			if (!graph.ampleTransitions(state).contains(transition))
+				complementSteps++;
+			state = graph.getDestState(state, transition);
+			steps++;
+		}
+		traceFile.delete();
+		assertEquals(searcher.violatingState(), state);
+		assertEquals(searcher.traceLength() - 1, steps);
+		return complementSteps;
+	}
+
+	@Test
+	public void replayCounterexample() throws Exception {
+		for (int threads = 1; threads <= 4; threads++) {
+			SparseDirectedGraph graph = TestHelper.randomGraph(2000, 3,
+					threads, false, true);
+
+			replay(graph, new Integer[]{1500}, threads);
+		}
+	}
+
+	/**
+	 * Looks for the states which are only entered by transitions of ample set
+	 * complements, so that the counterexample takes one of them.
+	 */
+	@Test
+	public void replayAmpleCounterexample() throws Exception {
+		for (int threads = 1; threads <= 4; threads++) {
+			SparseDirectedGraph graph = TestHelper.randomGraph(2000, 3,
+					threads, true, true);
+			BitSet ampleTargets = new BitSet();
+			List<Integer> states = new ArrayList<>();
+
+			for (int state = 0; state < 2000; state++)
+				for (String transition : graph.ampleTransitions(state))
+					ampleTargets.set(graph.getDestState(state, transition));
+			for (int state = 1; state < 2000; state++)
+				if (!ampleTargets.get(state))
+					states.add(state);
+			assertTrue(replay(graph, states.toArray(new Integer[0]),
+					threads) > 0);
+		}
+	}
+}
@@ -0,0 +1,132 @@
+package edu.udel.cis.vsl.gmc.smc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.udel.cis.vsl.gmc.GMCConfiguration;
+
+/**
+ * Loads SMC graphs with the {@link GraphLoader}.
+ */
+public class GraphLoaderTest {
+	/**
+	 * The boolean indicating whether debug info will be printed.
+	 */
+	private final boolean DEBUG = false;
+
+	/**
+	 * The loop graph of {@link CoverageTest}, with an ample set on the loop.
+	 */
+	private static final String LOOP = "# a loop\n" + "0 t0 1\n" + "1 t1 2\n"
+			+ "1 t2 4\n" + "\n" + "2 t3 3\n" + "3 @t4 1\n";
+
+	/**
+	 * The instance of simple model checker.
+	 */
+	private final SMC smc = new SMC();
+
+	/**
+	 * The configuration for SMC
+	 */
+	private GMCConfiguration config;
+
+	/**
+	 * The binary graph file.
+	 */
+	private File file;
+
+	@Before
+	public void setUp() throws Exception {
+		config = new TestHelper(1).generateGMCConfig();
+		config.setQuiet(!DEBUG);
+		smc.setDebug(DEBUG);
+		file = File.createTempFile("gmc", ".graph");
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Test
+	public void text() throws Exception {
+		SparseDirectedGraph graph = GraphLoader
+				.loadText(new StringReader(LOOP));
+
+		assertEquals(5, graph.numStates());
+		assertEquals(5, graph.numTransitions());
+		assertEquals(Arrays.asList("t1", "t2"), graph.existingTransitions(1));
+		assertEquals(Integer.valueOf(1), graph.getDestState(3, "@t4"));
+		assertTrue(smc.run(graph, new Predicate(), config));
+		assertFalse(smc.run(graph, new Predicate(4), config));
+	}
+
+	@Test
+	public void textWithNumStates() throws Exception {
+		SparseDirectedGraph graph = GraphLoader
+				.loadText(new StringReader("states 8\n" + LOOP));
+
+		assertEquals(8, graph.numStates());
+		assertTrue(graph.existingTransitions(7).isEmpty());
+	}
+
+	@Test(expected = IOException.class)
+	public void malformedText() throws Exception {
+		GraphLoader.loadText(new StringReader("0 t0\n"));
+	}
+
+	@Test(expected = IOException.class)
+	public void stateOutOfRange() throws Exception {
+		GraphLoader.loadText(new StringReader("states 2\n0 t0 2\n"));
+	}
+
+	@Test
+	public void binary() throws Exception {
+		SparseDirectedGraph graph = GraphLoader
+				.loadText(new StringReader(LOOP)), loaded;
+
+		GraphLoader.writeBinary(graph, file);
+		loaded = GraphLoader.load(file);
+		assertEquals(graph.numStates(), loaded.numStates());
+		assertEquals(graph.numTransitions(), loaded.numTransitions());
+		for (int s = 0; s < graph.numStates(); s++)
+			assertEquals(graph.existingTransitions(s),
+					loaded.existingTransitions(s));
+		assertFalse(smc.run(loaded, new Predicate(4), config));
+	}
+
+	/**
+	 * Overwrites the length of the first label of a binary graph file.
+	 */
+	private void corruptLabelLength(int length) throws IOException {
+		GraphLoader.writeBinary(
+				GraphLoader.loadText(new StringReader(LOOP)), file);
+		try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+			out.seek(16);
+			out.writeInt(length);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void negativeLabelLength() throws Exception {
+		corruptLabelLength(-1);
+		GraphLoader.load(file);
+	}
+
+	@Test(expected = IOException.class)
+	public void hugeLabelLength() throws Exception {
+		corruptLabelLength(Integer.MAX_VALUE);
+		GraphLoader.load(file);
+	}
+}
@@ -0,0 +1,100 @@
+package edu.udel.cis.vsl.gmc.smc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.udel.cis.vsl.gmc.GMCConfiguration;
+import edu.udel.cis.vsl.gmc.SearchMetrics;
+import edu.udel.cis.vsl.gmc.seq.DfsSearcher;
+import edu.udel.cis.vsl.gmc.seq.IntDfsSearcher;
+
+/**
+ * Checks that the {@link IntDfsSearcher} explores a
+ * {@link SparseDirectedGraph} as the {@link DfsSearcher} does.
+ */
+public class IntDfsTest {
+	/**
+	 * The boolean indicating whether debug info will be printed.
+	 */
+	private final boolean DEBUG = false;
+
+	/**
+	 * The configuration for SMC
+	 */
+	private GMCConfiguration config;
+
+	@Before
+	public void setUp() throws Exception {
+		config = new TestHelper(1).generateGMCConfig();
+		config.setQuiet(!DEBUG);
+	}
+
+	/**
+	 * Searches the graph with both searchers and compares their counts.
+	 */
+	private void compare(SparseDirectedGraph graph, Predicate predicate,
+			boolean bounded) {
+		DfsSearcher<Integer, String> searcher = new DfsSearcher<>(
+				new SMCEnabler(graph), new SimpleStateManager(graph),
+				predicate, config);
+		IntDfsSearcher intSearcher = new IntDfsSearcher(
+				new SMCIntEnabler(graph), bounded
+						? new SMCIntStateManager(graph)
+						: new SMCIntStateManager(graph) {
+							@Override
+							public int numStates() {
+								return -1;
+							}
+						},
+				predicate);
+		SearchMetrics metrics;
+
+		assertEquals(searcher.search(0), intSearcher.search(0));
+		metrics = searcher.metrics();
+		assertEquals(metrics.numStatesSeen(), intSearcher.numStatesSeen());
+		assertEquals(metrics.numTransitions(), intSearcher.numTransitions());
+		assertEquals(metrics.numStatesMatched(),
+				intSearcher.numStatesMatched());
+		assertEquals(metrics.numFullExpansions(),
+				intSearcher.numFullExpansions());
+		assertEquals(searcher.traceLength(), intSearcher.traceLength());
+	}
+
+	@Test
+	public void sameSearch() {
+		for (int seed = 0; seed < 20; seed++) {
+			compare(TestHelper.randomGraph(200, 3, seed, true, false),
+					new Predicate(), true);
+			compare(TestHelper.randomGraph(200, 3, seed, true, false),
+					new Predicate(), false);
+		}
+	}
+
+	@Test
+	public void sameViolation() {
+		for (int seed = 0; seed < 20; seed++)
+			compare(TestHelper.randomGraph(200, 2, seed, true, false),
+					new Predicate(150), seed % 2 == 0);
+	}
+
+	@Test
+	public void runInt() throws Exception {
+		TestHelper helper = new TestHelper(5);
+		SMC smc = new SMC();
+
+		helper.addTrans("t0", 0, 1);
+		helper.addTrans("t1", 1, 2);
+		helper.addTrans("t2", 1, 4);
+		helper.addTrans("t3", 2, 3);
+		helper.addTrans("@t4", 3, 1);
+		assertTrue(smc.runInt(helper.getSparseTransitionGraph(),
+				new Predicate(), 0));
+		assertFalse(smc.runInt(helper.getSparseTransitionGraph(),
+				new Predicate(4), 0));
+	}
+}
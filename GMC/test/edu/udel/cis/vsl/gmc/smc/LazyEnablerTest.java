@@ -0,0 +1,123 @@
+package edu.udel.cis.vsl.gmc.smc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Iterator;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.udel.cis.vsl.gmc.GMCConfiguration;
+import edu.udel.cis.vsl.gmc.SearchMetrics;
+import edu.udel.cis.vsl.gmc.seq.DfsSearcher;
+import edu.udel.cis.vsl.gmc.seq.LazyEnablerIF;
+
+/**
+ * Checks that the {@link DfsSearcher} explores the same states with a
+ * {@link LazyEnablerIF} as with the enabler returning collections, and that
+ * it generates fewer transitions.
+ */
+public class LazyEnablerTest {
+
+	/**
+	 * An {@link SMCEnabler} which also generates the transitions one at a
+	 * time, counting them.
+	 */
+	private static class CountingEnabler extends SMCEnabler
+			implements
+				LazyEnablerIF<Integer, String> {
+		private DirectedGraphIF graph;
+
+		int numGenerated = 0;
+
+		CountingEnabler(DirectedGraphIF graph) {
+			super(graph);
+			this.graph = graph;
+		}
+
+		private Iterator<String> counting(Iterator<String> iterator) {
+			return new Iterator<String>() {
+				@Override
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+
+				@Override
+				public String next() {
+					numGenerated++;
+					return iterator.next();
+				}
+			};
+		}
+
+		@Override
+		public Iterator<String> ampleIterator(Integer source) {
+			return counting(graph.ampleTransitions(source).iterator());
+		}
+
+		@Override
+		public Iterator<String> ampleComplementIterator(Integer state) {
+			return counting(graph.ampleComplement(state).iterator());
+		}
+	}
+
+	private GMCConfiguration config;
+
+	@Before
+	public void setUp() throws Exception {
+		config = new TestHelper(1).generateGMCConfig();
+		config.setQuiet(true);
+	}
+
+	private String trace(DfsSearcher<Integer, String> searcher) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		searcher.writeStack(new PrintStream(bytes));
+		return bytes.toString();
+	}
+
+	@Test
+	public void sameSearch() {
+		for (int seed = 0; seed < 20; seed++) {
+			SparseDirectedGraph graph = TestHelper.randomGraph(200, 3, seed,
+					true, false);
+			Predicate predicate = new Predicate(seed % 2 == 0 ? 150 : 1000);
+			DfsSearcher<Integer, String> eager = new DfsSearcher<>(
+					new SMCEnabler(graph), new SimpleStateManager(graph),
+					predicate, config);
+			DfsSearcher<Integer, String> lazy = new DfsSearcher<>(
+					new CountingEnabler(graph), new SimpleStateManager(graph),
+					predicate, config);
+			SearchMetrics expected, actual;
+
+			assertEquals(eager.search(0), lazy.search(0));
+			expected = eager.metrics();
+			actual = lazy.metrics();
+			assertEquals(expected.numStatesSeen(), actual.numStatesSeen());
+			assertEquals(expected.numTransitions(), actual.numTransitions());
+			assertEquals(expected.numFullExpansions(),
+					actual.numFullExpansions());
+			assertEquals(trace(eager), trace(lazy));
+		}
+	}
+
+	@Test
+	public void fewerTransitions() {
+		SparseDirectedGraph.Builder builder = new SparseDirectedGraph.Builder(
+				12);
+		SparseDirectedGraph graph;
+		CountingEnabler enabler;
+
+		// the first successor of the initial state is the violation:
+		for (int i = 1; i < 12; i++)
+			builder.addTransition(0, "t" + i, i);
+		graph = builder.build();
+		enabler = new CountingEnabler(graph);
+		assertTrue(new DfsSearcher<>(enabler, new SimpleStateManager(graph),
+				new Predicate(1), config).search(0));
+		assertEquals(1, enabler.numGenerated);
+	}
+}
@@ -0,0 +1,274 @@
+package edu.udel.cis.vsl.gmc.smc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.udel.cis.vsl.gmc.GMCConfiguration;
+import edu.udel.cis.vsl.gmc.RandomTransitionChooser;
+import edu.udel.cis.vsl.gmc.SearchListenerIF;
+import edu.udel.cis.vsl.gmc.SearchMetrics;
+import edu.udel.cis.vsl.gmc.SearchMonitor;
+import edu.udel.cis.vsl.gmc.Simulator;
+import edu.udel.cis.vsl.gmc.StatePredicateIF;
+import edu.udel.cis.vsl.gmc.TransitionChooser;
+import edu.udel.cis.vsl.gmc.concurrent.ConcurrentDfsSearcher;
+import edu.udel.cis.vsl.gmc.seq.DfsSearcher;
+
+/**
+ * Checks the metrics passed by a {@link SearchMonitor} to its listeners.
+ */
+public class MonitorTest {
+	/**
+	 * The boolean indicating whether debug info will be printed.
+	 */
+	private final boolean DEBUG = false;
+
+	/**
+	 * A {@link TestHelper} assist the testing.
+	 */
+	private TestHelper helper;
+
+	/**
+	 * The configuration for SMC
+	 */
+	private GMCConfiguration config;
+
+	/**
+	 * The final metrics received by the listener.
+	 */
+	private SearchMetrics finalMetrics;
+
+	/**
+	 * The metrics sampled by the listener, in order.
+	 */
+	private List<SearchMetrics> samples = new ArrayList<>();
+
+	/**
+	 * A listener recording the samples in {@link #samples} and the final
+	 * metrics in {@link #finalMetrics}.
+	 */
+	private SearchListenerIF recorder = new SearchListenerIF() {
+		@Override
+		public void sampled(SearchMetrics metrics) {
+			if (DEBUG)
+				System.out.println(metrics);
+			samples.add(metrics);
+		}
+
+		@Override
+		public void finished(SearchMetrics metrics) {
+			finalMetrics = metrics;
+		}
+	};
+
+	/**
+	 * Sleeps for 2 milliseconds once every 20 calls, so that a search calling
+	 * this once per state runs for several intervals of a monitor sampling
+	 * every millisecond.
+	 */
+	private static void pause(AtomicInteger calls) {
+		if (calls.incrementAndGet() % 20 == 0) {
+			try {
+				Thread.sleep(2);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * @return a predicate which never holds, and which pauses the search
+	 */
+	private static StatePredicateIF<Integer> slowFalse() {
+		AtomicInteger calls = new AtomicInteger();
+
+		return new StatePredicateIF<Integer>() {
+			@Override
+			public boolean holdsAt(Integer state) {
+				pause(calls);
+				return false;
+			}
+
+			@Override
+			public String explanation() {
+				return "";
+			}
+		};
+	}
+
+	/**
+	 * Checks that the search has been sampled, and that the counts of the
+	 * samples never decrease.
+	 */
+	private void checkSamples() {
+		SearchMetrics previous = null;
+
+		assertTrue(samples.size() >= 2);
+		samples.add(finalMetrics);
+		for (SearchMetrics sample : samples) {
+			if (previous != null) {
+				assertTrue(sample.elapsedNanos() >= previous.elapsedNanos());
+				assertTrue(
+						sample.numStatesSeen() >= previous.numStatesSeen());
+				assertTrue(
+						sample.numTransitions() >= previous.numTransitions());
+			}
+			previous = sample;
+		}
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		helper = new TestHelper(5);
+		config = helper.generateGMCConfig();
+		config.setQuiet(!DEBUG);
+		helper.addTrans("t0", 0, 1);
+		helper.addTrans("t1", 1, 2);
+		helper.addTrans("t2", 1, 4);
+		helper.addTrans("t3", 2, 3);
+		helper.addTrans("@t4", 3, 1);
+		helper.printMat(DEBUG);
+	}
+
+	@Test
+	public void finalMetrics() throws Exception {
+		MatrixDirectedGraph graph = helper.getTransitionGraph();
+		DfsSearcher<Integer, String> searcher = new DfsSearcher<>(
+				new SMCEnabler(graph), new SimpleStateManager(graph),
+				helper.getPredicate(), config);
+		SearchMonitor monitor = new SearchMonitor(1);
+
+		monitor.addListener(new SearchListenerIF() {
+			@Override
+			public void sampled(SearchMetrics metrics) {
+				if (DEBUG)
+					System.out.println(metrics);
+			}
+
+			@Override
+			public void finished(SearchMetrics metrics) {
+				finalMetrics = metrics;
+			}
+		});
+		searcher.setMonitor(monitor);
+		assertFalse(searcher.search(0));
+		assertNotNull(finalMetrics);
+		assertEquals(searcher.numStatesSeen(), finalMetrics.numStatesSeen());
+		assertEquals(searcher.numTransitions(), finalMetrics.numTransitions());
+		assertEquals(searcher.numStatesMatched(),
+				finalMetrics.numStatesMatched());
+		assertEquals(5, finalMetrics.numVisitedStates());
+		assertEquals(0, finalMetrics.stackDepth());
+		assertEquals(4, finalMetrics.maxStackDepth());
+		// the loop 1->2->3->1 has an ample set, which is fully expanded once
+		assertEquals(1, finalMetrics.numFullExpansions());
+		assertTrue(finalMetrics.visitedBytes() > 0);
+		assertTrue(finalMetrics.elapsedNanos() > 0);
+		assertTrue(finalMetrics == monitor.lastSample());
+	}
+
+	@Test
+	public void samples() {
+		SparseDirectedGraph graph = TestHelper.randomGraph(1000, 3, 0, true,
+				true);
+		DfsSearcher<Integer, String> searcher = new DfsSearcher<>(
+				new SMCEnabler(graph), new SimpleStateManager(graph),
+				slowFalse(), config);
+		SearchMonitor monitor = new SearchMonitor(1);
+
+		monitor.addListener(recorder);
+		searcher.setMonitor(monitor);
+		assertFalse(searcher.search(0));
+		checkSamples();
+		assertEquals(searcher.numStatesSeen(), finalMetrics.numStatesSeen());
+	}
+
+	@Test
+	public void simulatorSamples() throws Exception {
+		SparseDirectedGraph graph = TestHelper.randomGraph(100, 3, 0, false,
+				true);
+		Simulator<Integer, String> simulator = new Simulator<>(
+				new SimpleStateManager(graph),
+				new PrintStream(new ByteArrayOutputStream()));
+		TransitionChooser<Integer, String> random = new RandomTransitionChooser<>(
+				new SMCEnabler(graph), 0);
+		AtomicInteger calls = new AtomicInteger();
+		SearchMonitor monitor = new SearchMonitor(1);
+
+		monitor.addListener(recorder);
+		simulator.setMonitor(monitor);
+		simulator.setQuiet(true);
+		simulator.setLength(200);
+		simulator.play(0, state -> {
+			pause(calls);
+			return random.chooseEnabledTransition(state);
+		}, false);
+		checkSamples();
+		assertEquals(200, finalMetrics.numTransitions());
+		assertEquals(200, finalMetrics.stackDepth());
+	}
+
+	@Test
+	public void concurrentSamples() {
+		SparseDirectedGraph graph = TestHelper.randomGraph(1000, 3, 0, false,
+				true);
+		ConcurrentDfsSearcher<Integer, String> searcher = new ConcurrentDfsSearcher<>(
+				new SMCEnabler(graph), new SimpleStateManager(graph),
+				slowFalse(), 2);
+		SearchMonitor monitor = new SearchMonitor(1);
+
+		monitor.addListener(recorder);
+		searcher.setMonitor(monitor);
+		assertFalse(searcher.search(0));
+		// the workers sample in turn, so the samples are not checked for
+		// order:
+		assertTrue(samples.size() >= 2);
+		assertEquals(1000, finalMetrics.numStatesSeen());
+		assertEquals(searcher.totalNumTransitions(),
+				finalMetrics.numTransitions());
+	}
+
+	@Test
+	public void finishedOnException() throws Exception {
+		MatrixDirectedGraph graph = helper.getTransitionGraph();
+		DfsSearcher<Integer, String> searcher = new DfsSearcher<>(
+				new SMCEnabler(graph), new SimpleStateManager(graph),
+				new StatePredicateIF<Integer>() {
+					@Override
+					public boolean holdsAt(Integer state) {
+						if (state == 2)
+							throw new IllegalStateException("model failed");
+						return false;
+					}
+
+					@Override
+					public String explanation() {
+						return "";
+					}
+				}, config);
+		SearchMonitor monitor = new SearchMonitor(1);
+
+		monitor.addListener(recorder);
+		searcher.setMonitor(monitor);
+		try {
+			searcher.search(0);
+			fail("The search did not fail");
+		} catch (IllegalStateException e) {
+			assertEquals("model failed", e.getMessage());
+		}
+		assertNotNull(finalMetrics);
+		assertTrue(finalMetrics == monitor.lastSample());
+	}
+}
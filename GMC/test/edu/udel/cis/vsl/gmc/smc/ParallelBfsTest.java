@@ -0,0 +1,145 @@
+package edu.udel.cis.vsl.gmc.smc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.PrintStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.udel.cis.vsl.gmc.GMCConfiguration;
+import edu.udel.cis.vsl.gmc.GuidedTransitionChooser;
+import edu.udel.cis.vsl.gmc.concurrent.ParallelBfsSearcher;
+import edu.udel.cis.vsl.gmc.seq.BfsSearcher;
+
+/**
+ * Compares the {@link ParallelBfsSearcher} with the {@link BfsSearcher} on
+ * random graphs with ample sets, and replays the traces it writes.
+ */
+public class ParallelBfsTest {
+
+	private GMCConfiguration config;
+
+	@Before
+	public void setUp() throws Exception {
+		config = new TestHelper(1).generateGMCConfig();
+		config.setQuiet(true);
+	}
+
+	private ParallelBfsSearcher<Integer, String> parallel(
+			SparseDirectedGraph graph, Predicate predicate, int threads) {
+		return new ParallelBfsSearcher<>(new SMCEnabler(graph),
+				new SimpleStateManager(graph), predicate, threads);
+	}
+
+	private BfsSearcher<Integer, String> sequential(SparseDirectedGraph graph,
+			Predicate predicate) {
+		return new BfsSearcher<>(new SMCEnabler(graph),
+				new SimpleStateManager(graph), predicate, config);
+	}
+
+	/**
+	 * Replays the trace written by the searcher with the original enabler.
+	 */
+	private void replay(SparseDirectedGraph graph,
+			ParallelBfsSearcher<Integer, String> searcher) throws Exception {
+		File traceFile = File.createTempFile("pbfs", ".trace");
+		PrintStream out = new PrintStream(traceFile);
+		GuidedTransitionChooser<Integer, String> chooser;
+		Integer state = 0;
+		String transition;
+		int steps = 0;
+
+		out.println("== Begin Trace ==");
+		searcher.writeStack(out);
+		out.println("== End Trace ==");
+		out.close();
+		chooser = new GuidedTransitionChooser<>(new SMCEnabler(graph),
+				traceFile);
+		assertEquals(searcher.traceLength(), chooser.getLength());
+		while ((transition = chooser.chooseEnabledTransition(state)) != null) {
+			state = graph.getDestState(state, transition);
+			steps++;
+		}
+		traceFile.delete();
+		assertEquals(searcher.currentState(), state);
+		assertEquals(searcher.traceLength() - 1, steps);
+	}
+
+	/**
+	 * With ample sets, a successor inserted at the same time by another
+	 * worker changes which ample sets are kept, so the reachable states
+	 * depend on the timing of the workers: the states are only compared with
+	 * a single thread, or without ample sets.
+	 */
+	@Test
+	public void sameStates() {
+		for (int seed = 0; seed < 10; seed++) {
+			for (boolean ample : new boolean[]{true, false}) {
+				SparseDirectedGraph graph = TestHelper.randomGraph(500, 3,
+						seed, ample, false);
+				BfsSearcher<Integer, String> expected = sequential(graph,
+						new Predicate());
+
+				assertFalse(expected.search(0));
+				for (int threads = 1; threads <= 4; threads++) {
+					ParallelBfsSearcher<Integer, String> actual = parallel(
+							graph, new Predicate(), threads);
+
+					assertFalse(actual.search(0));
+					if (threads == 1 || !ample)
+						assertEquals(expected.numStatesSeen(),
+								actual.totalNumStatesSeen());
+					else
+						assertTrue(actual.totalNumStatesSeen() <= 500);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The traces are shortest for the same reduction only, as in
+	 * {@link #sameStates()}; with several threads on a graph with ample sets,
+	 * the trace is only replayed.
+	 */
+	@Test
+	public void shortestTrace() throws Exception {
+		for (int seed = 0; seed < 10; seed++) {
+			for (boolean ample : new boolean[]{true, false}) {
+				SparseDirectedGraph graph = TestHelper.randomGraph(500, 3,
+						seed, ample, true);
+				BfsSearcher<Integer, String> expected = sequential(graph,
+						new Predicate(300));
+
+				assertTrue(expected.search(0));
+				for (int threads = 1; threads <= 4; threads++) {
+					ParallelBfsSearcher<Integer, String> actual = parallel(
+							graph, new Predicate(300), threads);
+
+					assertTrue(actual.search(0));
+					assertEquals(Integer.valueOf(300), actual.currentState());
+					if (threads == 1 || !ample)
+						assertEquals(expected.traceLength(),
+								actual.traceLength());
+					else
+						replay(graph, actual);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void replayTrace() throws Exception {
+		SparseDirectedGraph graph = TestHelper.randomGraph(500, 3, 1, true,
+				true);
+		ParallelBfsSearcher<Integer, String> searcher = parallel(graph,
+				new Predicate(300), 3);
+
+		assertTrue(searcher.search(0));
+		replay(graph, searcher);
+		assertEquals(Integer.valueOf(300), searcher.currentState());
+	}
+}
@@ -0,0 +1,95 @@
+package edu.udel.cis.vsl.gmc.smc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import edu.udel.cis.vsl.gmc.BitSetPredicate;
+import edu.udel.cis.vsl.gmc.IntStatePredicateIF;
+import edu.udel.cis.vsl.gmc.Predicates;
+import edu.udel.cis.vsl.gmc.StatePredicateIF;
+
+/**
+ * Checks the {@link BitSetPredicate}s and their combinations by
+ * {@link Predicates}.
+ */
+public class PredicateTest {
+
+	/**
+	 * A predicate which is not a bit set, and counts its evaluations.
+	 */
+	private static class Even implements IntStatePredicateIF {
+		int numCalls = 0;
+
+		@Override
+		public boolean holdsAt(int state) {
+			numCalls++;
+			return state % 2 == 0;
+		}
+
+		@Override
+		public String explanation() {
+			return "The state is even.";
+		}
+
+		@Override
+		public double cost() {
+			return 10;
+		}
+	}
+
+	@Test
+	public void compiled() {
+		BitSetPredicate a = new BitSetPredicate(1, 2, 3),
+				b = new BitSetPredicate(3, 4);
+		IntStatePredicateIF and = Predicates.andInt(a, b),
+				andNot = Predicates.andInt(a, b.not()),
+				notAnd = Predicates.andInt(a.not(), b),
+				nor = Predicates.andInt(a.not(), b.not()),
+				or = Predicates.orInt(a, b.not());
+
+		assertTrue(and instanceof BitSetPredicate);
+		assertTrue(or instanceof BitSetPredicate);
+		for (int s = 0; s < 8; s++) {
+			boolean inA = s >= 1 && s <= 3, inB = s == 3 || s == 4;
+
+			assertEquals(inA && inB, and.holdsAt(s));
+			assertEquals(inA && !inB, andNot.holdsAt(s));
+			assertEquals(!inA && inB, notAnd.holdsAt(s));
+			assertEquals(!inA && !inB, nor.holdsAt(s));
+			assertEquals(inA || !inB, or.holdsAt(s));
+		}
+	}
+
+	@Test
+	public void costOrder() {
+		Even even = new Even();
+		BitSetPredicate small = new BitSetPredicate(4);
+		IntStatePredicateIF and = Predicates.andInt(even, small),
+				or = Predicates.orInt(even, small);
+
+		for (int s = 0; s < 10; s++)
+			assertEquals(s == 4, and.holdsAt(s));
+		// the cheaper bit set is tested first, and decides all but one state
+		assertEquals(1, even.numCalls);
+		assertTrue(or.holdsAt(4));
+		assertEquals(1, even.numCalls);
+		assertFalse(Predicates.notInt(or).holdsAt(2));
+		assertEquals(2, even.numCalls);
+	}
+
+	@Test
+	public void smcPredicate() {
+		Predicate predicate = new Predicate(2, 5);
+		StatePredicateIF<Integer> notFive = Predicates
+				.and(predicate, Predicates.not(new Predicate(5)));
+
+		assertTrue(predicate.holdsAt(5));
+		assertFalse(predicate.holdsAt(Integer.valueOf(3)));
+		assertTrue(notFive.holdsAt(2));
+		assertFalse(notFive.holdsAt(5));
+		assertTrue(predicate.explanation().contains("<2>,<5>"));
+	}
+}
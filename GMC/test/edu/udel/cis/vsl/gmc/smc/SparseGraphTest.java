@@ -0,0 +1,103 @@
+package edu.udel.cis.vsl.gmc.smc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.udel.cis.vsl.gmc.GMCConfiguration;
+import edu.udel.cis.vsl.gmc.seq.DfsSearcher;
+
+/**
+ * Checks that SMC explores a {@link SparseDirectedGraph} as it explores the
+ * {@link MatrixDirectedGraph} of the same transitions.
+ */
+public class SparseGraphTest {
+	/**
+	 * The boolean indicating whether debug info will be printed.
+	 */
+	private final boolean DEBUG = false;
+
+	/**
+	 * The instance of simple model checker.
+	 */
+	private final SMC smc = new SMC();
+
+	/**
+	 * A {@link TestHelper} assist the testing.
+	 */
+	private TestHelper helper;
+
+	/**
+	 * The configuration for SMC
+	 */
+	private GMCConfiguration config;
+
+	@Before
+	public void setUp() throws Exception {
+		helper = new TestHelper(6);
+		config = helper.generateGMCConfig();
+		config.setQuiet(!DEBUG);
+		smc.setDebug(DEBUG);
+		helper.addTrans("t0", 0, 1);
+		helper.addTrans("t1", 1, 2);
+		helper.addTrans("t2", 1, 4);
+		helper.addTrans("t3", 2, 3);
+		helper.addTrans("@t4", 3, 1);
+		helper.addTrans("t5", 3, 5);
+		helper.addTrans("@t6", 3, 0);
+		helper.printMat(DEBUG);
+	}
+
+	@Test
+	public void transitions() {
+		SparseDirectedGraph graph = helper.getSparseTransitionGraph();
+
+		assertEquals(6, graph.numStates());
+		assertEquals(7, graph.numTransitions());
+		assertEquals(Arrays.asList("t1", "t2"), graph.existingTransitions(1));
+		assertEquals(Arrays.asList("t1", "t2"), graph.ampleTransitions(1));
+		assertTrue(graph.ampleComplement(1).isEmpty());
+		// the ample transitions are stored first
+		assertEquals(Arrays.asList("@t6", "@t4", "t5"),
+				graph.existingTransitions(3));
+		assertEquals(Arrays.asList("@t6", "@t4"), graph.ampleTransitions(3));
+		assertEquals(Collections.singletonList("t5"),
+				graph.ampleComplement(3));
+		assertEquals(Integer.valueOf(5), graph.getDestState(3, "t5"));
+		assertEquals(Integer.valueOf(Integer.MIN_VALUE),
+				graph.getDestState(3, "t0"));
+		assertTrue(graph.existingTransitions(5).isEmpty());
+	}
+
+	@Test
+	public void sameSearch() throws Exception {
+		MatrixDirectedGraph matrix = helper.getTransitionGraph();
+		SparseDirectedGraph sparse = helper.getSparseTransitionGraph();
+		DfsSearcher<Integer, String> matrixSearcher = new DfsSearcher<>(
+				new SMCEnabler(matrix), new SimpleStateManager(matrix),
+				helper.getPredicate(), config);
+		DfsSearcher<Integer, String> sparseSearcher = new DfsSearcher<>(
+				new SMCEnabler(sparse), new SimpleStateManager(sparse),
+				helper.getPredicate(), config);
+
+		assertFalse(matrixSearcher.search(0));
+		assertFalse(sparseSearcher.search(0));
+		assertEquals(matrixSearcher.numStatesSeen(),
+				sparseSearcher.numStatesSeen());
+		assertEquals(matrixSearcher.numTransitions(),
+				sparseSearcher.numTransitions());
+	}
+
+	@Test
+	public void hasViolation() throws Exception {
+		helper.generateViolationPredicate(5);
+		assertFalse(smc.run(helper.getSparseTransitionGraph(),
+				helper.getPredicate(), config));
+	}
+}
@@ -0,0 +1,179 @@
+package edu.udel.cis.vsl.gmc.smc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.udel.cis.vsl.gmc.GMCConfiguration;
+import edu.udel.cis.vsl.gmc.seq.DfsSearcher;
+import edu.udel.cis.vsl.gmc.seq.HashCompactionNodeFactory;
+
+/**
+ * Runs SMC with the different storage modes of the visited states.
+ */
+public class StorageModeTest {
+	/**
+	 * The boolean indicating whether debug info will be printed.
+	 */
+	private final boolean DEBUG = false;
+
+	/**
+	 * The instance of simple model checker.
+	 */
+	private final SMC smc = new SMC();
+
+	/**
+	 * A {@link TestHelper} assist the testing.
+	 */
+	private TestHelper helper;
+
+	/**
+	 * The configuration for SMC
+	 */
+	private GMCConfiguration config;
+
+	/**
+	 * Builds the loop graph of {@link CoverageTest}, with an ample set on the
+	 * loop.
+	 */
+	private void setUpLoop() throws Exception {
+		helper = new TestHelper(5);
+		config = helper.generateGMCConfig();
+		config.setQuiet(!DEBUG);
+		helper.addTrans("t0", 0, 1);
+		helper.addTrans("t1", 1, 2);
+		helper.addTrans("t2", 1, 4);
+		helper.addTrans("t3", 2, 3);
+		helper.addTrans("@t4", 3, 1);
+		helper.printMat(DEBUG);
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		smc.setDebug(DEBUG);
+	}
+
+	@Test
+	public void bitstate_noViolation() throws Exception {
+		setUpLoop();
+		config.setBitstateSize(1 << 16);
+		assertTrue(smc.run(helper.getTransitionGraph(), helper.getPredicate(),
+				config));
+	}
+
+	@Test
+	public void bitstate_hasViolation() throws Exception {
+		setUpLoop();
+		config.setBitstateSize(1 << 16);
+		config.setBitstateHashes(2);
+		helper.generateViolationPredicate(4);
+		assertFalse(smc.run(helper.getTransitionGraph(), helper.getPredicate(),
+				config));
+	}
+
+	@Test
+	public void hashCompaction_noViolation() throws Exception {
+		setUpLoop();
+		config.setHashCompaction(true);
+		assertTrue(smc.run(helper.getTransitionGraph(), helper.getPredicate(),
+				config));
+	}
+
+	@Test
+	public void hashCompaction_hasViolation() throws Exception {
+		setUpLoop();
+		config.setHashCompaction(true);
+		helper.generateViolationPredicate(3);
+		assertFalse(smc.run(helper.getTransitionGraph(), helper.getPredicate(),
+				config));
+	}
+
+	@Test
+	public void offHeap_noViolation() throws Exception {
+		setUpLoop();
+		config.setOffHeapStates(true);
+		assertTrue(smc.run(helper.getTransitionGraph(), helper.getPredicate(),
+				config));
+	}
+
+	@Test
+	public void offHeap_hasViolation() throws Exception {
+		setUpLoop();
+		config.setOffHeapStates(true);
+		helper.generateViolationPredicate(2);
+		assertFalse(smc.run(helper.getTransitionGraph(), helper.getPredicate(),
+				config));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void bitstate_noMinimize() throws Exception {
+		MatrixDirectedGraph graph;
+
+		setUpLoop();
+		config.setBitstateSize(1 << 16);
+		graph = helper.getTransitionGraph();
+		new DfsSearcher<>(new SMCEnabler(graph), new SimpleStateManager(graph),
+				helper.getPredicate(), config).setMinimize(true);
+	}
+
+	@Test
+	public void hashCompaction_fingerprintBits() throws Exception {
+		MatrixDirectedGraph graph;
+
+		setUpLoop();
+		graph = helper.getTransitionGraph();
+		// SimpleStateManager keeps the default 32-bit fingerprint:
+		assertEquals(32, new HashCompactionNodeFactory<>(
+				new SimpleStateManager(graph)).fingerprintBits());
+		assertEquals(64,
+				new HashCompactionNodeFactory<>(new SimpleStateManager(graph) {
+					@Override
+					public long fingerprint(Integer state) {
+						return state;
+					}
+				}).fingerprintBits());
+	}
+
+	/**
+	 * @return true iff one of the file descriptors of this process refers to
+	 *         the file; false if there is none, or if the descriptors cannot
+	 *         be listed
+	 */
+	private boolean isOpen(File file) throws IOException {
+		File[] fds = new File("/proc/self/fd").listFiles();
+		Path path = file.toPath().toRealPath();
+
+		if (fds == null)
+			return false;
+		for (File fd : fds) {
+			try {
+				if (path.equals(Files.readSymbolicLink(fd.toPath())))
+					return true;
+			} catch (IOException e) {
+				// the descriptor has been closed since it was listed
+			}
+		}
+		return false;
+	}
+
+	@Test
+	public void offHeapFile_closed() throws Exception {
+		File file = File.createTempFile("states", ".bin");
+
+		setUpLoop();
+		config.setOffHeapStates(true);
+		config.setOffHeapFile(file.getPath());
+		assertTrue(smc.run(helper.getTransitionGraph(), helper.getPredicate(),
+				config));
+		assertFalse(isOpen(file));
+		assertTrue(file.delete());
+	}
+}
@@ -0,0 +1,115 @@
+package edu.udel.cis.vsl.gmc.smc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import edu.udel.cis.vsl.gmc.FalsePredicate;
+import edu.udel.cis.vsl.gmc.GMCConfiguration;
+import edu.udel.cis.vsl.gmc.GuidedTransitionChooser;
+import edu.udel.cis.vsl.gmc.StatePredicateIF;
+import edu.udel.cis.vsl.gmc.seq.SwarmSearcher;
+
+/**
+ * Runs the {@link SwarmSearcher} on SMC models.
+ */
+public class SwarmTest {
+
+	private GMCConfiguration config;
+
+	@Before
+	public void setUp() throws Exception {
+		config = new TestHelper(1).generateGMCConfig();
+		config.setQuiet(true);
+	}
+
+	private SwarmSearcher<Integer, String> newSwarm(SparseDirectedGraph graph,
+			StatePredicateIF<Integer> predicate, int numWorkers) {
+		return new SwarmSearcher<>(() -> new SMCEnabler(graph),
+				() -> new SimpleStateManager(graph), () -> predicate, config,
+				numWorkers);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void noCheckpoints() {
+		config.setCheckpointFile("swarm.checkpoint");
+		newSwarm(TestHelper.randomGraph(10, 2, 0, true, true), new Predicate(),
+				2);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void noPrintedTransitions() {
+		SwarmSearcher<Integer, String> swarm = newSwarm(
+				TestHelper.randomGraph(10, 2, 0, true, true), new Predicate(),
+				2);
+
+		config.setPrintTransition(true);
+		config.setQuiet(false);
+		swarm.search(0);
+	}
+
+	@Test
+	public void findsViolation() {
+		SparseDirectedGraph graph = TestHelper.randomGraph(2000, 3, 5, true,
+				true);
+		SwarmSearcher<Integer, String> swarm = newSwarm(graph,
+				new Predicate(1999), 4);
+
+		assertTrue(swarm.search(0));
+		assertEquals(Integer.valueOf(1999), swarm.violatingState());
+		assertFalse(newSwarm(graph, new Predicate(5000), 4).search(0));
+	}
+
+	/**
+	 * Makes only worker {@code index} look for the state, and replays the
+	 * trace of the worker with the original enabler.
+	 */
+	private void replayWorker(int index) throws Exception {
+		SparseDirectedGraph graph = TestHelper.randomGraph(500, 3, index,
+				true, true);
+		AtomicInteger numWorkers = new AtomicInteger();
+		SwarmSearcher<Integer, String> swarm = new SwarmSearcher<>(
+				() -> new SMCEnabler(graph),
+				() -> new SimpleStateManager(graph),
+				// the workers are created in order:
+				() -> numWorkers.getAndIncrement() == index
+						? new Predicate(499)
+						: new FalsePredicate<>(),
+				config, index + 1);
+		File traceFile = File.createTempFile("swarm", ".trace");
+		PrintStream out = new PrintStream(traceFile);
+		GuidedTransitionChooser<Integer, String> chooser;
+		Integer state = 0;
+		String transition;
+
+		assertTrue(swarm.search(0));
+		out.println("== Begin Trace ==");
+		swarm.counterexample().writeStack(out);
+		out.println("== End Trace ==");
+		out.close();
+		chooser = new GuidedTransitionChooser<>(new SMCEnabler(graph),
+				traceFile);
+		while ((transition = chooser.chooseEnabledTransition(state)) != null)
+			state = graph.getDestState(state, transition);
+		traceFile.delete();
+		assertEquals(Integer.valueOf(499), state);
+	}
+
+	@Test
+	public void replayShuffledWorker() throws Exception {
+		replayWorker(1);
+	}
+
+	@Test
+	public void replayFullWorker() throws Exception {
+		// worker 3 does not use the ample sets:
+		replayWorker(3);
+	}
+}
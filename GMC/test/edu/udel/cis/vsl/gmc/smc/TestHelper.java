@@ -2,6 +2,7 @@ package edu.udel.cis.vsl.gmc.smc;
 
 import java.io.PrintStream;
 import java.util.Arrays;
+import java.util.Random;
 
 import edu.udel.cis.vsl.gmc.GMCConfiguration;
 
@@ -20,6 +21,44 @@ public class TestHelper {
 		return new MatrixDirectedGraph(transMap);
 	}
 
+	public SparseDirectedGraph getSparseTransitionGraph() {
+		SparseDirectedGraph.Builder builder = new SparseDirectedGraph.Builder(
+				transMap.length);
+
+		for (int i = 0; i < transMap.length; i++)
+			for (int j = 0; j < transMap.length; j++)
+				if (transMap[i][j] != null)
+					builder.addTransition(i, transMap[i][j], j);
+		return builder.build();
+	}
+
+	/**
+	 * Builds a random graph of which each state has {@code degree}
+	 * transitions to random states.
+	 * 
+	 * @param ample
+	 *            if true, about a third of the transitions are ample
+	 * @param connected
+	 *            if true, each state also has a transition "next" to the
+	 *            following one, so every state is reachable from state 0
+	 */
+	public static SparseDirectedGraph randomGraph(int numStates, int degree,
+			long seed, boolean ample, boolean connected) {
+		SparseDirectedGraph.Builder builder = new SparseDirectedGraph.Builder(
+				numStates);
+		Random random = new Random(seed);
+
+		for (int s = 0; s < numStates; s++) {
+			if (connected && s + 1 < numStates)
+				builder.addTransition(s, "next", s + 1);
+			for (int i = 0; i < degree; i++)
+				builder.addTransition(s,
+						(ample && random.nextInt(3) == 0 ? "@t" : "t") + i,
+						random.nextInt(numStates));
+		}
+		return builder.build();
+	}
+
 	public Predicate getPredicate() {
 		return this.predicate;
 	}
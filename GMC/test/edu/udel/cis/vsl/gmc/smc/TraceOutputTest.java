@@ -0,0 +1,66 @@
+package edu.udel.cis.vsl.gmc.smc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+import edu.udel.cis.vsl.gmc.GMCConfiguration;
+import edu.udel.cis.vsl.gmc.util.AsyncPrintStream;
+
+/**
+ * Checks that the trace steps are printed to the stream of the configuration,
+ * and only if it asks for the transitions to be printed.
+ */
+public class TraceOutputTest {
+
+	private String run(boolean printTransitions, boolean quiet)
+			throws Exception {
+		TestHelper helper = new TestHelper(0);
+		GMCConfiguration config = helper.generateGMCConfig();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		SparseDirectedGraph.Builder builder = new SparseDirectedGraph.Builder(
+				3);
+
+		config.setPrintStream(new PrintStream(bytes));
+		config.setPrintTransition(printTransitions);
+		config.setQuiet(quiet);
+		builder.addTransition(0, "a", 1);
+		builder.addTransition(1, "b", 2);
+		new SMC().run(builder.build(), new Predicate(), config);
+		return bytes.toString();
+	}
+
+	@Test
+	public void printed() throws Exception {
+		String output = run(true, false);
+
+		assertTrue(output.contains("SourceState<0>"));
+		assertTrue(output.contains("FinalState<"));
+	}
+
+	@Test
+	public void silent() throws Exception {
+		assertEquals("", run(false, false));
+		assertEquals("", run(true, true));
+	}
+
+	@Test
+	public void asyncOrder() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		StringBuilder expected = new StringBuilder();
+
+		try (AsyncPrintStream out = new AsyncPrintStream(
+				new PrintStream(bytes), 16)) {
+			for (int i = 0; i < 1000; i++) {
+				out.println(i);
+				expected.append(i).append(System.lineSeparator());
+			}
+			out.flush();
+			assertEquals(expected.toString(), bytes.toString());
+		}
+	}
+}